@@ -0,0 +1,32 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.SessionBackpressureTracker;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+// Reports inbound traffic for the idle reaper and forgets closed sessions; the tracked
+// session itself is created by TrackedSubProtocolWebSocketHandler
+public class BackpressureWebSocketHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final SessionBackpressureTracker tracker;
+
+    public BackpressureWebSocketHandlerDecorator(WebSocketHandler delegate, SessionBackpressureTracker tracker) {
+        super(delegate);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        tracker.touch(session.getId());
+        super.handleMessage(session, message);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        tracker.remove(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
@@ -0,0 +1,30 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.ConnectionQualityAggregator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// /actuator/callquality[/{studioId}]: rolling RTT, jitter, loss and bitrate per participant
+@Component
+@Endpoint(id = "callquality")
+@RequiredArgsConstructor
+public class CallQualityEndpoint {
+
+    private final ConnectionQualityAggregator qualityAggregator;
+
+    @ReadOperation
+    public Map<String, List<Map<String, Object>>> studios() {
+        return qualityAggregator.snapshotAll();
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> studio(@Selector String studioId) {
+        return qualityAggregator.snapshot(studioId);
+    }
+}
@@ -0,0 +1,237 @@
+package com.podnest.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the in-flight OAuth2 authorization request in a signed cookie instead
+ * of the HttpSession, so the callback can land on any node. The request is
+ * written as JSON with an explicit field list; nothing from the cookie is ever
+ * handed to Java deserialization.
+ * <p>
+ * Only created in stateless mode; otherwise the session keeps the request and
+ * no cookie secret is needed.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.stateless", havingValue = "true")
+public class HttpCookieOAuth2AuthorizationRequestRepository
+        implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    public static final String AUTHORIZATION_REQUEST_COOKIE = "podnest_oauth2_request";
+    public static final String REDIRECT_URI_COOKIE = "podnest_oauth2_redirect";
+    public static final String REDIRECT_URI_PARAM = "redirect_uri";
+
+    private static final Duration COOKIE_MAX_AGE = Duration.ofMinutes(3);
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final byte[] signingKey;
+    private final boolean secureCookies;
+    private final List<String> allowedRedirectOrigins;
+
+    public HttpCookieOAuth2AuthorizationRequestRepository(
+            @Value("${application.security.oauth2.cookie-secret:}") String secret,
+            @Value("${application.security.oauth2.secure-cookies:false}") boolean secureCookies,
+            @Value("${app.cors.allowed-origins:http://localhost:5173}") List<String> allowedRedirectOrigins) {
+        if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("application.security.oauth2.cookie-secret must be set to at least "
+                    + MIN_SECRET_BYTES + " bytes");
+        }
+        this.signingKey = secret.getBytes(StandardCharsets.UTF_8);
+        this.secureCookies = secureCookies;
+        this.allowedRedirectOrigins = allowedRedirectOrigins;
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String value = readCookie(request, AUTHORIZATION_REQUEST_COOKIE);
+        if (value == null) {
+            return null;
+        }
+        byte[] payload = verify(value);
+        return payload != null ? deserialize(payload) : null;
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest,
+            HttpServletRequest request, HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            deleteCookie(response, AUTHORIZATION_REQUEST_COOKIE);
+            deleteCookie(response, REDIRECT_URI_COOKIE);
+            return;
+        }
+        writeCookie(response, AUTHORIZATION_REQUEST_COOKIE, sign(serialize(authorizationRequest)));
+
+        String redirectUri = request.getParameter(REDIRECT_URI_PARAM);
+        if (redirectUri != null && isAllowedRedirect(redirectUri)) {
+            writeCookie(response, REDIRECT_URI_COOKIE, sign(redirectUri.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+            HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        deleteCookie(response, AUTHORIZATION_REQUEST_COOKIE);
+        return authorizationRequest;
+    }
+
+    // Frontend URL the login was started from, if it was allowed and the cookie is intact
+    public String loadRedirectUri(HttpServletRequest request) {
+        String value = readCookie(request, REDIRECT_URI_COOKIE);
+        byte[] payload = value != null ? verify(value) : null;
+        return payload != null ? new String(payload, StandardCharsets.UTF_8) : null;
+    }
+
+    public void removeRedirectUri(HttpServletResponse response) {
+        deleteCookie(response, REDIRECT_URI_COOKIE);
+    }
+
+    private boolean isAllowedRedirect(String redirectUri) {
+        return allowedRedirectOrigins.stream()
+                .anyMatch(origin -> redirectUri.equals(origin) || redirectUri.startsWith(origin + "/"));
+    }
+
+    private String sign(byte[] payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(hmac(payload));
+    }
+
+    private byte[] verify(String value) {
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(value.substring(0, dot));
+            byte[] signature = decoder.decode(value.substring(dot + 1));
+            return MessageDigest.isEqual(hmac(payload), signature) ? payload : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey, "HmacSHA256"));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    // Only the fields the authorization code flow uses; attributes and parameters are kept when they are strings
+    private record StoredRequest(String authorizationUri, String clientId, String redirectUri, Set<String> scopes,
+            String state, Map<String, String> additionalParameters, Map<String, String> attributes,
+            String authorizationRequestUri) {
+    }
+
+    static byte[] serialize(OAuth2AuthorizationRequest authorizationRequest) {
+        StoredRequest stored = new StoredRequest(
+                authorizationRequest.getAuthorizationUri(),
+                authorizationRequest.getClientId(),
+                authorizationRequest.getRedirectUri(),
+                authorizationRequest.getScopes(),
+                authorizationRequest.getState(),
+                strings(authorizationRequest.getAdditionalParameters()),
+                strings(authorizationRequest.getAttributes()),
+                authorizationRequest.getAuthorizationRequestUri());
+        try {
+            return JSON.writeValueAsBytes(stored);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize OAuth2 authorization request", e);
+        }
+    }
+
+    // Only ever called on payloads whose signature has been checked
+    static OAuth2AuthorizationRequest deserialize(byte[] payload) {
+        try {
+            StoredRequest stored = JSON.readValue(payload, StoredRequest.class);
+            return OAuth2AuthorizationRequest.authorizationCode()
+                    .authorizationUri(stored.authorizationUri())
+                    .clientId(stored.clientId())
+                    .redirectUri(stored.redirectUri())
+                    .scopes(stored.scopes())
+                    .state(stored.state())
+                    .additionalParameters(objects(stored.additionalParameters()))
+                    .attributes(objects(stored.attributes()))
+                    .authorizationRequestUri(stored.authorizationRequestUri())
+                    .build();
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> strings(Map<String, Object> values) {
+        Map<String, String> result = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value instanceof String text) {
+                result.put(key, text);
+            }
+        });
+        return result;
+    }
+
+    private static Map<String, Object> objects(Map<String, String> values) {
+        return values != null ? new LinkedHashMap<>(values) : new LinkedHashMap<>();
+    }
+
+    private static String readCookie(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletResponse response, String name, String value) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secureCookies)
+                .sameSite("Lax")
+                .maxAge(COOKIE_MAX_AGE)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private void deleteCookie(HttpServletResponse response, String name) {
+        ResponseCookie cookie = ResponseCookie.from(name, "")
+                .path("/")
+                .httpOnly(true)
+                .secure(secureCookies)
+                .sameSite("Lax")
+                .maxAge(0)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
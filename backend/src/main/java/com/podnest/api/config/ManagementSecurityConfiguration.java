@@ -0,0 +1,68 @@
+package com.podnest.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.SecurityFilterChain;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Actuator endpoints other than health expose per-studio session ids and call
+ * quality, so they are for operators only. Operators sign in with HTTP Basic
+ * using the credential configured here; app users, whatever their token,
+ * never get the operator authority. Without a password only health is open.
+ */
+@Configuration
+public class ManagementSecurityConfiguration {
+
+    static final String OPERATOR_AUTHORITY = "OPERATOR";
+
+    @Value("${application.management.username:operator}")
+    private String operatorUsername;
+
+    @Value("${application.management.password:}")
+    private String operatorPassword;
+
+    // Ahead of the application chain, which would let any signed-in user through
+    @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .anyRequest().hasAuthority(OPERATOR_AUTHORITY))
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authenticationManager(operatorAuthentication(operatorUsername, operatorPassword));
+        return http.build();
+    }
+
+    static AuthenticationManager operatorAuthentication(String username, String password) {
+        byte[] expected = password.getBytes(StandardCharsets.UTF_8);
+        return authentication -> {
+            byte[] given = String.valueOf(authentication.getCredentials()).getBytes(StandardCharsets.UTF_8);
+            if (expected.length == 0 || !username.equals(authentication.getName())
+                    || !MessageDigest.isEqual(expected, given)) {
+                throw new BadCredentialsException("Bad operator credentials");
+            }
+            return UsernamePasswordAuthenticationToken.authenticated(username, null,
+                    List.of(new SimpleGrantedAuthority(OPERATOR_AUTHORITY)));
+        };
+    }
+}
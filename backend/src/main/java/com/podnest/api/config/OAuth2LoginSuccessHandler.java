@@ -1,24 +1,36 @@
 package com.podnest.api.config;
 
+import com.podnest.api.model.User;
+import com.podnest.api.repository.UserRepository;
 import com.podnest.api.service.JwtService;
+import com.podnest.api.service.RefreshTokenService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.ArrayList;
 
 @Component
 public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
     private final JwtService jwtService;
-
-    public OAuth2LoginSuccessHandler(JwtService jwtService) {
+    private final UserRepository userRepository;
+    private final ObjectProvider<HttpCookieOAuth2AuthorizationRequestRepository> cookieAuthorizationRequestRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final RefreshTokenCookie refreshTokenCookie;
+
+    public OAuth2LoginSuccessHandler(JwtService jwtService, UserRepository userRepository,
+            ObjectProvider<HttpCookieOAuth2AuthorizationRequestRepository> cookieAuthorizationRequestRepository,
+            RefreshTokenService refreshTokenService, RefreshTokenCookie refreshTokenCookie) {
         this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.cookieAuthorizationRequestRepository = cookieAuthorizationRequestRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.refreshTokenCookie = refreshTokenCookie;
     }
 
     @Override
@@ -27,14 +39,23 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
         OAuth2User oAuth2User = (OAuth2User) authentication.getPrincipal();
         String email = oAuth2User.getAttribute("email");
 
-        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                email,
-                "", // Password is empty for OAuth2 users
-                new ArrayList<>());
+        // CustomOAuth2UserService has already created or updated this user
+        User user = userRepository.findByEmail(email).orElseThrow();
+
+        String token = jwtService.generateToken(user);
+        // The long-lived token goes in an HttpOnly cookie; only the short-lived access token rides the URL
+        refreshTokenCookie.write(response, refreshTokenService.issue(user));
 
-        String token = jwtService.generateToken(userDetails);
+        // In stateless mode the frontend URL travels in a signed cookie rather than the session
+        HttpCookieOAuth2AuthorizationRequestRepository cookies = cookieAuthorizationRequestRepository.getIfAvailable();
+        String redirectUri = null;
+        if (cookies != null) {
+            redirectUri = cookies.loadRedirectUri(request);
+            cookies.removeRedirectUri(response);
+        }
+        String base = redirectUri != null ? redirectUri : "http://localhost:5173/";
 
-        String targetUrl = "http://localhost:5173/?token=" + token;
+        String targetUrl = base + (base.contains("?") ? "&" : "?") + "token=" + token;
         getRedirectStrategy().sendRedirect(request, response, targetUrl);
     }
 }
@@ -0,0 +1,31 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.StudioPresenceRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+// Any inbound frame, including STOMP heartbeats, proves the participant is still there
+@Component
+@RequiredArgsConstructor
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    private final StudioPresenceRegistry presenceRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            presenceRegistry.touch(sessionId);
+            // An explicit DISCONNECT means the participant left; only dropped connections may resume
+            if (SimpMessageType.DISCONNECT.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))) {
+                presenceRegistry.markLeaving(sessionId);
+            }
+        }
+        return message;
+    }
+}
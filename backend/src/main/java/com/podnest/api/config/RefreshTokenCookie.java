@@ -0,0 +1,61 @@
+package com.podnest.api.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Carries the refresh token of an OAuth2 login. The browser only sends it to
+ * the refresh endpoint and scripts cannot read it, so it never appears in a
+ * redirect URL, browser history or a Referer header.
+ */
+@Component
+public class RefreshTokenCookie {
+
+    public static final String NAME = "podnest_refresh";
+    public static final String PATH = "/api/auth/refresh";
+
+    private final Duration maxAge;
+
+    public RefreshTokenCookie(@Value("${application.security.jwt.refresh-token.expiration:2592000000}") long refreshExpiration) {
+        this.maxAge = Duration.ofMillis(refreshExpiration);
+    }
+
+    public String read(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    public void write(HttpServletResponse response, String refreshToken) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie(refreshToken, maxAge).toString());
+    }
+
+    public void clear(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie("", Duration.ZERO).toString());
+    }
+
+    // Browsers accept Secure cookies from http://localhost, so development needs no exception
+    private static ResponseCookie cookie(String value, Duration maxAge) {
+        return ResponseCookie.from(NAME, value)
+                .path(PATH)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("Strict")
+                .maxAge(maxAge)
+                .build();
+    }
+}
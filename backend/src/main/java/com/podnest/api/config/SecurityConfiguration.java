@@ -1,15 +1,22 @@
 package com.podnest.api.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -26,6 +33,12 @@ public class SecurityConfiguration {
         private final AuthenticationProvider authenticationProvider;
         private final CustomOAuth2UserService customOAuth2UserService;
         private final OAuth2LoginSuccessHandler oAuth2LoginSuccessHandler;
+        // Only present in stateless mode
+        private final ObjectProvider<HttpCookieOAuth2AuthorizationRequestRepository> cookieAuthorizationRequestRepository;
+
+        // No HttpSession is ever created in this mode, so nodes need no sticky routing
+        @Value("${application.security.stateless:false}")
+        private boolean stateless;
 
         @Bean
         public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -35,18 +48,44 @@ public class SecurityConfiguration {
                                 .authorizeHttpRequests(auth -> auth
                                                 .requestMatchers("/api/auth/**", "/oauth2/**", "/login/oauth2/**",
                                                                 "/api/studios/*/invite-email", "/api/studios/invite/**",
-                                                                "/ws/**", "/api/subscriptions/webhook")
+                                                                "/api/studios/rtc-config", "/api/recordings/*/media", "/api/recordings/*/peaks",
+                                                                "/ws/**", "/ws-native", "/api/subscriptions/webhook")
                                                 .permitAll()
                                                 .anyRequest().authenticated())
-                                .oauth2Login(oauth2 -> oauth2
-                                                .userInfoEndpoint(userInfo -> userInfo
-                                                                .userService(customOAuth2UserService))
-                                                .successHandler(oAuth2LoginSuccessHandler))
+                                .oauth2Login(oauth2 -> {
+                                        oauth2
+                                                        .userInfoEndpoint(userInfo -> userInfo
+                                                                        .userService(customOAuth2UserService))
+                                                        .successHandler(oAuth2LoginSuccessHandler);
+                                        if (stateless) {
+                                                SimpleUrlAuthenticationFailureHandler failureHandler = new SimpleUrlAuthenticationFailureHandler(
+                                                                "http://localhost:5173/?oauthError=true");
+                                                failureHandler.setAllowSessionCreation(false);
+                                                oauth2
+                                                                .authorizationEndpoint(endpoint -> endpoint
+                                                                                .authorizationRequestRepository(
+                                                                                                cookieAuthorizationRequestRepository.getObject()))
+                                                                .authorizedClientRepository(
+                                                                                new StatelessOAuth2AuthorizedClientRepository())
+                                                                .failureHandler(failureHandler);
+                                        }
+                                })
+                                // API clients get a 401 they can refresh on, not a redirect to Google
+                                .exceptionHandling(exceptions -> exceptions
+                                                .defaultAuthenticationEntryPointFor(
+                                                                new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                                                                new AntPathRequestMatcher("/api/**")))
                                 .sessionManagement(session -> session
-                                                .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
+                                                .sessionCreationPolicy(stateless
+                                                                ? SessionCreationPolicy.STATELESS
+                                                                : SessionCreationPolicy.IF_REQUIRED))
                                 .authenticationProvider(authenticationProvider)
                                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
+                if (stateless) {
+                        http.requestCache(cache -> cache.requestCache(new NullRequestCache()));
+                }
+
                 return http.build();
         }
 
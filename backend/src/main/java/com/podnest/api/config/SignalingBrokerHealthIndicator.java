@@ -0,0 +1,34 @@
+package com.podnest.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.stereotype.Component;
+
+// Shows up as "signalingBroker" in /actuator/health; DOWN while the relay has lost its broker
+@Component
+public class SignalingBrokerHealthIndicator implements HealthIndicator {
+
+    @Value("${application.signaling.broker.mode:simple}")
+    private String brokerMode;
+
+    private volatile boolean available;
+    private volatile long changedAt = System.currentTimeMillis();
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        available = event.isBrokerAvailable();
+        changedAt = System.currentTimeMillis();
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = available ? Health.up() : Health.down();
+        return builder
+                .withDetail("mode", brokerMode)
+                .withDetail("since", changedAt)
+                .build();
+    }
+}
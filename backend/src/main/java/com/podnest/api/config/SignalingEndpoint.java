@@ -0,0 +1,24 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.SessionBackpressureTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// /actuator/signaling: per-session outbound backlog and drop counts, to find the slow peer in a room
+@Component
+@Endpoint(id = "signaling")
+@RequiredArgsConstructor
+public class SignalingEndpoint {
+
+    private final SessionBackpressureTracker backpressureTracker;
+
+    @ReadOperation
+    public Map<String, List<Map<String, Object>>> sessions() {
+        return Map.of("sessions", backpressureTracker.stats());
+    }
+}
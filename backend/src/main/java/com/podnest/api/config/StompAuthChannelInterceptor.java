@@ -0,0 +1,60 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.JwtService;
+import com.podnest.api.service.TokenDenylist;
+import com.podnest.api.service.UserDetailsCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticates the STOMP CONNECT frame. A valid bearer token becomes the
+ * session principal; guests without an account present the studio's invite
+ * code instead, which is kept on the session for {@link StudioAccessChannelInterceptor}.
+ * A CONNECT carrying neither is refused.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    public static final String INVITE_CODE_HEADER = "invite-code";
+    public static final String INVITE_CODE_ATTRIBUTE = "podnest.inviteCode";
+
+    private final JwtService jwtService;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenDenylist tokenDenylist;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwtService.verify(authHeader.substring(7))
+                    .filter(principal -> !tokenDenylist.isDenied(principal.tokenId()))
+                    .filter(userDetailsCache::isCurrent)
+                    .ifPresent(principal -> accessor.setUser(
+                            new UsernamePasswordAuthenticationToken(principal, null, List.of())));
+        }
+        String inviteCode = accessor.getFirstNativeHeader(INVITE_CODE_HEADER);
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if (inviteCode != null && !inviteCode.isBlank() && sessionAttributes != null) {
+            sessionAttributes.put(INVITE_CODE_ATTRIBUTE, inviteCode.trim());
+        } else if (accessor.getUser() == null) {
+            throw new AccessDeniedException("A bearer token or an invite code is required");
+        }
+        return message;
+    }
+}
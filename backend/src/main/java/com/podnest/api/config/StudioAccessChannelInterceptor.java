@@ -0,0 +1,96 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.JwtPrincipal;
+import com.podnest.api.service.StudioMembershipCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Checks every SUBSCRIBE and SEND against the studio named in its destination.
+ * Sessions may subscribe to their own /user queues and to the topic of a studio
+ * they belong to, and send only to that studio's /app mappings; everything
+ * else, including sends straight to the broker, is refused.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudioAccessChannelInterceptor implements ChannelInterceptor {
+
+    private static final String STUDIO_TOPIC_PREFIX = "/topic/studio/";
+    private static final String STUDIO_APP_PREFIX = "/app/studio/";
+    private static final String USER_PREFIX = "/user/";
+
+    private final StudioMembershipCache membershipCache;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (!SimpMessageType.SUBSCRIBE.equals(type) && !SimpMessageType.MESSAGE.equals(type)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            throw new AccessDeniedException("Missing destination");
+        }
+
+        Long studioId;
+        if (SimpMessageType.SUBSCRIBE.equals(type)) {
+            if (destination.startsWith(USER_PREFIX)) {
+                return message;
+            }
+            studioId = studioId(destination, STUDIO_TOPIC_PREFIX, false);
+        } else {
+            studioId = studioId(destination, STUDIO_APP_PREFIX, true);
+        }
+        if (studioId == null) {
+            throw new AccessDeniedException("Destination not allowed: " + destination);
+        }
+
+        if (!membershipCache.isAllowed(studioId, jwtPrincipal(SimpMessageHeaderAccessor.getUser(message.getHeaders())),
+                inviteCode(SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders())))) {
+            throw new AccessDeniedException("Not a member of studio " + studioId);
+        }
+        return message;
+    }
+
+    // "/topic/studio/42" or "/app/studio/42/signal" -> 42; anything else -> null
+    private static Long studioId(String destination, String prefix, boolean suffixRequired) {
+        if (!destination.startsWith(prefix)) {
+            return null;
+        }
+        int end = destination.indexOf('/', prefix.length());
+        if (suffixRequired ? end < 0 : end >= 0) {
+            return null;
+        }
+        String id = destination.substring(prefix.length(), end < 0 ? destination.length() : end);
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static JwtPrincipal jwtPrincipal(Principal user) {
+        if (user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    private static String inviteCode(Map<String, Object> sessionAttributes) {
+        return sessionAttributes != null
+                && sessionAttributes.get(StompAuthChannelInterceptor.INVITE_CODE_ATTRIBUTE) instanceof String code
+                ? code
+                : null;
+    }
+}
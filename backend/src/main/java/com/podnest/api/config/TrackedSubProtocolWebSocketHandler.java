@@ -0,0 +1,25 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.SessionBackpressureTracker;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+// The stock handler wraps every session in its own buffering decorator, which would sit outside the
+// tracker's and hold the backlog where the tracker cannot see it; here the tracker's session is the only one
+public class TrackedSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    private final SessionBackpressureTracker tracker;
+
+    public TrackedSubProtocolWebSocketHandler(MessageChannel clientInboundChannel,
+            SubscribableChannel clientOutboundChannel, SessionBackpressureTracker tracker) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        return tracker.decorate(session);
+    }
+}
@@ -1,25 +1,128 @@
 package com.podnest.api.config;
 
+import com.podnest.api.service.SessionBackpressureTracker;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
+// The broker configuration itself is imported by WebSocketMessageBrokerConfig
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String[] ALLOWED_ORIGINS = {"http://localhost:5173"};
+
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final StudioAccessChannelInterceptor studioAccessChannelInterceptor;
+    private final PresenceChannelInterceptor presenceChannelInterceptor;
+    private final SessionBackpressureTracker backpressureTracker;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${application.signaling.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // stomp.js splits outgoing frames at 16 KB, so Tomcat never needs a bigger per-session buffer
+    @Value("${application.signaling.transport.text-buffer-bytes:16384}")
+    private int textBufferBytes;
+
+    // Server and client heartbeat interval; a silent connection is dropped after a few missed beats
+    @Value("${application.signaling.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    // "simple" keeps everything in this JVM; "relay" fans out through an external STOMP broker
+    @Value("${application.signaling.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${application.signaling.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${application.signaling.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${application.signaling.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${application.signaling.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${application.signaling.broker.relay.heartbeat-ms:10000}")
+    private long relayHeartbeatMillis;
+
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor,
+            StudioAccessChannelInterceptor studioAccessChannelInterceptor,
+            PresenceChannelInterceptor presenceChannelInterceptor,
+            SessionBackpressureTracker backpressureTracker,
+            @Qualifier("taskScheduler") TaskScheduler taskScheduler) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.studioAccessChannelInterceptor = studioAccessChannelInterceptor;
+        this.presenceChannelInterceptor = presenceChannelInterceptor;
+        this.backpressureTracker = backpressureTracker;
+        this.taskScheduler = taskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // The relay reconnects its system session on its own; availability shows up in /actuator/health
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatMillis)
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatMillis);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatMillis, heartbeatMillis})
+                    .setTaskScheduler(taskScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+        // A presence frame sent to a session must not overtake the room broadcast that follows it
+        config.setPreservePublishOrder(true);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Frames from one session are handled in the order they arrived (subscribe before enter)
+        registry.setPreserveReceiveOrder(true);
+        // Plain WebSocket for browsers that have it: no SockJS framing, no streaming fallbacks
+        registry.addEndpoint("/ws-native")
+                .setAllowedOrigins(ALLOWED_ORIGINS);
         registry.addEndpoint("/ws")
-                .setAllowedOrigins("http://localhost:5173")
-                .withSockJS();
+                .setAllowedOrigins(ALLOWED_ORIGINS)
+                .withSockJS()
+                .setTaskScheduler(taskScheduler);
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(textBufferBytes);
+        container.setMaxBinaryMessageBufferSize(8192);
+        return container;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                // Send limits are applied by SessionBackpressureTracker, whose session is the only buffer
+                .addDecoratorFactory(handler -> new BackpressureWebSocketHandlerDecorator(handler, backpressureTracker));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authenticate at CONNECT, authorize each SUBSCRIBE/SEND, and only then count the frame as activity
+        registration.interceptors(stompAuthChannelInterceptor, studioAccessChannelInterceptor,
+                presenceChannelInterceptor);
     }
 }
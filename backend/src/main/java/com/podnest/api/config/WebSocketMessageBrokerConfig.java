@@ -0,0 +1,31 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.SessionBackpressureTracker;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+/**
+ * What {@code @EnableWebSocketMessageBroker} would import, with the STOMP
+ * handler swapped for one that writes through the backpressure tracker's
+ * sessions. Everything else still comes from {@link WebSocketConfig}.
+ */
+@Configuration
+public class WebSocketMessageBrokerConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private final SessionBackpressureTracker backpressureTracker;
+
+    public WebSocketMessageBrokerConfig(SessionBackpressureTracker backpressureTracker) {
+        this.backpressureTracker = backpressureTracker;
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+            AbstractSubscribableChannel clientOutboundChannel) {
+        return new TrackedSubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel,
+                backpressureTracker);
+    }
+}
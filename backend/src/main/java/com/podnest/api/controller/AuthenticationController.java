@@ -1,32 +1,75 @@
 package com.podnest.api.controller;
 
+import com.podnest.api.config.RefreshTokenCookie;
 import com.podnest.api.dto.AuthenticationRequest;
 import com.podnest.api.dto.AuthenticationResponse;
+import com.podnest.api.dto.RefreshTokenRequest;
 import com.podnest.api.dto.RegisterRequest;
 import com.podnest.api.service.AuthenticationService;
+import com.podnest.api.service.JwtPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthenticationController {
 
     private final AuthenticationService service;
+    private final RefreshTokenCookie refreshTokenCookie;
 
     @PostMapping("/register")
-    public ResponseEntity<AuthenticationResponse> register(
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> register(
             @RequestBody RegisterRequest request) {
-        return ResponseEntity.ok(service.register(request));
+        return service.register(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthenticationResponse> authenticate(
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> authenticate(
             @RequestBody AuthenticationRequest request) {
-        return ResponseEntity.ok(service.authenticate(request));
+        return service.authenticate(request).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(
+            @RequestBody(required = false) RefreshTokenRequest request,
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        if (request != null && request.getRefreshToken() != null) {
+            return ResponseEntity.ok(service.refresh(request));
+        }
+        // OAuth2 logins hold their refresh token in a cookie; the rotated one goes back the same way
+        AuthenticationResponse response = service.refresh(new RefreshTokenRequest(refreshTokenCookie.read(httpRequest)));
+        refreshTokenCookie.write(httpResponse, response.getRefreshToken());
+        response.setRefreshToken(null);
+        return ResponseEntity.ok(response);
+    }
+
+    // Ends a cookie-held OAuth2 session; the cookie is not sent to /logout
+    @DeleteMapping("/refresh")
+    public ResponseEntity<Void> revokeRefreshCookie(HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String refreshToken = refreshTokenCookie.read(httpRequest);
+        refreshTokenCookie.clear(httpResponse);
+        if (refreshToken != null) {
+            service.logout(null, new RefreshTokenRequest(refreshToken));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        service.logout(principal, request);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,11 +1,18 @@
 package com.podnest.api.controller;
 
 import com.podnest.api.model.Recording;
+import com.podnest.api.service.LiveRecordingIngestService;
+import com.podnest.api.service.RecordingClipService;
+import com.podnest.api.service.RecordingMediaService;
 import com.podnest.api.service.RecordingService;
+import com.podnest.api.service.RecordingUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -14,6 +21,10 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class RecordingController {
     private final RecordingService recordingService;
+    private final RecordingUploadService uploadService;
+    private final LiveRecordingIngestService liveIngestService;
+    private final RecordingMediaService mediaService;
+    private final RecordingClipService clipService;
 
     @GetMapping
     public ResponseEntity<List<Recording>> getUserRecordings() {
@@ -36,4 +47,96 @@ public class RecordingController {
 
         return ResponseEntity.ok(recordingService.saveRecording(studioId, title, duration, fileUrl));
     }
+
+    // Starts a resumable upload of the recording's media file; the response says how to chunk it
+    @PostMapping("/{id}/uploads")
+    public ResponseEntity<Map<String, Object>> createUpload(@PathVariable Long id,
+            @RequestBody Map<String, Object> request) {
+        if (request.get("size") == null) {
+            throw new IllegalArgumentException("size is required");
+        }
+        long size = Long.parseLong(request.get("size").toString());
+        String contentType = request.get("contentType") != null ? request.get("contentType").toString() : null;
+        return ResponseEntity.ok(uploadService.create(id, size, contentType));
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUpload(@PathVariable String uploadId) {
+        return ResponseEntity.ok(uploadService.status(uploadId));
+    }
+
+    // Raw chunk bytes in the body; streamed to disk, never buffered
+    @PutMapping("/uploads/{uploadId}/chunks/{index}")
+    public ResponseEntity<Void> putChunk(@PathVariable String uploadId, @PathVariable int index,
+            HttpServletRequest request) throws IOException {
+        uploadService.writeChunk(uploadId, index, request.getContentLengthLong(), request.getInputStream());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<Recording> completeUpload(@PathVariable String uploadId) {
+        return ResponseEntity.ok(uploadService.complete(uploadId));
+    }
+
+    // Live ingest while recording: open the spool, append timeslices at acknowledged offsets, finish
+    @PostMapping("/{id}/live")
+    public ResponseEntity<Map<String, Object>> startLive(@PathVariable Long id,
+            @RequestBody(required = false) Map<String, Object> request) {
+        String contentType = request != null && request.get("contentType") != null
+                ? request.get("contentType").toString()
+                : null;
+        return ResponseEntity.ok(Map.of("offset", liveIngestService.start(id, contentType)));
+    }
+
+    @GetMapping("/{id}/live")
+    public ResponseEntity<Map<String, Object>> getLiveOffset(@PathVariable Long id) {
+        return ResponseEntity.ok(Map.of("offset", liveIngestService.offset(id)));
+    }
+
+    @PutMapping("/{id}/live")
+    public ResponseEntity<Map<String, Object>> appendLive(@PathVariable Long id, @RequestParam long offset,
+            HttpServletRequest request) throws IOException {
+        long ack = liveIngestService.append(id, offset, request.getContentLengthLong(), request.getInputStream());
+        return ResponseEntity.ok(Map.of("offset", ack));
+    }
+
+    @PostMapping("/{id}/live/finish")
+    public ResponseEntity<Recording> finishLive(@PathVariable Long id, @RequestBody Map<String, Object> request) {
+        if (request.get("size") == null) {
+            throw new IllegalArgumentException("size is required");
+        }
+        return ResponseEntity.ok(liveIngestService.finish(id, Long.parseLong(request.get("size").toString())));
+    }
+
+    // Seekable playback and resumable downloads; reachable with the owner's token or a signed URL
+    @RequestMapping(value = "/{id}/media", method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void media(@PathVariable Long id,
+            @RequestParam(required = false) Long expires,
+            @RequestParam(required = false) String sig,
+            @RequestParam(defaultValue = "false") boolean download,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        mediaService.serve(id, expires, sig, download, request, response);
+    }
+
+    // Waveform min/max pairs for about `resolution` points; same access rules as media
+    @GetMapping("/{id}/peaks")
+    public void peaks(@PathVariable Long id,
+            @RequestParam(defaultValue = "100") int resolution,
+            @RequestParam(required = false) Long expires,
+            @RequestParam(required = false) String sig,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        mediaService.servePeaks(id, resolution, expires, sig, request, response);
+    }
+
+    // Lossless highlight clip; the new recording is returned at once and becomes ready when the cut is done
+    @PostMapping("/{id}/clips")
+    public ResponseEntity<Recording> createClip(@PathVariable Long id, @RequestBody Map<String, Object> request) {
+        if (request.get("startMs") == null || request.get("endMs") == null) {
+            throw new IllegalArgumentException("startMs and endMs are required");
+        }
+        long startMs = Long.parseLong(request.get("startMs").toString());
+        long endMs = Long.parseLong(request.get("endMs").toString());
+        String title = request.get("title") != null ? request.get("title").toString() : null;
+        return ResponseEntity.accepted().body(clipService.createClip(id, startMs, endMs, title));
+    }
 }
@@ -1,27 +1,81 @@
 package com.podnest.api.controller;
 
+import com.podnest.api.dto.TelemetrySample;
+import com.podnest.api.service.InvalidSignalException;
+import com.podnest.api.service.SignalingService;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import java.util.List;
 import java.util.Map;
 
 @Controller
 public class SignalingController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SignalingService signalingService;
 
-    public SignalingController(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    public SignalingController(SignalingService signalingService) {
+        this.signalingService = signalingService;
     }
 
     @MessageMapping("/studio/{studioId}/signal")
-    public void handleSignal(@DestinationVariable String studioId, @Payload Map<String, Object> signal) {
-        // Broadcast the signal to everyone in the studio
-        // In a real app, we might route this to specific users, but for MVP
-        // broadcasting is simpler
-        messagingTemplate.convertAndSend("/topic/studio/" + studioId, signal);
+    public void handleSignal(@DestinationVariable String studioId, @Payload byte[] signal,
+            SimpMessageHeaderAccessor headerAccessor) {
+        // Offers, answers and candidates go only to their target; join stays room-wide.
+        // The body is taken as raw bytes and relayed as-is, never bound to a map.
+        signalingService.relay(studioId, headerAccessor.getSessionId(), signal);
+    }
+
+    // Sent once the client holds both subscriptions, so the presence reply cannot be missed
+    @MessageMapping("/studio/{studioId}/enter")
+    public void enter(@DestinationVariable String studioId, @Payload Map<String, Object> request,
+            SimpMessageHeaderAccessor headerAccessor) {
+        Object name = request.get("name");
+        signalingService.enter(studioId, headerAccessor.getSessionId(), headerAccessor.getUser(),
+                name != null ? name.toString() : null);
+    }
+
+    // A reconnecting client: keeps its peer id and gets the signals sent after lastSeq
+    @MessageMapping("/studio/{studioId}/resume")
+    public void resume(@DestinationVariable String studioId, @Payload Map<String, Object> request,
+            SimpMessageHeaderAccessor headerAccessor) {
+        Object token = request.get("token");
+        long lastSeq = request.get("lastSeq") instanceof Number seq ? seq.longValue() : 0L;
+        signalingService.resume(studioId, headerAccessor.getSessionId(),
+                token != null ? token.toString() : null, lastSeq);
+    }
+
+    // Once-a-second connection stats from each participant; aggregated in memory, never stored
+    @MessageMapping("/studio/{studioId}/telemetry")
+    public void telemetry(@DestinationVariable String studioId, @Payload TelemetrySample sample,
+            SimpMessageHeaderAccessor headerAccessor) {
+        signalingService.telemetry(studioId, headerAccessor.getSessionId(), sample);
+    }
+
+    @MessageMapping("/studio/{studioId}/admit")
+    public void admit(@DestinationVariable String studioId, @Payload Map<String, Object> request,
+            SimpMessageHeaderAccessor headerAccessor) {
+        // No peerIds means "everyone waiting, up to capacity"
+        List<String> peerIds = request.get("peerIds") instanceof List<?> ids
+                ? ids.stream().map(String::valueOf).toList()
+                : null;
+        signalingService.admit(studioId, headerAccessor.getSessionId(), peerIds);
+    }
+
+    @MessageExceptionHandler(InvalidSignalException.class)
+    public void handleInvalidSignal(InvalidSignalException ex, SimpMessageHeaderAccessor headerAccessor) {
+        signalingService.sendToSession(headerAccessor.getSessionId(),
+                Map.of("type", "error", "message", ex.getMessage()));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        signalingService.disconnected(event.getSessionId());
     }
 }
@@ -1,6 +1,7 @@
 package com.podnest.api.controller;
 
 import com.podnest.api.model.Studio;
+import com.podnest.api.service.RtcConfigService;
 import com.podnest.api.service.StudioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +16,7 @@ import java.util.Map;
 public class StudioController {
     private final StudioService studioService;
     private final com.podnest.api.service.EmailService emailService;
+    private final RtcConfigService rtcConfigService;
 
     @PostMapping
     public ResponseEntity<Studio> createStudio(@RequestBody Map<String, String> request) {
@@ -32,6 +34,12 @@ public class StudioController {
         return ResponseEntity.noContent().build();
     }
 
+    // Public: guests joining through an invite link need it before they have an account
+    @GetMapping("/rtc-config")
+    public ResponseEntity<Map<String, Object>> getRtcConfig() {
+        return ResponseEntity.ok(rtcConfigService.getConfig());
+    }
+
     @GetMapping("/invite/{code}")
     public ResponseEntity<Studio> getStudioByInvite(@PathVariable String code) {
         return ResponseEntity.ok(studioService.getByInviteCode(code));
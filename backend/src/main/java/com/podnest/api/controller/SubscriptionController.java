@@ -5,9 +5,9 @@ import com.podnest.api.model.*;
 import com.podnest.api.repository.SubscriptionRepository;
 import com.podnest.api.repository.UserRepository;
 import com.podnest.api.service.CashfreeService;
+import com.podnest.api.service.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -28,9 +28,8 @@ public class SubscriptionController {
     private UserRepository userRepository;
 
     @PostMapping("/create")
-    public ResponseEntity<?> createSubscription(@RequestBody SubscriptionRequest request) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+    public ResponseEntity<?> createSubscription(CurrentUser currentUser, @RequestBody SubscriptionRequest request) {
+        User user = currentUser.getUser();
 
         try {
             double amount = request.getPlanType().equals("PRO")
@@ -78,11 +77,8 @@ public class SubscriptionController {
     }
 
     @GetMapping("/status")
-    public ResponseEntity<?> getStatus() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
-
-        return subscriptionRepository.findByUser(user)
+    public ResponseEntity<?> getStatus(CurrentUser currentUser) {
+        return subscriptionRepository.findByUserId(currentUser.getId())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.noContent().build());
     }
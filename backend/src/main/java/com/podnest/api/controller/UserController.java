@@ -1,33 +1,38 @@
 package com.podnest.api.controller;
 
+import com.podnest.api.dto.AuthenticationResponse;
+import com.podnest.api.dto.ChangePasswordRequest;
 import com.podnest.api.model.User;
 import com.podnest.api.repository.UserRepository;
+import com.podnest.api.service.AuthenticationService;
+import com.podnest.api.service.CurrentUser;
+import com.podnest.api.service.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthenticationService authenticationService;
 
     @GetMapping("/me")
-    public ResponseEntity<User> getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+    public ResponseEntity<User> getCurrentUser(CurrentUser currentUser) {
+        User user = currentUser.getUser();
         // Zero out password for security
         user.setPassword(null);
         return ResponseEntity.ok(user);
     }
 
     @PatchMapping("/me")
-    public ResponseEntity<User> updateProfile(@RequestBody Map<String, Object> updates) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+    public ResponseEntity<User> updateProfile(CurrentUser currentUser, @RequestBody Map<String, Object> updates) {
+        User user = currentUser.getUser();
 
         if (updates.containsKey("fullName")) {
             user.setFullName((String) updates.get("fullName"));
@@ -50,10 +55,17 @@ public class UserController {
         }
 
         User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getId());
         saved.setPassword(null);
         return ResponseEntity.ok(saved);
     }
 
+    @PostMapping("/me/password")
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> changePassword(CurrentUser currentUser,
+            @RequestBody ChangePasswordRequest request) {
+        return authenticationService.changePassword(currentUser.getUser(), request).thenApply(ResponseEntity::ok);
+    }
+
     @GetMapping("/favicon.ico")
     @ResponseBody
     public void returnNoFavicon() {
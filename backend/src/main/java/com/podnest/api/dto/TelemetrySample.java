@@ -0,0 +1,18 @@
+package com.podnest.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One getStats() reading from a client, already reduced to integers: ms, ms, permille, kbps
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TelemetrySample {
+    private int rtt;
+    private int jitter;
+    private int loss;
+    private int kbps;
+}
@@ -0,0 +1,69 @@
+package com.podnest.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One unit of post-upload work on a recording. A node claims a job by taking
+ * a time-limited lease on it; if the node dies the lease runs out and another
+ * node picks the job up again.
+ */
+@Entity
+@Table(name = "processing_jobs", indexes = {
+        @Index(name = "idx_processing_jobs_claim", columnList = "jobType,status,runAfter"),
+        @Index(name = "idx_processing_jobs_recording", columnList = "recordingId,status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessingJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long recordingId;
+
+    @Column(nullable = false, length = 32)
+    private String jobType; // CHECKSUM, INDEX, ...
+
+    @Column(nullable = false, length = 16)
+    private String status; // PENDING, RUNNING, DONE, FAILED
+
+    // Free-form input for job types that need more than the recording (e.g. a clip's time range)
+    @Column(length = 1000)
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private int maxAttempts;
+
+    @Column(nullable = false)
+    private LocalDateTime runAfter;
+
+    @Column(length = 64)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null)
+            status = "PENDING";
+        if (runAfter == null)
+            runAfter = createdAt;
+    }
+}
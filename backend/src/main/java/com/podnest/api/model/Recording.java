@@ -27,12 +27,31 @@ public class Recording {
 
     private String duration;
 
+    // Exact length read from the media by the INDEX processing job
+    private Long durationMs;
+
     @Column(nullable = false)
     private String status; // e.g., "ready", "processing"
 
     private String thumbnailUrl;
     private String fileUrl;
 
+    // Set once the media file is stored on our side (see RecordingStorage)
+    private Long fileSize;
+    private String contentType;
+
+    // Hex SHA-256 of the stored media, filled in by the CHECKSUM processing job
+    @Column(length = 64)
+    private String checksum;
+
+    // Signed, short-lived playback URL filled in for API responses; never stored
+    @Transient
+    private String mediaUrl;
+
+    // Signed waveform peaks URL, alongside mediaUrl; 404 until the WAVEFORM job has run
+    @Transient
+    private String peaksUrl;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,49 @@
+package com.podnest.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// A resumable upload of one recording's media file, written chunk by chunk into a spool file
+@Entity
+@Table(name = "recording_uploads", indexes = {
+        @Index(name = "idx_recording_uploads_status_created", columnList = "status,createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecordingUpload {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recording_id", nullable = false)
+    private Recording recording;
+
+    @Column(nullable = false)
+    private long totalSize;
+
+    @Column(nullable = false)
+    private int chunkSize;
+
+    @Column(nullable = false)
+    private int chunkCount;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private String status; // OPEN, COMPLETE, EXPIRED
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null)
+            status = "OPEN";
+    }
+}
@@ -0,0 +1,28 @@
+package com.podnest.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// One row per chunk that reached the spool file; the unique key makes retried chunks idempotent
+@Entity
+@Table(name = "recording_upload_chunks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_chunk", columnNames = { "uploadId", "chunkIndex" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecordingUploadChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private int chunkIndex;
+
+    @Column(nullable = false)
+    private int size;
+}
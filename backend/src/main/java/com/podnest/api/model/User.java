@@ -1,5 +1,6 @@
 package com.podnest.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -34,11 +35,17 @@ public class User {
     @Column(nullable = false)
     private boolean notifySpaceUsage = false;
 
+    // Bumped whenever credentials change; tokens carrying an older value are rejected
+    @JsonIgnore
+    @Column(nullable = false)
+    private long credentialVersion = 0;
+
     public User() {
     }
 
     public User(Long id, String email, String password, String fullName, String phoneNumber, String provider,
-            boolean notifyNewComments, boolean notifyRecordingComplete, boolean notifySpaceUsage) {
+            boolean notifyNewComments, boolean notifyRecordingComplete, boolean notifySpaceUsage,
+            long credentialVersion) {
         this.id = id;
         this.email = email;
         this.password = password;
@@ -48,6 +55,7 @@ public class User {
         this.notifyNewComments = notifyNewComments;
         this.notifyRecordingComplete = notifyRecordingComplete;
         this.notifySpaceUsage = notifySpaceUsage;
+        this.credentialVersion = credentialVersion;
     }
 
     public static UserBuilder builder() {
@@ -126,6 +134,14 @@ public class User {
         this.notifySpaceUsage = notifySpaceUsage;
     }
 
+    public long getCredentialVersion() {
+        return credentialVersion;
+    }
+
+    public void setCredentialVersion(long credentialVersion) {
+        this.credentialVersion = credentialVersion;
+    }
+
     public static class UserBuilder {
         private Long builderId;
         private String builderEmail;
@@ -136,6 +152,7 @@ public class User {
         private boolean builderNotifyNewComments = true;
         private boolean builderNotifyRecordingComplete = true;
         private boolean builderNotifySpaceUsage = false;
+        private long builderCredentialVersion = 0;
 
         public UserBuilder id(Long id) {
             this.builderId = id;
@@ -182,10 +199,16 @@ public class User {
             return this;
         }
 
+        public UserBuilder credentialVersion(long credentialVersion) {
+            this.builderCredentialVersion = credentialVersion;
+            return this;
+        }
+
         public User build() {
             return new User(this.builderId, this.builderEmail, this.builderPassword, this.builderFullName,
                     this.builderPhoneNumber, this.builderProvider,
-                    this.builderNotifyNewComments, this.builderNotifyRecordingComplete, this.builderNotifySpaceUsage);
+                    this.builderNotifyNewComments, this.builderNotifyRecordingComplete, this.builderNotifySpaceUsage,
+                    this.builderCredentialVersion);
         }
     }
 }
@@ -0,0 +1,64 @@
+package com.podnest.api.repository;
+
+import com.podnest.api.model.ProcessingJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, Long> {
+
+    // Due jobs, plus running ones whose owner stopped renewing the lease
+    @Query("select j.id from ProcessingJob j where j.jobType = :jobType and "
+            + "((j.status = 'PENDING' and j.runAfter <= :now) or (j.status = 'RUNNING' and j.leaseExpiresAt < :now)) "
+            + "order by j.runAfter")
+    List<Long> findClaimable(@Param("jobType") String jobType, @Param("now") LocalDateTime now, Pageable page);
+
+    // Only one node's update can match, so a row count of 1 means the job is ours
+    @Modifying
+    @Transactional
+    @Query("update ProcessingJob j set j.status = 'RUNNING', j.leaseOwner = :owner, j.leaseExpiresAt = :until, "
+            + "j.attempts = j.attempts + 1 where j.id = :id and "
+            + "((j.status = 'PENDING' and j.runAfter <= :now) or (j.status = 'RUNNING' and j.leaseExpiresAt < :now))")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("update ProcessingJob j set j.leaseExpiresAt = :until "
+            + "where j.id in :ids and j.status = 'RUNNING' and j.leaseOwner = :owner")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+            @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("update ProcessingJob j set j.status = 'DONE', j.leaseOwner = null, j.leaseExpiresAt = null, "
+            + "j.lastError = null, j.finishedAt = :now where j.id = :id and j.leaseOwner = :owner")
+    int markDone(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update ProcessingJob j set j.status = 'PENDING', j.leaseOwner = null, j.leaseExpiresAt = null, "
+            + "j.lastError = :error, j.runAfter = :runAfter where j.id = :id and j.leaseOwner = :owner")
+    int markRetry(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error,
+            @Param("runAfter") LocalDateTime runAfter);
+
+    @Modifying
+    @Transactional
+    @Query("update ProcessingJob j set j.status = 'FAILED', j.leaseOwner = null, j.leaseExpiresAt = null, "
+            + "j.lastError = :error, j.finishedAt = :now where j.id = :id and j.leaseOwner = :owner")
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error,
+            @Param("now") LocalDateTime now);
+
+    @Query("select count(j) from ProcessingJob j where j.recordingId = :recordingId and j.status in :statuses")
+    long countByRecordingIdAndStatusIn(@Param("recordingId") Long recordingId,
+            @Param("statuses") Collection<String> statuses);
+
+    @Query("select count(j) from ProcessingJob j where j.status = 'PENDING'")
+    long countPending();
+}
@@ -1,10 +1,34 @@
 package com.podnest.api.repository;
 
 import com.podnest.api.model.Recording;
-import com.podnest.api.model.Studio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface RecordingRepository extends JpaRepository<Recording, Long> {
-    List<Recording> findByStudioInOrderByCreatedAtDesc(List<Studio> studios);
+    @Query("select r from Recording r join fetch r.studio s join fetch s.owner o "
+            + "where o.id = :ownerId order by r.createdAt desc")
+    List<Recording> findByOwnerIdOrderByCreatedAtDesc(@Param("ownerId") Long ownerId);
+
+    // Conditional, so a recording re-uploaded meanwhile is not flipped by stale jobs
+    @Modifying
+    @Transactional
+    @Query("update Recording r set r.status = :to where r.id = :id and r.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") String from, @Param("to") String to);
+
+    // Processing handlers write only their own column, never the whole entity
+    @Modifying
+    @Transactional
+    @Query("update Recording r set r.checksum = :checksum where r.id = :id")
+    int updateChecksum(@Param("id") Long id, @Param("checksum") String checksum);
+
+    @Modifying
+    @Transactional
+    @Query("update Recording r set r.fileSize = :fileSize, r.durationMs = :durationMs, r.duration = :duration "
+            + "where r.id = :id")
+    int updateMediaInfo(@Param("id") Long id, @Param("fileSize") long fileSize,
+            @Param("durationMs") long durationMs, @Param("duration") String duration);
 }
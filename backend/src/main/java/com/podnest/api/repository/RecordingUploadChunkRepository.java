@@ -0,0 +1,21 @@
+package com.podnest.api.repository;
+
+import com.podnest.api.model.RecordingUploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface RecordingUploadChunkRepository extends JpaRepository<RecordingUploadChunk, Long> {
+    @Query("select c.chunkIndex from RecordingUploadChunk c where c.uploadId = :uploadId order by c.chunkIndex")
+    List<Integer> findReceivedIndexes(@Param("uploadId") String uploadId);
+
+    long countByUploadId(String uploadId);
+
+    boolean existsByUploadIdAndChunkIndex(String uploadId, int chunkIndex);
+
+    @Modifying
+    @Query("delete from RecordingUploadChunk c where c.uploadId = :uploadId")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
@@ -0,0 +1,17 @@
+package com.podnest.api.repository;
+
+import com.podnest.api.model.RecordingUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RecordingUploadRepository extends JpaRepository<RecordingUpload, String> {
+    @Query("select u from RecordingUpload u join fetch u.recording r join fetch r.studio s join fetch s.owner "
+            + "where u.id = :id")
+    Optional<RecordingUpload> findWithOwnerById(@Param("id") String id);
+
+    List<RecordingUpload> findByStatusAndCreatedAtBefore(String status, LocalDateTime cutoff);
+}
@@ -1,10 +1,18 @@
 package com.podnest.api.repository;
 
 import com.podnest.api.model.ScheduledSession;
-import com.podnest.api.model.Studio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ScheduledSessionRepository extends JpaRepository<ScheduledSession, Long> {
-    List<ScheduledSession> findByStudioInOrderByStartTimeAsc(List<Studio> studios);
+    @Query("select distinct ss from ScheduledSession ss join fetch ss.studio s join fetch s.owner o "
+            + "left join fetch ss.guests where o.id = :ownerId order by ss.startTime asc")
+    List<ScheduledSession> findByOwnerIdOrderByStartTimeAsc(@Param("ownerId") Long ownerId);
+
+    Optional<ScheduledSession> findFirstByStudioIdAndStartTimeBetweenOrderByStartTimeDesc(Long studioId,
+            LocalDateTime from, LocalDateTime to);
 }
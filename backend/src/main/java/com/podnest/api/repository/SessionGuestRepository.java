@@ -3,8 +3,14 @@ package com.podnest.api.repository;
 import com.podnest.api.model.SessionGuest;
 import com.podnest.api.model.ScheduledSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface SessionGuestRepository extends JpaRepository<SessionGuest, Long> {
     List<SessionGuest> findBySession(ScheduledSession session);
+
+    @Query("select distinct lower(g.email) from SessionGuest g "
+            + "where g.session.studio.id = :studioId and g.invitationStatus <> 'DECLINED'")
+    List<String> findInvitedEmailsByStudioId(@Param("studioId") Long studioId);
 }
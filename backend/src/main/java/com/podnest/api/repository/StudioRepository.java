@@ -1,11 +1,13 @@
 package com.podnest.api.repository;
 
 import com.podnest.api.model.Studio;
-import com.podnest.api.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface StudioRepository extends JpaRepository<Studio, Long> {
-    List<Studio> findByOwner(User owner);
+    @EntityGraph(attributePaths = "owner")
+    List<Studio> findByOwnerId(Long ownerId);
+
     java.util.Optional<Studio> findByInviteCode(String inviteCode);
 }
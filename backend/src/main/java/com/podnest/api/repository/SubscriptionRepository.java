@@ -8,5 +8,7 @@ import java.util.Optional;
 public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
     Optional<Subscription> findByUser(User user);
 
+    Optional<Subscription> findByUserId(Long userId);
+
     Optional<Subscription> findByGatewayPaymentId(String gatewayPaymentId);
 }
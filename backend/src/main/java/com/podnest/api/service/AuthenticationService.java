@@ -2,62 +2,145 @@ package com.podnest.api.service;
 
 import com.podnest.api.dto.AuthenticationRequest;
 import com.podnest.api.dto.AuthenticationResponse;
+import com.podnest.api.dto.ChangePasswordRequest;
+import com.podnest.api.dto.RefreshTokenRequest;
 import com.podnest.api.dto.RegisterRequest;
 import com.podnest.api.model.User;
 import com.podnest.api.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
-@RequiredArgsConstructor
 public class AuthenticationService {
 
         private final UserRepository repository;
-        private final PasswordEncoder passwordEncoder;
+        private final PasswordHashingService passwordHashingService;
         private final JwtService jwtService;
-        private final AuthenticationManager authenticationManager;
+        private final UserDetailsCache userDetailsCache;
+        private final RefreshTokenService refreshTokenService;
+        private final TokenDenylist tokenDenylist;
+        // Database and token work after a hash; keeps JDBC off the BCrypt threads
+        private final ExecutorService completionExecutor;
 
-        public AuthenticationResponse register(RegisterRequest request) {
-                var user = User.builder()
-                                .fullName(request.getFullName())
-                                .email(request.getEmail())
-                                .password(passwordEncoder.encode(request.getPassword()))
-                                .build();
-                repository.save(user);
+        public AuthenticationService(UserRepository repository, PasswordHashingService passwordHashingService,
+                        JwtService jwtService, UserDetailsCache userDetailsCache,
+                        RefreshTokenService refreshTokenService, TokenDenylist tokenDenylist,
+                        @Value("${application.security.password.completion-threads:4}") int completionThreads) {
+                this.repository = repository;
+                this.passwordHashingService = passwordHashingService;
+                this.jwtService = jwtService;
+                this.userDetailsCache = userDetailsCache;
+                this.refreshTokenService = refreshTokenService;
+                this.tokenDenylist = tokenDenylist;
+                this.completionExecutor = Executors.newFixedThreadPool(completionThreads,
+                                new CustomizableThreadFactory("auth-completion-"));
+        }
+
+        public CompletableFuture<AuthenticationResponse> register(RegisterRequest request) {
+                return passwordHashingService.encode(request.getPassword())
+                                .thenApplyAsync(hash -> {
+                                        var user = User.builder()
+                                                        .fullName(request.getFullName())
+                                                        .email(request.getEmail())
+                                                        .password(hash)
+                                                        .build();
+                                        repository.save(user);
+                                        return tokenFor(user);
+                                }, completionExecutor);
+        }
+
+        public CompletableFuture<AuthenticationResponse> authenticate(AuthenticationRequest request) {
+                var user = repository.findByEmail(request.getEmail()).orElse(null);
+                if (user == null) {
+                        return passwordHashingService.matchesNothing(request.getPassword())
+                                        .thenApply(ignored -> {
+                                                throw new BadCredentialsException("Bad credentials");
+                                        });
+                }
+
+                return passwordHashingService.matches(request.getPassword(), user.getPassword())
+                                .thenComposeAsync(matches -> {
+                                        if (!matches) {
+                                                throw new BadCredentialsException("Bad credentials");
+                                        }
+                                        if (!passwordHashingService.needsRehash(user.getPassword())) {
+                                                return CompletableFuture.completedFuture(user);
+                                        }
+                                        // Move the hash to the configured work factor while we still hold the raw password
+                                        CompletableFuture<String> rehash;
+                                        try {
+                                                rehash = passwordHashingService.encode(request.getPassword());
+                                        } catch (PasswordHashingOverloadedException e) {
+                                                // The login itself succeeded; the rehash can wait for a quieter sign-in
+                                                return CompletableFuture.completedFuture(user);
+                                        }
+                                        return rehash.thenApplyAsync(hash -> {
+                                                user.setPassword(hash);
+                                                return repository.save(user);
+                                        }, completionExecutor);
+                                }, completionExecutor)
+                                .thenApplyAsync(this::tokenFor, completionExecutor);
+        }
 
-                UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                                user.getEmail(),
-                                user.getPassword(),
-                                new ArrayList<>());
+        public CompletableFuture<AuthenticationResponse> changePassword(User user, ChangePasswordRequest request) {
+                if (request.getNewPassword() == null || request.getNewPassword().isBlank()) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "newPassword is required");
+                }
 
-                var jwtToken = jwtService.generateToken(userDetails);
+                return passwordHashingService.matches(request.getCurrentPassword(), user.getPassword())
+                                .thenCompose(matches -> {
+                                        if (!matches) {
+                                                throw new BadCredentialsException("Current password is incorrect");
+                                        }
+                                        return passwordHashingService.encode(request.getNewPassword());
+                                })
+                                .thenApplyAsync(hash -> {
+                                        user.setPassword(hash);
+                                        // Invalidates every token issued before this change
+                                        user.setCredentialVersion(user.getCredentialVersion() + 1);
+                                        repository.save(user);
+                                        userDetailsCache.invalidate(user.getId());
+                                        refreshTokenService.revokeAllForUser(user.getId());
+                                        return tokenFor(user);
+                                }, completionExecutor);
+        }
+
+        public AuthenticationResponse refresh(RefreshTokenRequest request) {
+                var rotation = refreshTokenService.rotate(request.getRefreshToken());
                 return AuthenticationResponse.builder()
-                                .token(jwtToken)
+                                .token(jwtService.generateToken(rotation.user()))
+                                .refreshToken(rotation.refreshToken())
                                 .build();
         }
 
-        public AuthenticationResponse authenticate(AuthenticationRequest request) {
-                authenticationManager.authenticate(
-                                new UsernamePasswordAuthenticationToken(
-                                                request.getEmail(),
-                                                request.getPassword()));
-                var user = repository.findByEmail(request.getEmail())
-                                .orElseThrow();
-
-                UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                                user.getEmail(),
-                                user.getPassword(),
-                                new ArrayList<>());
+        public void logout(JwtPrincipal principal, RefreshTokenRequest request) {
+                if (principal != null) {
+                        tokenDenylist.deny(principal.tokenId(), principal.expiresAt());
+                }
+                if (request != null && request.getRefreshToken() != null) {
+                        refreshTokenService.revoke(request.getRefreshToken());
+                }
+        }
 
-                var jwtToken = jwtService.generateToken(userDetails);
+        private AuthenticationResponse tokenFor(User user) {
+                var jwtToken = jwtService.generateToken(user);
                 return AuthenticationResponse.builder()
                                 .token(jwtToken)
+                                .refreshToken(refreshTokenService.issue(user))
                                 .build();
         }
+
+        @PreDestroy
+        void shutdown() {
+                completionExecutor.shutdown();
+        }
 }
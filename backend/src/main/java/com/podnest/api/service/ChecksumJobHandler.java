@@ -0,0 +1,53 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of the stored media, so a later copy or download can be verified.
+ * Reads through one reused direct buffer; a multi-GB file never touches the heap.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChecksumJobHandler implements ProcessingJobHandler {
+
+    public static final String TYPE = "CHECKSUM";
+
+    private final RecordingRepository recordingRepository;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void process(ProcessingJob job, Recording recording, Path media) throws Exception {
+        Object fileKey = Files.readAttributes(media, BasicFileAttributes.class).fileKey();
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(media, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        // The INDEX job swapped in a rewritten file meanwhile and queued a fresh checksum of its own
+        if (fileKey != null && !fileKey.equals(Files.readAttributes(media, BasicFileAttributes.class).fileKey())) {
+            return;
+        }
+        recordingRepository.updateChecksum(recording.getId(), HexFormat.of().formatHex(digest.digest()));
+    }
+}
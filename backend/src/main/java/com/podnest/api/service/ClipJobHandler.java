@@ -0,0 +1,152 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cuts a clip out of an indexed WebM recording without re-encoding. The
+ * source's {@link WebmIndex} gives the byte offset of the cluster holding
+ * the nearest keyframe at or before the start, so only the header and the
+ * clusters inside the range are read and copied; the work grows with the
+ * clip, not with the episode. Cuts fall on cluster boundaries, so a clip
+ * can start up to one cluster early and end up to one cluster late.
+ */
+@Component
+public class ClipJobHandler implements ProcessingJobHandler {
+
+    public static final String TYPE = "CLIP";
+
+    private final RecordingStorage storage;
+    private final RecordingRepository recordingRepository;
+    private final ProcessingJobService processingJobService;
+
+    public ClipJobHandler(RecordingStorage storage,
+            RecordingRepository recordingRepository,
+            @Lazy ProcessingJobService processingJobService) {
+        this.storage = storage;
+        this.recordingRepository = recordingRepository;
+        this.processingJobService = processingJobService;
+    }
+
+    static String payload(Long sourceId, long startMs, long endMs) {
+        return sourceId + "," + startMs + "," + endMs;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    // Only queued on request, for the new clip recording
+    @Override
+    public boolean runsOnUpload() {
+        return false;
+    }
+
+    @Override
+    public void process(ProcessingJob job, Recording clip, Path media) throws Exception {
+        String[] parts = job.getPayload().split(",");
+        Long sourceId = Long.valueOf(parts[0]);
+        long startMs = Long.parseLong(parts[1]);
+        long endMs = Long.parseLong(parts[2]);
+
+        Path sourceDir = storage.recordingDir(sourceId);
+        WebmIndex index;
+        try {
+            index = WebmIndex.read(sourceDir.resolve(WebmIndex.FILE_NAME));
+        } catch (NoSuchFileException e) {
+            // The source's INDEX job has not finished yet; back off and try again
+            throw new IllegalStateException("Recording " + sourceId + " is not indexed yet");
+        }
+        List<WebmIndex.Cluster> range = selectMillis(index, startMs, endMs);
+        if (range.isEmpty()) {
+            // The index never changes once written, so a retry would find nothing either
+            throw new UnrecoverableJobException("No media between " + startMs + " and " + endMs + " ms");
+        }
+
+        Path partial = storage.recordingDir(clip.getId()).resolve("media.clip");
+        WebmIndex clipIndex;
+        try (FileChannel in = FileChannel.open(storage.mediaPath(sourceId), StandardOpenOption.READ)) {
+            EbmlReader reader = new EbmlReader(in);
+            WebmRemux.Head head = WebmRemux.scanHead(reader);
+            Set<Long> cueTracks = head.cueTracks();
+            List<WebmRemux.Cluster> clusters = new ArrayList<>(range.size());
+            for (WebmIndex.Cluster indexed : range) {
+                clusters.add(readCluster(reader, head, cueTracks, indexed));
+            }
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                clipIndex = WebmRemux.write(in, head, clusters, clusters.get(0).timecode(), out);
+                out.force(true);
+            }
+        }
+        Files.move(partial, media, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        clipIndex.write(media.resolveSibling(WebmIndex.FILE_NAME));
+
+        long durationMs = clipIndex.durationMillis();
+        recordingRepository.updateMediaInfo(clip.getId(), Files.size(media), durationMs,
+                WebmIndexJobHandler.format(durationMs));
+        // The clip already has its index; it still needs its own checksum and peaks
+        processingJobService.enqueue(clip.getId(), ChecksumJobHandler.TYPE, null);
+        processingJobService.enqueue(clip.getId(), WaveformJobHandler.TYPE, null);
+    }
+
+    static List<WebmIndex.Cluster> selectMillis(WebmIndex index, long startMs, long endMs) {
+        return select(index, index.ticksForMillis(startMs), index.ticksForMillis(endMs));
+    }
+
+    // From the last keyframe cluster at or before the start through the last cluster starting before the end
+    static List<WebmIndex.Cluster> select(WebmIndex index, long startTicks, long endTicks) {
+        List<WebmIndex.Cluster> clusters = index.clusters();
+        int first = -1;
+        for (int i = 0; i < clusters.size(); i++) {
+            WebmIndex.Cluster cluster = clusters.get(i);
+            if (cluster.keyframe() < 0) {
+                continue;
+            }
+            if (cluster.keyframe() > startTicks && first >= 0) {
+                break;
+            }
+            first = i;
+            if (cluster.keyframe() > startTicks) {
+                break;
+            }
+        }
+        if (first < 0) {
+            return List.of();
+        }
+        int last = first;
+        while (last + 1 < clusters.size() && clusters.get(last + 1).timecode() < endTicks) {
+            last++;
+        }
+        return clusters.subList(first, last + 1);
+    }
+
+    private static WebmRemux.Cluster readCluster(EbmlReader reader, WebmRemux.Head head, Set<Long> cueTracks,
+            WebmIndex.Cluster indexed) throws IOException {
+        reader.seek(indexed.offset());
+        if (reader.readId() != WebmRemux.CLUSTER) {
+            throw new IOException("Index does not match media at offset " + indexed.offset());
+        }
+        WebmRemux.Cluster cluster = WebmRemux.readCluster(reader, indexed.offset(), reader.readSize(),
+                head.segmentEnd(), cueTracks, null);
+        if (cluster == null) {
+            throw new IOException("Unreadable cluster at offset " + indexed.offset());
+        }
+        return cluster;
+    }
+}
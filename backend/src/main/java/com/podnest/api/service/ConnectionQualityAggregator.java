@@ -0,0 +1,119 @@
+package com.podnest.api.service;
+
+import com.podnest.api.dto.TelemetrySample;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling call-quality histograms per studio and participant, fed by the
+ * once-a-second getStats() samples clients push over STOMP. Nothing here is
+ * persisted: a sample costs two map lookups and a few atomic adds, and a
+ * participant's entry disappears once its window has gone quiet.
+ */
+@Service
+public class ConnectionQualityAggregator {
+
+    private static final class ParticipantQuality {
+        final RollingHistogram rtt;
+        final RollingHistogram jitter;
+        final RollingHistogram loss;
+        final RollingHistogram bitrate;
+
+        ParticipantQuality(int slots, long slotMillis) {
+            rtt = new RollingHistogram(slots, slotMillis);
+            jitter = new RollingHistogram(slots, slotMillis);
+            loss = new RollingHistogram(slots, slotMillis);
+            bitrate = new RollingHistogram(slots, slotMillis);
+        }
+    }
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ParticipantQuality>> studios =
+            new ConcurrentHashMap<>();
+    private final int slots;
+    private final long slotMillis;
+    private final Counter samples;
+
+    public ConnectionQualityAggregator(MeterRegistry meterRegistry,
+            @Value("${application.signaling.telemetry.window-ms:60000}") long windowMillis,
+            @Value("${application.signaling.telemetry.slots:6}") int slots) {
+        this.slots = slots;
+        this.slotMillis = Math.max(1, windowMillis / slots);
+        this.samples = Counter.builder("podnest.signaling.telemetry.samples")
+                .register(meterRegistry);
+    }
+
+    public void record(String studioId, String peerId, TelemetrySample sample) {
+        long now = System.currentTimeMillis();
+        ParticipantQuality quality = studios
+                .computeIfAbsent(studioId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(peerId, id -> new ParticipantQuality(slots, slotMillis));
+        quality.rtt.record(sample.getRtt(), now);
+        quality.jitter.record(sample.getJitter(), now);
+        quality.loss.record(sample.getLoss(), now);
+        quality.bitrate.record(sample.getKbps(), now);
+        samples.increment();
+    }
+
+    public Set<String> studioIds() {
+        return studios.keySet();
+    }
+
+    public void discardPeer(String studioId, String peerId) {
+        Map<String, ParticipantQuality> participants = studios.get(studioId);
+        if (participants != null) {
+            participants.remove(peerId);
+        }
+    }
+
+    /**
+     * One entry per participant that reported within the window: rtt and
+     * jitter in ms, loss in permille, bitrate in kbps.
+     */
+    public List<Map<String, Object>> snapshot(String studioId) {
+        Map<String, ParticipantQuality> participants = studios.get(studioId);
+        if (participants == null) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        participants.forEach((peerId, quality) -> {
+            if (quality.rtt.isIdle(now)) {
+                return;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", peerId);
+            entry.put("rtt", quality.rtt.summary(now));
+            entry.put("jitter", quality.jitter.summary(now));
+            entry.put("loss", quality.loss.summary(now));
+            entry.put("kbps", quality.bitrate.summary(now));
+            snapshot.add(entry);
+        });
+        return snapshot;
+    }
+
+    public Map<String, List<Map<String, Object>>> snapshotAll() {
+        Map<String, List<Map<String, Object>>> all = new LinkedHashMap<>();
+        studios.keySet().forEach(studioId -> all.put(studioId, snapshot(studioId)));
+        return all;
+    }
+
+    // Drops participants whose whole window has aged out, then studios left empty
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        studios.forEach((studioId, participants) -> {
+            participants.values().removeIf(quality -> quality.rtt.isIdle(now));
+            if (participants.isEmpty()) {
+                studios.remove(studioId, participants);
+            }
+        });
+    }
+}
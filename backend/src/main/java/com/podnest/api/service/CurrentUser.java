@@ -0,0 +1,35 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.User;
+import com.podnest.api.repository.UserRepository;
+
+// The authenticated caller for one request. The entity is only loaded if someone asks for it.
+public class CurrentUser {
+
+    private final Long id;
+    private final String email;
+    private final UserRepository userRepository;
+    private User user;
+
+    CurrentUser(Long id, String email, UserRepository userRepository) {
+        this.id = id;
+        this.email = email;
+        this.userRepository = userRepository;
+    }
+
+    public Long getId() {
+        return id != null ? id : getUser().getId();
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public User getUser() {
+        if (user == null) {
+            user = (id != null ? userRepository.findById(id) : userRepository.findByEmail(email))
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,47 @@
+package com.podnest.api.service;
+
+import com.podnest.api.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+@Service
+@RequiredArgsConstructor
+public class CurrentUserService {
+
+    private static final String ATTRIBUTE = CurrentUser.class.getName();
+
+    private final UserRepository userRepository;
+
+    // Resolved once per request and shared by the controller and every service it calls
+    public CurrentUser get() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object cached = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached instanceof CurrentUser currentUser) {
+                return currentUser;
+            }
+        }
+
+        CurrentUser currentUser = resolve();
+        if (attributes != null) {
+            attributes.setAttribute(ATTRIBUTE, currentUser, RequestAttributes.SCOPE_REQUEST);
+        }
+        return currentUser;
+    }
+
+    private CurrentUser resolve() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new AuthenticationCredentialsNotFoundException("No authenticated user");
+        }
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return new CurrentUser(principal.userId(), principal.username(), userRepository);
+        }
+        return new CurrentUser(null, authentication.getName(), userRepository);
+    }
+}
@@ -0,0 +1,174 @@
+package com.podnest.api.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads EBML, the binary syntax under Matroska and WebM, from a file channel
+ * through one reused direct buffer. Callers decode element headers and the
+ * few values they need and skip everything else by moving the position, so
+ * scanning a file costs one sequential read and no per-element allocation.
+ */
+final class EbmlReader {
+
+    // All-ones size: the element runs until something that cannot be its child appears
+    static final long UNKNOWN_SIZE = -1;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final long length;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long bufferStart;
+    private long position;
+
+    EbmlReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.length = channel.size();
+        buffer.limit(0);
+    }
+
+    long length() {
+        return length;
+    }
+
+    long position() {
+        return position;
+    }
+
+    void seek(long position) {
+        this.position = position;
+    }
+
+    // Element id with its length marker kept, the way the spec writes ids; -1 at end of file
+    long readId() throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+        require(1);
+        int first = peek(0);
+        int width = Integer.numberOfLeadingZeros(first) - 23;
+        if (first == 0 || width > 4) {
+            throw new IllegalArgumentException("Invalid EBML id at offset " + position);
+        }
+        require(width);
+        long id = 0;
+        for (int i = 0; i < width; i++) {
+            id = (id << 8) | peek(i);
+        }
+        position += width;
+        return id;
+    }
+
+    long readSize() throws IOException {
+        require(1);
+        int first = peek(0);
+        if (first == 0) {
+            throw new IllegalArgumentException("Invalid EBML size at offset " + position);
+        }
+        int width = Integer.numberOfLeadingZeros(first) - 23;
+        require(width);
+        int mask = 0xFF >> width;
+        long value = first & mask;
+        boolean allOnes = value == mask;
+        for (int i = 1; i < width; i++) {
+            int b = peek(i);
+            value = (value << 8) | b;
+            allOnes &= b == 0xFF;
+        }
+        position += width;
+        return allOnes ? UNKNOWN_SIZE : value;
+    }
+
+    // Block headers use the same variable-length form for the track number
+    long readVint() throws IOException {
+        long value = readSize();
+        if (value == UNKNOWN_SIZE) {
+            throw new IllegalArgumentException("Invalid EBML number at offset " + position);
+        }
+        return value;
+    }
+
+    long readUnsigned(int width) throws IOException {
+        if (width > 8) {
+            throw new IllegalArgumentException("Integer of " + width + " bytes at offset " + position);
+        }
+        require(width);
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 8) | peek(i);
+        }
+        position += width;
+        return value;
+    }
+
+    double readFloat(int width) throws IOException {
+        return switch (width) {
+            case 0 -> 0;
+            case 4 -> Float.intBitsToFloat((int) readUnsigned(4));
+            case 8 -> Double.longBitsToDouble(readUnsigned(8));
+            default -> throw new IllegalArgumentException("Float of " + width + " bytes at offset " + position);
+        };
+    }
+
+    String readString(int width) throws IOException {
+        require(width);
+        byte[] bytes = new byte[width];
+        for (int i = 0; i < width; i++) {
+            bytes[i] = (byte) peek(i);
+        }
+        position += width;
+        int end = width;
+        while (end > 0 && bytes[end - 1] == 0) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.US_ASCII);
+    }
+
+    // Payloads larger than the window are read straight from the channel
+    void read(byte[] destination, int length) throws IOException {
+        if (length <= BUFFER_BYTES) {
+            require(length);
+            buffer.get((int) (position - bufferStart), destination, 0, length);
+        } else {
+            if (position + length > this.length) {
+                throw new EOFException("Truncated at offset " + position);
+            }
+            ByteBuffer target = ByteBuffer.wrap(destination, 0, length);
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    throw new EOFException("Truncated at offset " + position);
+                }
+            }
+        }
+        position += length;
+    }
+
+    private int peek(int offset) {
+        return buffer.get((int) (position - bufferStart) + offset) & 0xFF;
+    }
+
+    // Makes the next n bytes available, refilling the window from the current position if needed
+    private void require(int n) throws IOException {
+        if (position >= bufferStart && position + n <= bufferStart + buffer.limit()) {
+            return;
+        }
+        if (position + n > length) {
+            throw new EOFException("Truncated at offset " + position);
+        }
+        buffer.clear();
+        bufferStart = position;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, bufferStart + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.limit() < n) {
+            throw new EOFException("Truncated at offset " + position);
+        }
+    }
+}
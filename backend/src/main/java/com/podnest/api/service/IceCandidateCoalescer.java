@@ -0,0 +1,155 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+/**
+ * Buffers trickle ICE candidates per (sender, target) pair and hands them on
+ * as one batch. A batch is flushed when no candidate arrived for the window,
+ * when it reaches the size limit, or when its oldest candidate hits the
+ * latency cap, whichever comes first.
+ */
+@Service
+public class IceCandidateCoalescer {
+
+    private record PairKey(String studioId, String senderId, String targetId) {
+    }
+
+    private static final class Batch {
+        private final Instant deadline;
+        private final Consumer<List<byte[]>> sink;
+        private final List<byte[]> candidates = new ArrayList<>();
+        // Set inside compute() but cancelled from whichever thread flushes the batch
+        private volatile ScheduledFuture<?> flushTask;
+
+        Batch(Instant deadline, Consumer<List<byte[]>> sink) {
+            this.deadline = deadline;
+            this.sink = sink;
+        }
+    }
+
+    private final ConcurrentHashMap<PairKey, Batch> pending = new ConcurrentHashMap<>();
+    private final TaskScheduler taskScheduler;
+    private final StudioDispatchLanes dispatchLanes;
+    private final boolean enabled;
+    private final Duration window;
+    private final Duration maxDelay;
+    private final int maxBatchSize;
+    private final Counter candidatesIn;
+    private final Counter batchesOut;
+
+    public IceCandidateCoalescer(@Qualifier("taskScheduler") TaskScheduler taskScheduler,
+            StudioDispatchLanes dispatchLanes, MeterRegistry meterRegistry,
+            @Value("${application.signaling.ice-coalescing.enabled:false}") boolean enabled,
+            @Value("${application.signaling.ice-coalescing.window-ms:10}") long windowMillis,
+            @Value("${application.signaling.ice-coalescing.max-delay-ms:50}") long maxDelayMillis,
+            @Value("${application.signaling.ice-coalescing.max-batch:16}") int maxBatchSize) {
+        this.taskScheduler = taskScheduler;
+        this.dispatchLanes = dispatchLanes;
+        this.enabled = enabled;
+        this.window = Duration.ofMillis(windowMillis);
+        this.maxDelay = Duration.ofMillis(maxDelayMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.candidatesIn = Counter.builder("podnest.signaling.ice.candidates")
+                .register(meterRegistry);
+        this.batchesOut = Counter.builder("podnest.signaling.ice.batches")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void offer(String studioId, String senderId, String targetId, byte[] candidate,
+            Consumer<List<byte[]>> sink) {
+        candidatesIn.increment();
+        PairKey key = new PairKey(studioId, senderId, targetId);
+        Instant now = Instant.now();
+        Batch[] full = new Batch[1];
+
+        pending.compute(key, (k, batch) -> {
+            if (batch == null) {
+                batch = new Batch(now.plus(maxDelay), sink);
+            }
+            batch.candidates.add(candidate);
+            if (batch.candidates.size() >= maxBatchSize) {
+                full[0] = batch;
+                return null;
+            }
+            // Slide the window on every arrival, but never past the batch's deadline
+            if (batch.flushTask != null) {
+                batch.flushTask.cancel(false);
+            }
+            Instant flushAt = now.plus(window);
+            Batch scheduled = batch;
+            // The timer only hands off; the flush itself runs on the studio's lane behind other signals
+            batch.flushTask = taskScheduler.schedule(() -> {
+                if (!dispatchLanes.executeDroppable(k.studioId(), () -> flush(k, scheduled))) {
+                    // Nothing else would flush a pair whose gathering has ended, so the cap wins over lane order
+                    flush(k, scheduled);
+                }
+            }, flushAt.isBefore(batch.deadline) ? flushAt : batch.deadline);
+            return batch;
+        });
+
+        if (full[0] != null) {
+            emit(full[0]);
+        }
+    }
+
+    // Called before any other signal for the pair so candidates never overtake it
+    public void flushPair(String studioId, String senderId, String targetId) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        PairKey key = new PairKey(studioId, senderId, targetId);
+        Batch batch = pending.remove(key);
+        if (batch != null) {
+            emit(batch);
+        }
+    }
+
+    // Nobody is left to deliver to or from; pending candidates are useless
+    public void discardPeer(String peerId) {
+        pending.entrySet().removeIf(entry -> {
+            PairKey key = entry.getKey();
+            if (key.senderId().equals(peerId) || key.targetId().equals(peerId)) {
+                cancel(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void flush(PairKey key, Batch batch) {
+        // Skip if the batch was already flushed (size limit or flushPair) in the meantime
+        if (pending.remove(key, batch)) {
+            emit(batch);
+        }
+    }
+
+    private void emit(Batch batch) {
+        cancel(batch);
+        batchesOut.increment();
+        batch.sink.accept(batch.candidates);
+    }
+
+    private static void cancel(Batch batch) {
+        ScheduledFuture<?> flushTask = batch.flushTask;
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.podnest.api.service;
+
+public class InvalidSignalException extends RuntimeException {
+
+    public InvalidSignalException(String message) {
+        super(message);
+    }
+}
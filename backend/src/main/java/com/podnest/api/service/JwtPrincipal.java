@@ -0,0 +1,18 @@
+package com.podnest.api.service;
+
+import java.security.Principal;
+import java.time.Instant;
+
+// Immutable view of a token whose signature and expiry have already been checked
+public record JwtPrincipal(String tokenId, String username, Long userId, long credentialVersion,
+        Instant issuedAt, Instant expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,227 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live ingest: while a session is being recorded the browser appends each
+ * MediaRecorder timeslice to a per-recording spool file and gets the new
+ * byte offset back. Stopping then only has to flush and rename the spool,
+ * and a crashed tab still leaves everything up to its last acknowledged
+ * offset, which the sweep below finalizes once the spool goes quiet.
+ *
+ * The spool lives on this node's disk, so a recording must keep talking to
+ * the node it started on.
+ */
+@Slf4j
+@Service
+public class LiveRecordingIngestService {
+
+    public static final String STATUS_RECORDING = "recording";
+
+    private static final class Spool {
+        final Long ownerId;
+        final String contentType;
+        long size;
+
+        Spool(Long ownerId, String contentType, long size) {
+            this.ownerId = ownerId;
+            this.contentType = contentType;
+            this.size = size;
+        }
+    }
+
+    private final RecordingRepository recordingRepository;
+    private final RecordingService recordingService;
+    private final RecordingStorage storage;
+    private final CurrentUserService currentUserService;
+    private final long finalizeAfterMillis;
+    private final ConcurrentHashMap<Long, Spool> spools = new ConcurrentHashMap<>();
+
+    public LiveRecordingIngestService(RecordingRepository recordingRepository,
+            RecordingService recordingService,
+            RecordingStorage storage,
+            CurrentUserService currentUserService,
+            @Value("${application.storage.live.finalize-after-ms:600000}") long finalizeAfterMillis) {
+        this.recordingRepository = recordingRepository;
+        this.recordingService = recordingService;
+        this.storage = storage;
+        this.currentUserService = currentUserService;
+        this.finalizeAfterMillis = finalizeAfterMillis;
+    }
+
+    // Opens (or reopens, after a reconnect) the spool and returns the offset to continue from
+    public long start(Long recordingId, String contentType) {
+        Recording recording = loadOwned(recordingId);
+        Path path = storage.liveSpoolPath(recordingId);
+        try {
+            if (!Files.exists(path)) {
+                Files.createFile(path);
+            }
+            long size = Files.size(path);
+            spools.put(recordingId, new Spool(currentUserService.get().getId(),
+                    contentType != null ? contentType : "video/webm", size));
+            if (!STATUS_RECORDING.equals(recording.getStatus())) {
+                recording.setStatus(STATUS_RECORDING);
+                recordingRepository.save(recording);
+            }
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open live spool for recording " + recordingId, e);
+        }
+    }
+
+    public long offset(Long recordingId) {
+        Spool spool = spool(recordingId);
+        synchronized (spool) {
+            return spool.size;
+        }
+    }
+
+    /**
+     * Writes {@code body} at {@code offset} and returns the new end of the
+     * spool. Bytes the spool already holds are acknowledged without reading
+     * them again; an offset past the end is a gap and is refused.
+     */
+    public long append(Long recordingId, long offset, long contentLength, InputStream body) {
+        if (contentLength < 0) {
+            throw new RecordingMediaException(HttpStatus.LENGTH_REQUIRED, "Content-Length is required");
+        }
+        Spool spool = spool(recordingId);
+        synchronized (spool) {
+            if (offset > spool.size) {
+                throw new RecordingMediaException(HttpStatus.CONFLICT, "Expected offset " + spool.size);
+            }
+            if (offset + contentLength <= spool.size) {
+                return spool.size;
+            }
+            try {
+                long written = storage.receive(storage.liveSpoolPath(recordingId), offset, contentLength, body);
+                // A cut-off request still moves the offset; the client resends from the ack
+                spool.size = Math.max(spool.size, offset + written);
+            } catch (IOException e) {
+                // Nothing is acknowledged, so the client resends the same range
+                throw new RecordingMediaException(HttpStatus.REQUEST_TIMEOUT, "Chunk was interrupted at offset " + offset);
+            }
+            return spool.size;
+        }
+    }
+
+    // The client's final size must match what was acknowledged, so nothing is silently cut off
+    public Recording finish(Long recordingId, long size) {
+        if (!spools.containsKey(recordingId)) {
+            Recording recording = loadOwned(recordingId);
+            // A retried finish after the first one went through
+            if (!STATUS_RECORDING.equals(recording.getStatus()) && Long.valueOf(size).equals(recording.getFileSize())) {
+                return recording;
+            }
+        }
+        Spool spool = spool(recordingId);
+        synchronized (spool) {
+            if (size != spool.size) {
+                throw new RecordingMediaException(HttpStatus.CONFLICT, "Expected offset " + spool.size);
+            }
+            spools.remove(recordingId);
+            return finalizeSpool(recordingRepository.findById(recordingId).orElseThrow(), spool.contentType);
+        }
+    }
+
+    // Recordings whose browser went away: keep what arrived once the spool has been quiet long enough.
+    // Only spools this node holds are looked at; another node's recording has no spool here.
+    @Scheduled(fixedDelayString = "${application.storage.live.sweep-interval-ms:60000}")
+    public void finalizeAbandoned() {
+        Set<Long> owned = new HashSet<>(spools.keySet());
+        try {
+            owned.addAll(storage.liveSpoolIds());
+        } catch (IOException e) {
+            log.warn("Failed to list live spools: {}", e.getMessage());
+        }
+        if (owned.isEmpty()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - finalizeAfterMillis;
+        for (Recording recording : recordingRepository.findAllById(owned)) {
+            if (!STATUS_RECORDING.equals(recording.getStatus())) {
+                continue;
+            }
+            Path path = storage.liveSpoolPath(recording.getId());
+            try {
+                if (Files.exists(path) && Files.getLastModifiedTime(path).toMillis() >= cutoff) {
+                    continue;
+                }
+                Spool spool = spools.remove(recording.getId());
+                if (spool != null) {
+                    synchronized (spool) {
+                        finalizeOrFail(recording, spool.contentType);
+                    }
+                } else {
+                    finalizeOrFail(recording, "video/webm");
+                }
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Failed to finalize live recording {}: {}", recording.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void finalizeOrFail(Recording recording, String contentType) throws IOException {
+        Path path = storage.liveSpoolPath(recording.getId());
+        if (Files.exists(path) && Files.size(path) > 0) {
+            finalizeSpool(recording, contentType);
+            return;
+        }
+        Files.deleteIfExists(path);
+        recording.setStatus("failed");
+        recordingRepository.save(recording);
+    }
+
+    private Recording finalizeSpool(Recording recording, String contentType) {
+        Path path = storage.liveSpoolPath(recording.getId());
+        try {
+            long size = Files.size(path);
+            storage.promote(path, recording.getId());
+            return recordingService.mediaStored(recording, size, contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store live recording " + recording.getId(), e);
+        }
+    }
+
+    // The in-memory entry is rebuilt from disk after a restart, as long as the spool is still there
+    private Spool spool(Long recordingId) {
+        Spool spool = spools.get(recordingId);
+        if (spool == null) {
+            Recording recording = loadOwned(recordingId);
+            if (!STATUS_RECORDING.equals(recording.getStatus()) || !Files.exists(storage.liveSpoolPath(recordingId))) {
+                throw new RecordingMediaException(HttpStatus.CONFLICT, "Recording is not being recorded");
+            }
+            start(recordingId, recording.getContentType());
+            return spools.get(recordingId);
+        }
+        if (!spool.ownerId.equals(currentUserService.get().getId())) {
+            throw new RecordingMediaException(HttpStatus.FORBIDDEN, "Not authorized to record to this recording");
+        }
+        return spool;
+    }
+
+    private Recording loadOwned(Long recordingId) {
+        Recording recording = recordingRepository.findById(recordingId)
+                .orElseThrow(() -> new RecordingMediaException(HttpStatus.NOT_FOUND, "Recording not found"));
+        if (!recording.getStudio().getOwner().getId().equals(currentUserService.get().getId())) {
+            throw new RecordingMediaException(HttpStatus.FORBIDDEN, "Not authorized to record to this recording");
+        }
+        return recording;
+    }
+}
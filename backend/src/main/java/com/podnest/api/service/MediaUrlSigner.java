@@ -0,0 +1,71 @@
+package com.podnest.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Short-lived signed media URLs. Video elements and download links cannot
+ * send our bearer token, so the library hands out URLs whose query string
+ * carries an expiry and an HMAC over the recording id, the resource
+ * ("media", "peaks") and that expiry, so a URL opens only what it was
+ * issued for.
+ */
+@Service
+public class MediaUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String PLACEHOLDER_KEY = "change-me-media-signing-key";
+    private static final int MIN_KEY_BYTES = 32;
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+
+    public MediaUrlSigner(
+            @Value("${application.storage.media.signing-key}") String signingKey,
+            @Value("${application.storage.media.url-ttl-seconds:21600}") long ttlSeconds) {
+        if (signingKey == null || PLACEHOLDER_KEY.equals(signingKey)
+                || signingKey.getBytes(StandardCharsets.UTF_8).length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("application.storage.media.signing-key must be set to at least "
+                    + MIN_KEY_BYTES + " bytes");
+        }
+        this.key = new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String sign(Long recordingId, String path) {
+        // Rounded up to a sixth of the TTL, so repeated listings hand out the same
+        // URL for a while and the browser cache can actually hit
+        long step = Math.max(60, ttlSeconds / 6);
+        long expires = ((Instant.now().getEpochSecond() + ttlSeconds) / step + 1) * step;
+        return "/api/recordings/" + recordingId + "/" + path + "?expires=" + expires
+                + "&sig=" + signature(recordingId, path, expires);
+    }
+
+    public boolean isValid(Long recordingId, String path, Long expires, String signature) {
+        if (expires == null || signature == null || expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                signature(recordingId, path, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String signature(Long recordingId, String path, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal((recordingId + ":" + path + ":" + expires).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+}
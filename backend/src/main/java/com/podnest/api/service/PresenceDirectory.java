@@ -0,0 +1,260 @@
+package com.podnest.api.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podnest.api.service.StudioPresenceRegistry.Participant;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What the other nodes behind the broker relay report about their studio
+ * participants. Each node publishes the members and waiting guests it holds
+ * for a studio whenever they change, and all of them again on every sync
+ * interval; the broker fans that out to every node's system session. A node
+ * that stops reporting is forgotten after three intervals.
+ * <p>
+ * With the simple broker there is only one node and this directory stays
+ * empty. The view is eventually consistent: two nodes admitting guests at the
+ * same moment can briefly overshoot a room's capacity.
+ */
+@Slf4j
+@Service
+public class PresenceDirectory {
+
+    public static final String TOPIC = "/topic/podnest.presence";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RemotePeer(String id, String session, String name, boolean host, boolean admitted) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Update(String kind, String node, String studioId, List<RemotePeer> peers, List<String> peerIds) {
+    }
+
+    // Told about changes that arrived from other nodes; called on the relay's I/O thread
+    public interface Listener {
+        void remoteRoomChanged(String studioId);
+
+        void remoteAdmit(String studioId, Collection<String> peerIds);
+    }
+
+    private record NodeRoom(List<RemotePeer> peers, long receivedAt) {
+    }
+
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StudioPresenceRegistry presenceRegistry;
+    private final long staleAfterMillis;
+    // studio id -> node id -> that node's part of the room
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, NodeRoom>> rooms = new ConcurrentHashMap<>();
+    private volatile Listener listener;
+
+    public PresenceDirectory(SimpMessagingTemplate messagingTemplate,
+            StudioPresenceRegistry presenceRegistry,
+            @Qualifier("stompBrokerRelayMessageHandler") ObjectProvider<AbstractBrokerMessageHandler> relayHandler,
+            @Value("${application.signaling.broker.mode:simple}") String brokerMode,
+            @Value("${application.signaling.presence-sync.interval-ms:5000}") long syncIntervalMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.presenceRegistry = presenceRegistry;
+        this.staleAfterMillis = syncIntervalMillis * 3;
+        this.enabled = "relay".equalsIgnoreCase(brokerMode)
+                && relayHandler.getIfAvailable() instanceof StompBrokerRelayMessageHandler relay
+                && subscribe(relay);
+    }
+
+    // Must run before the relay starts; it subscribes when its system session connects
+    private boolean subscribe(StompBrokerRelayMessageHandler relay) {
+        Map<String, MessageHandler> subscriptions = new HashMap<>();
+        if (relay.getSystemSubscriptions() != null) {
+            subscriptions.putAll(relay.getSystemSubscriptions());
+        }
+        subscriptions.put(TOPIC, this::receive);
+        relay.setSystemSubscriptions(subscriptions);
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Sends this node's current part of the studio; call after every local membership change
+    public void publish(String studioId) {
+        if (!enabled) {
+            return;
+        }
+        List<RemotePeer> peers = new ArrayList<>();
+        presenceRegistry.members(studioId).forEach(participant -> peers.add(describe(participant)));
+        presenceRegistry.waiting(studioId).forEach(participant -> peers.add(describe(participant)));
+        send(new Update("state", nodeId, studioId, peers, null));
+    }
+
+    // Hands a host's admit to the nodes holding the waiting guests; null means everyone who fits
+    public void requestAdmit(String studioId, Collection<String> peerIds) {
+        if (enabled) {
+            send(new Update("admit", nodeId, studioId, null, peerIds != null ? List.copyOf(peerIds) : null));
+        }
+    }
+
+    public RemotePeer peer(String studioId, String peerId) {
+        Map<String, NodeRoom> nodes = rooms.get(studioId);
+        if (nodes == null || peerId == null) {
+            return null;
+        }
+        for (NodeRoom room : nodes.values()) {
+            for (RemotePeer peer : room.peers()) {
+                if (peer.id().equals(peerId)) {
+                    return peer;
+                }
+            }
+        }
+        return null;
+    }
+
+    public List<RemotePeer> members(String studioId) {
+        return peers(studioId, true);
+    }
+
+    public List<RemotePeer> waiting(String studioId) {
+        return peers(studioId, false);
+    }
+
+    // Re-announces every local room and forgets nodes that went quiet
+    @Scheduled(fixedDelayString = "${application.signaling.presence-sync.interval-ms:5000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        presenceRegistry.studioIds().forEach(this::publish);
+        long cutoff = System.currentTimeMillis() - staleAfterMillis;
+        rooms.forEach((studioId, nodes) -> {
+            if (nodes.values().removeIf(room -> room.receivedAt() < cutoff)) {
+                notifyRoomChanged(studioId);
+            }
+            rooms.remove(studioId, Map.of());
+        });
+    }
+
+    // Lets the other nodes drop this one right away instead of waiting for it to go stale
+    @PreDestroy
+    void leaveCluster() {
+        if (enabled) {
+            try {
+                send(new Update("bye", nodeId, null, null, null));
+            } catch (RuntimeException e) {
+                log.debug("Could not announce shutdown to the presence topic", e);
+            }
+        }
+    }
+
+    void receive(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] body)) {
+            return;
+        }
+        Update update;
+        try {
+            update = JSON.readValue(body, Update.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable presence update: {}", e.getMessage());
+            return;
+        }
+        if (update.node() == null || nodeId.equals(update.node())) {
+            return;
+        }
+        switch (Objects.requireNonNullElse(update.kind(), "")) {
+            case "state" -> {
+                if (update.studioId() == null) {
+                    return;
+                }
+                List<RemotePeer> peers = update.peers() != null ? List.copyOf(update.peers()) : List.of();
+                NodeRoom previous = rooms.computeIfAbsent(update.studioId(), id -> new ConcurrentHashMap<>())
+                        .put(update.node(), new NodeRoom(peers, System.currentTimeMillis()));
+                if (previous == null || !previous.peers().equals(peers)) {
+                    notifyRoomChanged(update.studioId());
+                }
+            }
+            case "admit" -> {
+                Listener current = listener;
+                if (current != null && update.studioId() != null) {
+                    current.remoteAdmit(update.studioId(), update.peerIds());
+                }
+            }
+            case "bye" -> rooms.forEach((studioId, nodes) -> {
+                if (nodes.remove(update.node()) != null) {
+                    notifyRoomChanged(studioId);
+                }
+            });
+            default -> log.debug("Ignoring presence update of kind {}", update.kind());
+        }
+    }
+
+    private List<RemotePeer> peers(String studioId, boolean admitted) {
+        Map<String, NodeRoom> nodes = rooms.get(studioId);
+        if (nodes == null) {
+            return List.of();
+        }
+        List<RemotePeer> peers = new ArrayList<>();
+        nodes.values().forEach(room -> room.peers().stream()
+                .filter(peer -> peer.admitted() == admitted)
+                .forEach(peers::add));
+        return peers;
+    }
+
+    private void notifyRoomChanged(String studioId) {
+        Listener current = listener;
+        if (current != null) {
+            current.remoteRoomChanged(studioId);
+        }
+    }
+
+    private void send(Update update) {
+        byte[] body;
+        try {
+            body = JSON.writeValueAsBytes(update);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode presence update", e);
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(TOPIC, MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+
+    private static RemotePeer describe(Participant participant) {
+        return new RemotePeer(participant.getPeerId(), participant.getSessionId(), participant.getName(),
+                participant.isHost(), participant.isAdmitted());
+    }
+}
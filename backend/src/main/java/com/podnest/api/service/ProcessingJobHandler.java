@@ -0,0 +1,23 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+
+import java.nio.file.Path;
+
+/**
+ * One kind of post-upload work. Handlers run on the processing pool, never on
+ * a request thread; throwing makes the job retry with backoff, except for
+ * {@link UnrecoverableJobException}, which fails it at once.
+ */
+public interface ProcessingJobHandler {
+
+    String type();
+
+    // Whether every newly stored recording gets a job of this type
+    default boolean runsOnUpload() {
+        return true;
+    }
+
+    void process(ProcessingJob job, Recording recording, Path media) throws Exception;
+}
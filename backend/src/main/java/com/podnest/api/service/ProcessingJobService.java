@@ -0,0 +1,214 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.ProcessingJobRepository;
+import com.podnest.api.repository.RecordingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs post-upload work from the processing_jobs table. Every node polls for
+ * due jobs of the types it still has room for, claims each one with a
+ * conditional update (so two nodes never run the same job), and keeps the
+ * lease alive while the handler runs. Failures retry with exponential
+ * backoff; when a recording has no unfinished jobs left it becomes ready.
+ */
+@Slf4j
+@Service
+public class ProcessingJobService {
+
+    private static final Set<String> UNFINISHED = Set.of("PENDING", "RUNNING");
+
+    private final ProcessingJobRepository jobRepository;
+    private final RecordingRepository recordingRepository;
+    private final RecordingStorage storage;
+    private final Map<String, ProcessingJobHandler> handlers = new LinkedHashMap<>();
+    private final Map<String, Semaphore> permits = new LinkedHashMap<>();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor workers;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final Counter completed;
+    private final Counter retried;
+    private final Counter failed;
+
+    public ProcessingJobService(ProcessingJobRepository jobRepository,
+            RecordingRepository recordingRepository,
+            RecordingStorage storage,
+            List<ProcessingJobHandler> handlerBeans,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${application.processing.workers:0}") int workerCount,
+            @Value("${application.processing.default-concurrency:2}") int defaultConcurrency,
+            @Value("${application.processing.lease-seconds:120}") long leaseSeconds,
+            @Value("${application.processing.max-attempts:5}") int maxAttempts,
+            @Value("${application.processing.backoff-base-ms:5000}") long backoffBaseMillis,
+            @Value("${application.processing.backoff-max-ms:600000}") long backoffMaxMillis) {
+        this.jobRepository = jobRepository;
+        this.recordingRepository = recordingRepository;
+        this.storage = storage;
+        for (ProcessingJobHandler handler : handlerBeans) {
+            handlers.put(handler.type(), handler);
+            // application.processing.concurrency.<TYPE> caps how many of one type run at once on this node
+            int limit = environment.getProperty("application.processing.concurrency." + handler.type(),
+                    Integer.class, defaultConcurrency);
+            permits.put(handler.type(), new Semaphore(limit));
+        }
+        int threads = workerCount > 0 ? workerCount : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        // Permits already bound the work in flight, so the queue never grows past their sum
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("processing-"));
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.completed = Counter.builder("podnest.processing.jobs").tag("outcome", "done").register(meterRegistry);
+        this.retried = Counter.builder("podnest.processing.jobs").tag("outcome", "retry").register(meterRegistry);
+        this.failed = Counter.builder("podnest.processing.jobs").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("podnest.processing.jobs.running", running, Set::size).register(meterRegistry);
+        Gauge.builder("podnest.processing.jobs.pending", jobRepository, ProcessingJobRepository::countPending)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues every on-upload job type for a freshly stored recording. Returns
+     * false when there is nothing to do, so the caller can mark it ready.
+     */
+    public boolean enqueueOnUpload(Long recordingId) {
+        boolean any = false;
+        for (ProcessingJobHandler handler : handlers.values()) {
+            if (handler.runsOnUpload()) {
+                enqueue(recordingId, handler.type(), null);
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    public ProcessingJob enqueue(Long recordingId, String type, String payload) {
+        if (!handlers.containsKey(type)) {
+            throw new IllegalArgumentException("No handler for job type " + type);
+        }
+        return jobRepository.save(ProcessingJob.builder()
+                .recordingId(recordingId)
+                .jobType(type)
+                .payload(payload)
+                .maxAttempts(maxAttempts)
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${application.processing.poll-interval-ms:2000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        permits.forEach((type, semaphore) -> {
+            int free = semaphore.availablePermits();
+            if (free == 0) {
+                return;
+            }
+            for (Long id : jobRepository.findClaimable(type, now, PageRequest.of(0, free))) {
+                if (!semaphore.tryAcquire()) {
+                    return;
+                }
+                if (jobRepository.claim(id, nodeId, now, now.plus(lease)) == 1) {
+                    running.add(id);
+                    workers.execute(() -> run(id, semaphore));
+                } else {
+                    // Another node got there first
+                    semaphore.release();
+                }
+            }
+        });
+    }
+
+    // Long jobs (multi-GB scans) keep their claim by renewing well before it runs out
+    @Scheduled(fixedDelayString = "${application.processing.lease-renew-ms:30000}")
+    public void renewLeases() {
+        if (!running.isEmpty()) {
+            jobRepository.renewLeases(Set.copyOf(running), nodeId, LocalDateTime.now().plus(lease));
+        }
+    }
+
+    private void run(Long jobId, Semaphore semaphore) {
+        ProcessingJob job = null;
+        try {
+            job = jobRepository.findById(jobId).orElseThrow();
+            Recording recording = recordingRepository.findById(job.getRecordingId())
+                    .orElseThrow(() -> new IllegalStateException("Recording was deleted"));
+            Path media = storage.mediaPath(recording.getId());
+            handlers.get(job.getJobType()).process(job, recording, media);
+            jobRepository.markDone(jobId, nodeId, LocalDateTime.now());
+            completed.increment();
+        } catch (Exception e) {
+            fail(jobId, job, e);
+        } finally {
+            running.remove(jobId);
+            semaphore.release();
+        }
+        if (job != null) {
+            settleRecording(job.getRecordingId());
+        }
+    }
+
+    private void fail(Long jobId, ProcessingJob job, Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > 1000) {
+            error = error.substring(0, 1000);
+        }
+        int attempts = job != null ? job.getAttempts() : maxAttempts;
+        int limit = job != null ? job.getMaxAttempts() : maxAttempts;
+        if (attempts < limit && !(e instanceof UnrecoverableJobException)) {
+            long delay = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(20, attempts - 1));
+            delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+            jobRepository.markRetry(jobId, nodeId, error, LocalDateTime.now().plus(Duration.ofMillis(delay)));
+            retried.increment();
+            log.warn("Processing job {} failed (attempt {}), retrying in {} ms: {}", jobId, attempts, delay, error);
+        } else {
+            jobRepository.markFailed(jobId, nodeId, error, LocalDateTime.now());
+            failed.increment();
+            log.error("Processing job {} failed for good after {} attempt(s): {}", jobId, attempts, error);
+        }
+    }
+
+    // Runs after this job's own update has committed, so the last job to finish always sees the others done
+    private void settleRecording(Long recordingId) {
+        if (jobRepository.countByRecordingIdAndStatusIn(recordingId, UNFINISHED) > 0) {
+            return;
+        }
+        boolean anyFailed = jobRepository.countByRecordingIdAndStatusIn(recordingId, Set.of("FAILED")) > 0;
+        recordingRepository.transitionStatus(recordingId, "processing", anyFailed ? "failed" : "ready");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Unfinished jobs are picked up again once their leases lapse
+        workers.shutdownNow();
+    }
+}
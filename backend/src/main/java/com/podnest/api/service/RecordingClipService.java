@@ -0,0 +1,78 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Highlight clips: a clip is a new recording in the same studio, created
+ * right away in "processing" and filled in by a CLIP job that copies the
+ * source's clusters for the requested range (see {@link ClipJobHandler}).
+ * A range is checked against the source's index when it has one already,
+ * so a request that cannot produce any media fails here, not in the job.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordingClipService {
+
+    private final RecordingRepository recordingRepository;
+    private final RecordingService recordingService;
+    private final ProcessingJobService processingJobService;
+    private final CurrentUserService currentUserService;
+    private final RecordingStorage storage;
+
+    @Transactional
+    public Recording createClip(Long sourceId, long startMs, long endMs, String title) {
+        Recording source = recordingRepository.findById(sourceId)
+                .orElseThrow(() -> new RecordingMediaException(HttpStatus.NOT_FOUND, "Recording not found"));
+        if (!source.getStudio().getOwner().getId().equals(currentUserService.get().getId())) {
+            throw new RecordingMediaException(HttpStatus.FORBIDDEN, "Not authorized to clip this recording");
+        }
+        if (source.getFileSize() == null
+                || (source.getContentType() != null && !source.getContentType().contains("webm"))) {
+            throw new RecordingMediaException(HttpStatus.CONFLICT, "Only stored WebM recordings can be clipped");
+        }
+        if (startMs < 0 || endMs <= startMs) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST, "Clip must end after it starts");
+        }
+        if (source.getDurationMs() != null && startMs >= source.getDurationMs()) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST,
+                    "Clip starts after the recording ends (" + source.getDurationMs() + " ms)");
+        }
+        WebmIndex index = readIndex(sourceId);
+        if (index != null && ClipJobHandler.selectMillis(index, startMs, endMs).isEmpty()) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST,
+                    "No media between " + startMs + " and " + endMs + " ms");
+        }
+
+        Recording clip = recordingRepository.save(Recording.builder()
+                .title(title != null && !title.isBlank() ? title : source.getTitle() + " (clip)")
+                .studio(source.getStudio())
+                .duration(WebmIndexJobHandler.format(endMs - startMs))
+                .status("processing")
+                .contentType(source.getContentType() != null ? source.getContentType() : "video/webm")
+                .build());
+        clip.setFileUrl("/api/recordings/" + clip.getId() + "/media");
+        processingJobService.enqueue(clip.getId(), ClipJobHandler.TYPE,
+                ClipJobHandler.payload(sourceId, startMs, endMs));
+        return recordingService.withMediaUrl(recordingRepository.save(clip));
+    }
+
+    // Null until the source's INDEX job has run; the CLIP job waits for it then
+    private WebmIndex readIndex(Long recordingId) {
+        try {
+            return WebmIndex.read(storage.recordingDir(recordingId).resolve(WebmIndex.FILE_NAME));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read index of recording " + recordingId, e);
+        }
+    }
+}
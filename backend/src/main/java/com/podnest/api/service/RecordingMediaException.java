@@ -0,0 +1,18 @@
+package com.podnest.api.service;
+
+import org.springframework.http.HttpStatus;
+
+// A client-visible failure around recording media (upload, playback, processing) and the status it maps to
+public class RecordingMediaException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public RecordingMediaException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
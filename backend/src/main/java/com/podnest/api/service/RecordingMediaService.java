@@ -0,0 +1,249 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves stored recording files with single-range requests, ETag and
+ * If-Range, so players can seek and downloads can resume. The bytes never
+ * pass through the heap: on Tomcat the response is handed to the
+ * connector's sendfile support, which streams the file from its poller
+ * after the request thread has returned; elsewhere the file channel is
+ * transferred to the response stream.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordingMediaService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Inclusive on both ends, like the Range header
+    record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final RecordingRepository recordingRepository;
+    private final RecordingStorage storage;
+    private final MediaUrlSigner urlSigner;
+    private final CurrentUserService currentUserService;
+
+    // The owner may use their bearer token; everyone else needs a URL signed for this path
+    public Recording loadReadable(Long recordingId, String path, Long expires, String signature) {
+        Recording recording = recordingRepository.findById(recordingId)
+                .orElseThrow(() -> new RecordingMediaException(HttpStatus.NOT_FOUND, "Recording not found"));
+        if (!urlSigner.isValid(recordingId, path, expires, signature) && !isOwner(recording)) {
+            throw new RecordingMediaException(HttpStatus.FORBIDDEN, "Missing or expired media signature");
+        }
+        return recording;
+    }
+
+    public void serve(Long recordingId, Long expires, String signature, boolean download,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Recording recording = loadReadable(recordingId, "media", expires, signature);
+        Path file = storage.mediaPath(recordingId);
+        if (recording.getFileSize() == null || !Files.isRegularFile(file)) {
+            throw new RecordingMediaException(HttpStatus.NOT_FOUND, "Recording has no stored media yet");
+        }
+
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(recordingId) + "-" + Long.toHexString(size) + "-"
+                + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=3600");
+        response.setContentType(recording.getContentType() != null ? recording.getContentType() : "video/webm");
+        if (download) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"recording-" + recordingId + ".webm\"");
+        }
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range = new ByteRange(0, size - 1);
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && size > 0 && ifRangeMatches(request, etag, lastModified)) {
+            ByteRange requested = parseRange(rangeHeader, size);
+            if (requested == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (requested != null) {
+                range = requested;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + range.start() + "-" + range.end() + "/" + size);
+            }
+        }
+
+        response.setContentLengthLong(size == 0 ? 0 : range.length());
+        if ("HEAD".equals(request.getMethod()) || size == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * Writes one level of the waveform peaks: sample rate, samples per peak
+     * and peak count as big-endian ints, then a (min, max) signed byte pair
+     * per peak. The file never changes once written, so responses are
+     * cached for a day and revalidate with an ETag per level.
+     */
+    public void servePeaks(Long recordingId, int resolution, Long expires, String signature,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        loadReadable(recordingId, "peaks", expires, signature);
+        Path file = storage.recordingDir(recordingId).resolve(WaveformPeaks.FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            throw new RecordingMediaException(HttpStatus.NOT_FOUND, "Waveform is not ready yet");
+        }
+
+        WaveformPeaks peaks = WaveformPeaks.read(file);
+        WaveformPeaks.Level level = peaks.level(Math.max(1, resolution));
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(recordingId) + "-" + Long.toHexString(lastModified) + "-"
+                + Integer.toHexString(level.samplesPerPeak()) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=86400");
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        ByteBuffer body = ByteBuffer.allocate(12 + level.peaks().length);
+        body.putInt(peaks.sampleRate()).putInt(level.samplesPerPeak()).putInt(level.count()).put(level.peaks());
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLength(body.capacity());
+        response.getOutputStream().write(body.array());
+    }
+
+    /**
+     * Parses a single "bytes=" range. Returns null when the header should be
+     * ignored (bad syntax or several ranges, which we answer with the whole
+     * file) and {@link #UNSATISFIABLE} when it starts past the end.
+     */
+    static ByteRange parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            return start <= end ? new ByteRange(start, end) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    // A stale If-Range (the file changed since the client's partial copy) means "send it all"
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private boolean isOwner(Recording recording) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return false;
+        }
+        return recording.getStudio().getOwner().getId().equals(currentUserService.get().getId());
+    }
+}
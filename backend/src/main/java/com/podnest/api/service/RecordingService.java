@@ -2,12 +2,9 @@ package com.podnest.api.service;
 
 import com.podnest.api.model.Recording;
 import com.podnest.api.model.Studio;
-import com.podnest.api.model.User;
 import com.podnest.api.repository.RecordingRepository;
 import com.podnest.api.repository.StudioRepository;
-import com.podnest.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,14 +14,15 @@ import java.util.List;
 public class RecordingService {
     private final RecordingRepository recordingRepository;
     private final StudioRepository studioRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final MediaUrlSigner mediaUrlSigner;
+    private final ProcessingJobService processingJobService;
 
     public List<Recording> getUserRecordings() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
         // Return all recordings from all studios owned by the user
-        List<Studio> studios = studioRepository.findByOwner(user);
-        return recordingRepository.findByStudioInOrderByCreatedAtDesc(studios);
+        List<Recording> recordings = recordingRepository.findByOwnerIdOrderByCreatedAtDesc(currentUserService.get().getId());
+        recordings.forEach(this::withMediaUrl);
+        return recordings;
     }
 
     public Recording saveRecording(Long studioId, String title, String duration, String fileUrl) {
@@ -41,4 +39,28 @@ public class RecordingService {
 
         return recordingRepository.save(recording);
     }
+
+    // Called once a recording's media file is in place, whichever way it got there.
+    // It stays "processing" until its background jobs finish (see ProcessingJobService).
+    public Recording mediaStored(Recording recording, long size, String contentType) {
+        recording.setFileSize(size);
+        recording.setContentType(contentType);
+        recording.setFileUrl("/api/recordings/" + recording.getId() + "/media");
+        recording.setStatus("processing");
+        recording = recordingRepository.save(recording);
+        if (!processingJobService.enqueueOnUpload(recording.getId())) {
+            recording.setStatus("ready");
+            recording = recordingRepository.save(recording);
+        }
+        return withMediaUrl(recording);
+    }
+
+    // Video elements and download links cannot send a bearer token, so they get a signed URL
+    public Recording withMediaUrl(Recording recording) {
+        if (recording.getFileSize() != null) {
+            recording.setMediaUrl(mediaUrlSigner.sign(recording.getId(), "media"));
+            recording.setPeaksUrl(mediaUrlSigner.sign(recording.getId(), "peaks"));
+        }
+        return recording;
+    }
 }
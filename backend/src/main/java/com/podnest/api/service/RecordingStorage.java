@@ -0,0 +1,120 @@
+package com.podnest.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Where recording files live on local disk. Each recording gets its own
+ * directory holding the media file and anything derived from it; uploads in
+ * progress are spooled separately until they are complete.
+ */
+@Service
+public class RecordingStorage {
+
+    private static final String LIVE_PREFIX = "live-";
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path root;
+
+    public RecordingStorage(@Value("${application.storage.recordings-dir:./data/recordings}") String root) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+    }
+
+    public Path recordingDir(Long recordingId) {
+        return createDirectories(root.resolve(String.valueOf(recordingId)));
+    }
+
+    public Path mediaPath(Long recordingId) {
+        return recordingDir(recordingId).resolve("media");
+    }
+
+    public Path uploadPath(String uploadId) {
+        return createDirectories(root.resolve("uploads")).resolve(uploadId + ".part");
+    }
+
+    public Path liveSpoolPath(Long recordingId) {
+        return createDirectories(root.resolve("uploads")).resolve(LIVE_PREFIX + recordingId + PART_SUFFIX);
+    }
+
+    // Recordings with a live spool on this disk
+    public Set<Long> liveSpoolIds() throws IOException {
+        Set<Long> ids = new HashSet<>();
+        try (Stream<Path> files = Files.list(createDirectories(root.resolve("uploads")))) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(LIVE_PREFIX) && name.endsWith(PART_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Long.valueOf(name.substring(LIVE_PREFIX.length(),
+                                    name.length() - PART_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        return ids;
+    }
+
+    /**
+     * Creates {@code file} at its final size. The file is sparse until chunks
+     * land, and chunks can then be written at any offset in any order.
+     */
+    public Path allocate(Path file, long size) throws IOException {
+        try (RandomAccessFile spool = new RandomAccessFile(Files.createFile(file).toFile(), "rw")) {
+            spool.setLength(size);
+        }
+        return file;
+    }
+
+    /**
+     * Copies up to {@code length} bytes of {@code body} into {@code file} at
+     * {@code position} through the channel, without staging them on the heap.
+     * Returns how many bytes arrived before the stream ended. The file must
+     * already reach {@code position}; a transfer never writes past its end.
+     */
+    public long receive(Path file, long position, long length, InputStream body) throws IOException {
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                ReadableByteChannel source = Channels.newChannel(body)) {
+            while (written < length) {
+                long n = channel.transferFrom(source, position + written, length - written);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+        }
+        return written;
+    }
+
+    // Flushes a finished spool file and moves it to the recording's media path
+    public Path promote(Path spool, Long recordingId) throws IOException {
+        try (FileChannel channel = FileChannel.open(spool, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        return Files.move(spool, mediaPath(recordingId),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path createDirectories(Path dir) {
+        try {
+            return Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create storage directory " + dir, e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.model.RecordingUpload;
+import com.podnest.api.model.RecordingUploadChunk;
+import com.podnest.api.repository.RecordingRepository;
+import com.podnest.api.repository.RecordingUploadChunkRepository;
+import com.podnest.api.repository.RecordingUploadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: the client opens an upload for a recording, PUTs numbered
+ * chunks in any order (and again after a failure), asks which ones arrived,
+ * then completes it. Each chunk is copied from the request stream into its
+ * slot of a preallocated spool file with a positional FileChannel transfer, so no
+ * upload is ever held in memory.
+ */
+@Slf4j
+@Service
+public class RecordingUploadService {
+
+    private final RecordingUploadRepository uploadRepository;
+    private final RecordingUploadChunkRepository chunkRepository;
+    private final RecordingRepository recordingRepository;
+    private final RecordingStorage storage;
+    private final RecordingService recordingService;
+    private final CurrentUserService currentUserService;
+    private final int chunkSize;
+    private final long maxBytes;
+    private final long expireHours;
+
+    public RecordingUploadService(RecordingUploadRepository uploadRepository,
+            RecordingUploadChunkRepository chunkRepository,
+            RecordingRepository recordingRepository,
+            RecordingStorage storage,
+            RecordingService recordingService,
+            CurrentUserService currentUserService,
+            @Value("${application.storage.upload.chunk-size:8388608}") int chunkSize,
+            @Value("${application.storage.upload.max-bytes:21474836480}") long maxBytes,
+            @Value("${application.storage.upload.expire-hours:48}") long expireHours) {
+        this.uploadRepository = uploadRepository;
+        this.chunkRepository = chunkRepository;
+        this.recordingRepository = recordingRepository;
+        this.storage = storage;
+        this.recordingService = recordingService;
+        this.currentUserService = currentUserService;
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+        this.expireHours = expireHours;
+    }
+
+    @Transactional
+    public Map<String, Object> create(Long recordingId, long totalSize, String contentType) {
+        Recording recording = recordingRepository.findById(recordingId)
+                .orElseThrow(() -> new RecordingMediaException(HttpStatus.NOT_FOUND, "Recording not found"));
+        requireOwner(recording);
+        if (totalSize <= 0 || totalSize > maxBytes) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST, "Upload size must be between 1 and " + maxBytes);
+        }
+
+        RecordingUpload upload = RecordingUpload.builder()
+                .id(UUID.randomUUID().toString())
+                .recording(recording)
+                .totalSize(totalSize)
+                .chunkSize(chunkSize)
+                .chunkCount((int) ((totalSize + chunkSize - 1) / chunkSize))
+                .contentType(contentType != null ? contentType : "video/webm")
+                .build();
+        try {
+            storage.allocate(storage.uploadPath(upload.getId()), totalSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create upload spool file", e);
+        }
+        recording.setStatus("uploading");
+        recordingRepository.save(recording);
+        return describe(uploadRepository.save(upload), List.of());
+    }
+
+    public Map<String, Object> status(String uploadId) {
+        RecordingUpload upload = loadOwned(uploadId);
+        return describe(upload, chunkRepository.findReceivedIndexes(uploadId));
+    }
+
+    /**
+     * Streams one chunk from {@code body} to its offset in the spool file. The
+     * request must carry exactly the chunk's length; a short body leaves the
+     * chunk unrecorded so the client simply sends it again.
+     */
+    public void writeChunk(String uploadId, int index, long contentLength, InputStream body) {
+        RecordingUpload upload = loadOwned(uploadId);
+        if (!"OPEN".equals(upload.getStatus())) {
+            throw new RecordingMediaException(HttpStatus.CONFLICT, "Upload is " + upload.getStatus());
+        }
+        if (index < 0 || index >= upload.getChunkCount()) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST, "Chunk index out of range");
+        }
+        long offset = (long) index * upload.getChunkSize();
+        long expected = Math.min(upload.getChunkSize(), upload.getTotalSize() - offset);
+        if (contentLength < 0) {
+            throw new RecordingMediaException(HttpStatus.LENGTH_REQUIRED, "Content-Length is required");
+        }
+        if (contentLength != expected) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST,
+                    "Chunk " + index + " must be " + expected + " bytes");
+        }
+
+        long written;
+        try {
+            written = storage.receive(storage.uploadPath(uploadId), offset, expected, body);
+        } catch (IOException e) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST, "Chunk " + index + " was interrupted");
+        }
+        if (written < expected) {
+            throw new RecordingMediaException(HttpStatus.BAD_REQUEST, "Chunk " + index + " was incomplete");
+        }
+
+        if (!chunkRepository.existsByUploadIdAndChunkIndex(uploadId, index)) {
+            try {
+                chunkRepository.save(RecordingUploadChunk.builder()
+                        .uploadId(uploadId)
+                        .chunkIndex(index)
+                        .size((int) expected)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent retry of the same chunk recorded it first
+            }
+        }
+    }
+
+    // Moves the spool file into place once every chunk is present
+    @Transactional
+    public Recording complete(String uploadId) {
+        RecordingUpload upload = loadOwned(uploadId);
+        Recording recording = upload.getRecording();
+        if ("COMPLETE".equals(upload.getStatus())) {
+            return recording;
+        }
+        if (!"OPEN".equals(upload.getStatus())) {
+            throw new RecordingMediaException(HttpStatus.CONFLICT, "Upload is " + upload.getStatus());
+        }
+        List<Integer> received = chunkRepository.findReceivedIndexes(uploadId);
+        if (received.size() != upload.getChunkCount()) {
+            throw new RecordingMediaException(HttpStatus.CONFLICT,
+                    "Missing chunks: " + missing(upload.getChunkCount(), received));
+        }
+
+        try {
+            storage.promote(storage.uploadPath(uploadId), recording.getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store uploaded recording", e);
+        }
+
+        upload.setStatus("COMPLETE");
+        uploadRepository.save(upload);
+        chunkRepository.deleteByUploadId(uploadId);
+
+        return recordingService.mediaStored(recording, upload.getTotalSize(), upload.getContentType());
+    }
+
+    // Abandoned uploads give their disk space back
+    @Scheduled(fixedDelayString = "${application.storage.upload.sweep-interval-ms:3600000}")
+    @Transactional
+    public void expireAbandonedUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expireHours);
+        for (RecordingUpload upload : uploadRepository.findByStatusAndCreatedAtBefore("OPEN", cutoff)) {
+            try {
+                Files.deleteIfExists(storage.uploadPath(upload.getId()));
+            } catch (IOException e) {
+                log.warn("Failed to delete upload spool {}: {}", upload.getId(), e.getMessage());
+                continue;
+            }
+            chunkRepository.deleteByUploadId(upload.getId());
+            upload.setStatus("EXPIRED");
+            uploadRepository.save(upload);
+            Recording recording = upload.getRecording();
+            if ("uploading".equals(recording.getStatus())) {
+                recording.setStatus("failed");
+                recordingRepository.save(recording);
+            }
+        }
+    }
+
+    private RecordingUpload loadOwned(String uploadId) {
+        RecordingUpload upload = uploadRepository.findWithOwnerById(uploadId)
+                .orElseThrow(() -> new RecordingMediaException(HttpStatus.NOT_FOUND, "Upload not found"));
+        requireOwner(upload.getRecording());
+        return upload;
+    }
+
+    private void requireOwner(Recording recording) {
+        if (!recording.getStudio().getOwner().getId().equals(currentUserService.get().getId())) {
+            throw new RecordingMediaException(HttpStatus.FORBIDDEN, "Not authorized to upload to this recording");
+        }
+    }
+
+    private static Map<String, Object> describe(RecordingUpload upload, List<Integer> received) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("uploadId", upload.getId());
+        body.put("recordingId", upload.getRecording().getId());
+        body.put("status", upload.getStatus());
+        body.put("totalSize", upload.getTotalSize());
+        body.put("chunkSize", upload.getChunkSize());
+        body.put("chunkCount", upload.getChunkCount());
+        body.put("receivedChunks", received);
+        return body;
+    }
+
+    private static List<Integer> missing(int chunkCount, List<Integer> received) {
+        Set<Integer> present = new HashSet<>(received);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < chunkCount && missing.size() < 20; i++) {
+            if (!present.contains(i)) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,89 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.RefreshToken;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.RefreshTokenRepository;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+@Service
+public class RefreshTokenService {
+
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${application.security.jwt.refresh-token.expiration:2592000000}")
+    private long refreshExpiration;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    // Single use: the presented token is retired and a new one in the same family is returned
+    public Rotation rotate(String rawToken) {
+        RefreshToken token = find(rawToken);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (token.getRevokedAt() != null || refreshTokenRepository.revokeIfActive(token.getId(), now) == 0) {
+            // A retired token coming back means it leaked; end the whole login session
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+
+        return new Rotation(token.getUser(), issue(token.getUser(), token.getFamilyId()));
+    }
+
+    public void revoke(String rawToken) {
+        RefreshToken token = find(rawToken);
+        refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now());
+    }
+
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+    }
+
+    private String issue(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(DigestUtils.sha256Hex(rawToken))
+                .user(user)
+                .familyId(familyId)
+                .expiresAt(LocalDateTime.now().plusNanos(refreshExpiration * 1_000_000))
+                .build());
+        return rawToken;
+    }
+
+    private RefreshToken find(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new BadCredentialsException("Refresh token is required");
+        }
+        return refreshTokenRepository.findByTokenHash(DigestUtils.sha256Hex(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.podnest.api.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram over the last {@code slots * slotMillis} of samples, with
+ * power-of-two buckets (0, 1, 2-3, 4-7, ...). Recording is a handful of
+ * atomic adds and never blocks; percentiles are reported as the upper bound
+ * of the bucket they fall in, which is plenty for "is this call healthy".
+ *
+ * A slot is recycled by whichever writer first sees it belong to an older
+ * period. A sample racing that reset can be lost, so the numbers are
+ * approximate by design.
+ */
+public class RollingHistogram {
+
+    public record Summary(long count, long mean, long p50, long p95, long max) {
+        static final Summary EMPTY = new Summary(0, 0, 0, 0, 0);
+    }
+
+    private static final int BUCKETS = 24;
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    private static final class Slot {
+        final AtomicLong period = new AtomicLong(-1);
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 2);
+    }
+
+    private final Slot[] slots;
+    private final long slotMillis;
+
+    public RollingHistogram(int slots, long slotMillis) {
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.slotMillis = slotMillis;
+    }
+
+    public void record(long value, long nowMillis) {
+        long v = Math.max(0, value);
+        long period = nowMillis / slotMillis;
+        Slot slot = slots[(int) (period % slots.length)];
+        long seen = slot.period.get();
+        if (seen < period && slot.period.compareAndSet(seen, period)) {
+            for (int i = 0; i < slot.counts.length(); i++) {
+                slot.counts.set(i, 0);
+            }
+        }
+        slot.counts.incrementAndGet(bucket(v));
+        slot.counts.addAndGet(SUM, v);
+        slot.counts.accumulateAndGet(MAX, v, Math::max);
+    }
+
+    public Summary summary(long nowMillis) {
+        long oldest = nowMillis / slotMillis - slots.length + 1;
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (Slot slot : slots) {
+            if (slot.period.get() < oldest) {
+                continue;
+            }
+            for (int b = 0; b < BUCKETS; b++) {
+                long n = slot.counts.get(b);
+                buckets[b] += n;
+                count += n;
+            }
+            sum += slot.counts.get(SUM);
+            max = Math.max(max, slot.counts.get(MAX));
+        }
+        if (count == 0) {
+            return Summary.EMPTY;
+        }
+        return new Summary(count, sum / count,
+                Math.min(max, percentile(buckets, count, 0.50)),
+                Math.min(max, percentile(buckets, count, 0.95)),
+                max);
+    }
+
+    // True once every slot has aged out of the window
+    public boolean isIdle(long nowMillis) {
+        long oldest = nowMillis / slotMillis - slots.length + 1;
+        for (Slot slot : slots) {
+            if (slot.period.get() >= oldest) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int bucket(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long percentile(long[] buckets, long count, double quantile) {
+        long rank = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets[b];
+            if (seen >= rank) {
+                return b == 0 ? 0 : (1L << b) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,36 @@
+package com.podnest.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// The iceServers list handed to RTCPeerConnection: our own STUN responder first when it runs
+@Service
+public class RtcConfigService {
+
+    private final List<Map<String, Object>> iceServers;
+
+    public RtcConfigService(
+            @Value("${application.rtc.stun.enabled:false}") boolean stunEnabled,
+            @Value("${application.rtc.stun.public-host:localhost}") String stunPublicHost,
+            @Value("${application.rtc.stun.port:3478}") int stunPort,
+            @Value("${application.rtc.ice-servers:stun:stun.l.google.com:19302}") String extraIceServers) {
+        List<Map<String, Object>> servers = new ArrayList<>();
+        if (stunEnabled) {
+            servers.add(Map.of("urls", "stun:" + stunPublicHost + ":" + stunPort));
+        }
+        Arrays.stream(extraIceServers.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .forEach(url -> servers.add(Map.of("urls", url)));
+        this.iceServers = List.copyOf(servers);
+    }
+
+    public Map<String, Object> getConfig() {
+        return Map.of("iceServers", iceServers);
+    }
+}
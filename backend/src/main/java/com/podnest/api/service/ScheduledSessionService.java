@@ -4,7 +4,6 @@ import com.podnest.api.dto.ScheduleSessionRequest;
 import com.podnest.api.model.*;
 import com.podnest.api.repository.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,14 +16,12 @@ import java.util.stream.Collectors;
 public class ScheduledSessionService {
     private final ScheduledSessionRepository sessionRepository;
     private final StudioRepository studioRepository;
-    private final UserRepository userRepository;
     private final EmailService emailService;
+    private final CurrentUserService currentUserService;
+    private final StudioMembershipCache membershipCache;
 
     public List<ScheduledSession> getUserScheduledSessions() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
-        List<Studio> studios = studioRepository.findByOwner(user);
-        return sessionRepository.findByStudioInOrderByStartTimeAsc(studios);
+        return sessionRepository.findByOwnerIdOrderByStartTimeAsc(currentUserService.get().getId());
     }
 
     @Transactional
@@ -70,6 +67,8 @@ public class ScheduledSessionService {
         }
 
         ScheduledSession savedSession = sessionRepository.save(session);
+        // New guests may join the studio's signaling as soon as this commits
+        membershipCache.invalidate(studio.getId());
         System.out.println("Session saved with ID: " + savedSession.getId());
 
         // Send invitations to guests
@@ -91,6 +90,8 @@ public class ScheduledSessionService {
 
     @Transactional
     public void deleteSession(Long id) {
+        sessionRepository.findById(id)
+                .ifPresent(session -> membershipCache.invalidate(session.getStudio().getId()));
         sessionRepository.deleteById(id);
     }
 }
@@ -0,0 +1,167 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the outbound buffer of every WebSocket session so its depth can be
+ * read. Above the drop threshold droppable traffic (ICE candidates,
+ * telemetry) is skipped at the source; a session that stays behind past the
+ * resync limits is closed with reason "resync" so the client reconnects and
+ * rebuilds its state instead of slowly starving the heap. Connections that
+ * send nothing at all, not even heartbeats, are reaped.
+ */
+@Service
+public class SessionBackpressureTracker {
+
+    public static final CloseStatus RESYNC = new CloseStatus(4000, "resync");
+    public static final CloseStatus IDLE = CloseStatus.GOING_AWAY.withReason("idle");
+
+    private final ConcurrentHashMap<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+    private final int sendTimeLimitMillis;
+    private final int sendBufferLimitBytes;
+    private final int dropThresholdBytes;
+    private final int resyncThresholdBytes;
+    private final long resyncAfterMillis;
+    private final long idleTimeoutMillis;
+    private final Counter dropped;
+    private final Counter resyncs;
+    private final Counter idleClosed;
+
+    public SessionBackpressureTracker(MeterRegistry meterRegistry,
+            @Value("${application.signaling.transport.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+            @Value("${application.signaling.transport.send-buffer-limit-bytes:524288}") int sendBufferLimitBytes,
+            @Value("${application.signaling.transport.drop-threshold-bytes:65536}") int dropThresholdBytes,
+            @Value("${application.signaling.transport.resync-threshold-bytes:262144}") int resyncThresholdBytes,
+            @Value("${application.signaling.transport.resync-after-ms:5000}") long resyncAfterMillis,
+            @Value("${application.signaling.transport.idle-timeout-ms:45000}") long idleTimeoutMillis) {
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferLimitBytes = sendBufferLimitBytes;
+        this.dropThresholdBytes = dropThresholdBytes;
+        this.resyncThresholdBytes = resyncThresholdBytes;
+        this.resyncAfterMillis = resyncAfterMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.dropped = Counter.builder("podnest.signaling.session.dropped")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("podnest.signaling.session.resync")
+                .register(meterRegistry);
+        this.idleClosed = Counter.builder("podnest.signaling.session.idle.closed")
+                .register(meterRegistry);
+        Gauge.builder("podnest.signaling.session.buffer.bytes", sessions,
+                        s -> s.values().stream().mapToInt(TrackedSession::getBufferSize).sum())
+                .register(meterRegistry);
+        Gauge.builder("podnest.signaling.sessions", sessions, Map::size)
+                .register(meterRegistry);
+    }
+
+    public WebSocketSession decorate(WebSocketSession session) {
+        TrackedSession tracked = new TrackedSession(session);
+        sessions.put(session.getId(), tracked);
+        return tracked;
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public void touch(String sessionId) {
+        TrackedSession tracked = sessions.get(sessionId);
+        if (tracked != null) {
+            tracked.lastInboundAt = System.currentTimeMillis();
+        }
+    }
+
+    public void close(String sessionId, CloseStatus status) {
+        TrackedSession tracked = sessions.remove(sessionId);
+        if (tracked == null) {
+            return;
+        }
+        try {
+            tracked.close(status);
+        } catch (IOException ignored) {
+            // Already broken; the container will clean it up
+        }
+    }
+
+    // Catches half-open TCP connections and sockets that never got as far as a STOMP CONNECT
+    @Scheduled(fixedDelayString = "${application.signaling.transport.idle-sweep-ms:15000}")
+    public void reapIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        sessions.values().forEach(tracked -> {
+            if (tracked.lastInboundAt < cutoff) {
+                try {
+                    tracked.close(IDLE);
+                } catch (IOException ignored) {
+                    // Already broken; the container will clean it up
+                }
+                idleClosed.increment();
+                sessions.remove(tracked.getId(), tracked);
+            }
+        });
+    }
+
+    // Called before sending anything that is safe to lose; counts the drop when it says yes
+    public boolean shouldDrop(String sessionId) {
+        TrackedSession tracked = sessions.get(sessionId);
+        if (tracked == null || tracked.getBufferSize() < dropThresholdBytes) {
+            return false;
+        }
+        tracked.dropped.incrementAndGet();
+        dropped.increment();
+        return true;
+    }
+
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        sessions.values().forEach(tracked -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sessionId", tracked.getId());
+            entry.put("bufferedBytes", tracked.getBufferSize());
+            entry.put("sendingForMs", tracked.getTimeSinceSendStarted());
+            entry.put("dropped", tracked.dropped.get());
+            entry.put("idleMs", System.currentTimeMillis() - tracked.lastInboundAt);
+            stats.add(entry);
+        });
+        return stats;
+    }
+
+    private final class TrackedSession extends ConcurrentWebSocketSessionDecorator {
+
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long lastInboundAt = System.currentTimeMillis();
+
+        TrackedSession(WebSocketSession delegate) {
+            super(delegate, sendTimeLimitMillis, sendBufferLimitBytes);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (isOpen() && isTooFarBehind()) {
+                resyncs.increment();
+                close(RESYNC);
+                return;
+            }
+            super.sendMessage(message);
+        }
+
+        private boolean isTooFarBehind() {
+            return getBufferSize() > resyncThresholdBytes || getTimeSinceSendStarted() > resyncAfterMillis;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.podnest.api.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reads just enough of a signal to route and validate it. Nested values
+ * (SDP, candidates) are skipped by the streaming parser instead of being
+ * materialised as maps, and the original bytes are what gets relayed.
+ */
+@Component
+public class SignalCodec {
+
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final int MAX_FRAME_BYTES = 65536;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public SignalFrame peek(byte[] body) {
+        if (body == null || body.length == 0 || body.length > MAX_FRAME_BYTES) {
+            throw new InvalidSignalException("Signal is empty or too large");
+        }
+        String typeName = null;
+        String targetId = null;
+        // Byte ranges of the payload fields, indexed by SignalType ordinal; the type may come last
+        int[] starts = new int[SignalType.values().length];
+        int[] ends = new int[SignalType.values().length];
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidSignalException("Signal must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "type" -> typeName = stringValue(parser, token);
+                    case "targetId" -> targetId = stringValue(parser, token);
+                    // Receivers trust the sender-id header; a body that claims otherwise is refused
+                    case "senderId" -> throw new InvalidSignalException("senderId is assigned by the server");
+                    default -> {
+                        SignalType payloadOf = payloadOf(field);
+                        if (payloadOf == null) {
+                            parser.skipChildren();
+                        } else {
+                            // Only an object's end is known once it is skipped; strings are read lazily
+                            if (token != JsonToken.START_OBJECT) {
+                                throw new InvalidSignalException(field + " must be a JSON object");
+                            }
+                            starts[payloadOf.ordinal()] = (int) parser.currentTokenLocation().getByteOffset();
+                            parser.skipChildren();
+                            ends[payloadOf.ordinal()] = (int) parser.currentLocation().getByteOffset();
+                        }
+                    }
+                }
+            }
+            // The slice is spliced into batches verbatim, so nothing may follow the object
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new InvalidSignalException("Unexpected data after the signal");
+            }
+        } catch (IOException e) {
+            throw new InvalidSignalException("Malformed signal");
+        }
+
+        if (typeName == null) {
+            throw new InvalidSignalException("Signal has no type");
+        }
+        SignalType type = SignalType.fromWire(typeName);
+        if (body.length > type.getMaxBytes()) {
+            throw new InvalidSignalException("Signal too large for " + type.getWireName());
+        }
+        if (targetId != null && !SESSION_ID.matcher(targetId).matches()) {
+            throw new InvalidSignalException("Invalid targetId");
+        }
+        if (type.getRequiredField() != null && ends[type.ordinal()] == 0) {
+            throw new InvalidSignalException(type.getWireName() + " requires " + type.getRequiredField());
+        }
+        if (type != SignalType.JOIN && targetId == null) {
+            throw new InvalidSignalException(type.getWireName() + " requires a targetId");
+        }
+        return new SignalFrame(type, targetId, body, starts[type.ordinal()], ends[type.ordinal()]);
+    }
+
+    // {"type":"candidates","targetId":"...","candidates":[<raw>,<raw>]} without a tree in between
+    public byte[] encodeCandidateBatch(String targetId, List<byte[]> candidates) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + candidates.size() * 256);
+        out.writeBytes(("{\"type\":\"candidates\",\"targetId\":\"" + targetId + "\",\"candidates\":[")
+                .getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(candidates.get(i));
+        }
+        out.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private static SignalType payloadOf(String field) {
+        for (SignalType type : SignalType.values()) {
+            if (field.equals(type.getRequiredField())) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static String stringValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            throw new InvalidSignalException("Expected a string");
+        }
+        return parser.getText();
+    }
+}
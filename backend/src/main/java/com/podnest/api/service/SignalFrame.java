@@ -0,0 +1,15 @@
+package com.podnest.api.service;
+
+/**
+ * A client signal as received, plus the few fields routing needs. The body
+ * is relayed byte for byte; {@code valueStart}/{@code valueEnd} delimit the
+ * raw JSON of the type's required field (the candidate, for batching).
+ */
+public record SignalFrame(SignalType type, String targetId, byte[] body, int valueStart, int valueEnd) {
+
+    public byte[] value() {
+        byte[] value = new byte[valueEnd - valueStart];
+        System.arraycopy(body, valueStart, value, 0, value.length);
+        return value;
+    }
+}
@@ -0,0 +1,198 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the last few signals addressed to each peer, numbered in send
+ * order, so a client that reconnects with its resume token gets exactly the
+ * frames it missed. Buffers are bounded per peer and by a node-wide byte
+ * budget; once the budget is spent, frames are not retained and a resume
+ * across the gap fails, which sends the client back to a full rejoin.
+ */
+@Service
+public class SignalResumeBuffer {
+
+    public record BufferedSignal(long seq, String senderPeerId, byte[] body) {
+    }
+
+    private static final class PeerBuffer {
+        private final String token;
+        private final String peerId;
+        private final String studioId;
+        private final ArrayDeque<BufferedSignal> frames = new ArrayDeque<>();
+        private long nextSeq = 1;
+        private int bytes;
+        private ScheduledFuture<?> expiry;
+
+        PeerBuffer(String token, String peerId, String studioId) {
+            this.token = token;
+            this.peerId = peerId;
+            this.studioId = studioId;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<String, PeerBuffer> byToken = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PeerBuffer> byPeer = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxFramesPerPeer;
+    private final int maxBytesPerPeer;
+    private final long maxTotalBytes;
+    private final Counter notRetained;
+
+    public SignalResumeBuffer(@Qualifier("taskScheduler") TaskScheduler taskScheduler,
+            MeterRegistry meterRegistry,
+            @Value("${application.signaling.resume.enabled:true}") boolean enabled,
+            @Value("${application.signaling.resume.window-ms:20000}") long windowMillis,
+            @Value("${application.signaling.resume.max-frames-per-peer:64}") int maxFramesPerPeer,
+            @Value("${application.signaling.resume.max-bytes-per-peer:131072}") int maxBytesPerPeer,
+            @Value("${application.signaling.resume.max-total-bytes:33554432}") long maxTotalBytes) {
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.window = Duration.ofMillis(windowMillis);
+        this.maxFramesPerPeer = maxFramesPerPeer;
+        this.maxBytesPerPeer = maxBytesPerPeer;
+        this.maxTotalBytes = maxTotalBytes;
+        this.notRetained = Counter.builder("podnest.signaling.resume.not-retained")
+                .register(meterRegistry);
+        Gauge.builder("podnest.signaling.resume.bytes", totalBytes, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("podnest.signaling.resume.peers", byPeer, ConcurrentHashMap::size)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String open(String peerId, String studioId) {
+        byte[] raw = new byte[18];
+        random.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        PeerBuffer buffer = new PeerBuffer(token, peerId, studioId);
+        PeerBuffer previous = byPeer.put(peerId, buffer);
+        if (previous != null) {
+            discard(previous);
+        }
+        byToken.put(token, buffer);
+        return token;
+    }
+
+    // Returns the sequence number the frame goes out with, or -1 when the peer has no buffer
+    public long record(String targetPeerId, String senderPeerId, byte[] body) {
+        PeerBuffer buffer = byPeer.get(targetPeerId);
+        if (buffer == null) {
+            return -1;
+        }
+        synchronized (buffer) {
+            long seq = buffer.nextSeq++;
+            if (totalBytes.addAndGet(body.length) > maxTotalBytes) {
+                totalBytes.addAndGet(-body.length);
+                notRetained.increment();
+                return seq;
+            }
+            buffer.frames.addLast(new BufferedSignal(seq, senderPeerId, body));
+            buffer.bytes += body.length;
+            while (buffer.frames.size() > maxFramesPerPeer || buffer.bytes > maxBytesPerPeer) {
+                BufferedSignal evicted = buffer.frames.removeFirst();
+                buffer.bytes -= evicted.body().length;
+                totalBytes.addAndGet(-evicted.body().length);
+            }
+            return seq;
+        }
+    }
+
+    public Optional<String> peerForToken(String token, String studioId) {
+        PeerBuffer buffer = token != null ? byToken.get(token) : null;
+        if (buffer == null || !buffer.studioId.equals(studioId)) {
+            return Optional.empty();
+        }
+        return Optional.of(buffer.peerId);
+    }
+
+    // Everything after lastSeq, or empty if any of it is no longer held
+    public Optional<List<BufferedSignal>> missedSince(String peerId, long lastSeq) {
+        PeerBuffer buffer = byPeer.get(peerId);
+        if (buffer == null) {
+            return Optional.empty();
+        }
+        synchronized (buffer) {
+            List<BufferedSignal> missed = new ArrayList<>();
+            for (BufferedSignal frame : buffer.frames) {
+                if (frame.seq() > lastSeq) {
+                    missed.add(frame);
+                }
+            }
+            long expected = buffer.nextSeq - 1 - lastSeq;
+            if (expected < 0 || missed.size() != expected) {
+                return Optional.empty();
+            }
+            return Optional.of(missed);
+        }
+    }
+
+    public void expireLater(String peerId, Runnable onExpiry) {
+        PeerBuffer buffer = byPeer.get(peerId);
+        if (buffer == null) {
+            return;
+        }
+        synchronized (buffer) {
+            cancelExpiry(buffer);
+            buffer.expiry = taskScheduler.schedule(onExpiry, Instant.now().plus(window));
+        }
+    }
+
+    public void keep(String peerId) {
+        PeerBuffer buffer = byPeer.get(peerId);
+        if (buffer != null) {
+            synchronized (buffer) {
+                cancelExpiry(buffer);
+            }
+        }
+    }
+
+    public void close(String peerId) {
+        PeerBuffer buffer = byPeer.remove(peerId);
+        if (buffer != null) {
+            discard(buffer);
+        }
+    }
+
+    private void discard(PeerBuffer buffer) {
+        byToken.remove(buffer.token, buffer);
+        synchronized (buffer) {
+            cancelExpiry(buffer);
+            totalBytes.addAndGet(-buffer.bytes);
+            buffer.bytes = 0;
+            buffer.frames.clear();
+        }
+    }
+
+    private static void cancelExpiry(PeerBuffer buffer) {
+        if (buffer.expiry != null) {
+            buffer.expiry.cancel(false);
+            buffer.expiry = null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.podnest.api.service;
+
+// What clients may send on /app/studio/{id}/signal, with the body field each kind must carry
+public enum SignalType {
+    JOIN("join", null, 1024),
+    OFFER("offer", "offer", 65536),
+    ANSWER("answer", "answer", 65536),
+    CANDIDATE("candidate", "candidate", 2048);
+
+    private final String wireName;
+    private final String requiredField;
+    private final int maxBytes;
+
+    SignalType(String wireName, String requiredField, int maxBytes) {
+        this.wireName = wireName;
+        this.requiredField = requiredField;
+        this.maxBytes = maxBytes;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    public String getRequiredField() {
+        return requiredField;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public static SignalType fromWire(String value) {
+        for (SignalType type : values()) {
+            if (type.wireName.equals(value)) {
+                return type;
+            }
+        }
+        throw new InvalidSignalException("Unknown signal type");
+    }
+}
@@ -0,0 +1,454 @@
+package com.podnest.api.service;
+
+import com.podnest.api.dto.TelemetrySample;
+import com.podnest.api.service.PresenceDirectory.RemotePeer;
+import com.podnest.api.service.SignalResumeBuffer.BufferedSignal;
+import com.podnest.api.service.StudioPresenceRegistry.Admission;
+import com.podnest.api.service.StudioPresenceRegistry.Participant;
+import com.podnest.api.service.StudioPresenceRegistry.RoomPolicy;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class SignalingService implements PresenceDirectory.Listener {
+
+    // Clients subscribe to /user/queue/signal; each STOMP session gets its own copy of this queue
+    public static final String PEER_QUEUE = "/queue/signal";
+    public static final String SENDER_HEADER = "sender-id";
+    public static final String SEQ_HEADER = "seq";
+    private static final String STUDIO_TOPIC_PREFIX = "/topic/studio/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StudioPresenceRegistry presenceRegistry;
+    private final StudioPolicyCache policyCache;
+    private final PresenceDirectory presenceDirectory;
+    private final IceCandidateCoalescer iceCandidateCoalescer;
+    private final StudioDispatchLanes dispatchLanes;
+    private final SignalCodec signalCodec;
+    private final SessionBackpressureTracker backpressureTracker;
+    private final SignalResumeBuffer resumeBuffer;
+    private final ConnectionQualityAggregator qualityAggregator;
+
+    @Value("${application.studio.presence.idle-timeout:30000}")
+    private long idleTimeoutMillis;
+
+    @PostConstruct
+    void listenToOtherNodes() {
+        presenceDirectory.setListener(this);
+    }
+
+    // Everything that touches a studio runs on that studio's lane, so offers, answers and
+    // presence changes are seen by every participant in the order they were received
+    public void relay(String studioId, String senderSessionId, byte[] body) {
+        // Validation happens on the inbound thread so bad frames never occupy a lane
+        SignalFrame frame = signalCodec.peek(body);
+        if (frame.type() == SignalType.CANDIDATE) {
+            dispatchLanes.executeDroppable(studioId, () -> doRelay(studioId, senderSessionId, frame));
+        } else {
+            submitOrResync(studioId, senderSessionId, () -> doRelay(studioId, senderSessionId, frame));
+        }
+    }
+
+    public void enter(String studioId, String sessionId, Principal user, String name) {
+        // The policy may need the database; load it here so the lane never waits on a query
+        RoomPolicy policy = policyCache.get(studioId);
+        submitOrResync(studioId, sessionId, () -> doEnter(studioId, sessionId, user, name, policy));
+    }
+
+    public void resume(String studioId, String sessionId, String token, long lastSeq) {
+        submitOrResync(studioId, sessionId, () -> doResume(studioId, sessionId, token, lastSeq));
+    }
+
+    // If the lane will not take it, the participant stays listed and the idle sweep retries
+    public void leave(String sessionId) {
+        Participant participant = presenceRegistry.get(sessionId);
+        if (participant != null) {
+            dispatchLanes.execute(participant.getStudioId(), () -> doLeave(sessionId));
+        }
+    }
+
+    // A dropped connection keeps its place for the resume window; a deliberate DISCONNECT does not
+    public void disconnected(String sessionId) {
+        Participant participant = presenceRegistry.get(sessionId);
+        if (participant == null) {
+            return;
+        }
+        if (!resumeBuffer.isEnabled() || !participant.isAdmitted() || participant.isLeaving()) {
+            leave(sessionId);
+            return;
+        }
+        String studioId = participant.getStudioId();
+        // As with leave(), a suspend the lane will not take is left to the idle sweep
+        dispatchLanes.execute(studioId, () -> {
+            Participant suspended = presenceRegistry.suspend(sessionId);
+            if (suspended != null) {
+                expireLater(studioId, suspended.getPeerId());
+            }
+        });
+    }
+
+    public void admit(String studioId, String hostSessionId, Collection<String> peerIds) {
+        submitOrResync(studioId, hostSessionId, () -> doAdmit(studioId, hostSessionId, peerIds));
+    }
+
+    // Samples skip the lane: the aggregator is lock-free and their order does not matter
+    public void telemetry(String studioId, String sessionId, TelemetrySample sample) {
+        Participant participant = presenceRegistry.get(sessionId);
+        if (participant != null && participant.isAdmitted() && participant.getStudioId().equals(studioId)) {
+            qualityAggregator.record(studioId, participant.getPeerId(), sample);
+        }
+    }
+
+    // Control and SDP are never dropped quietly: a session whose studio lane stays full is made to resync
+    private void submitOrResync(String studioId, String sessionId, Runnable task) {
+        if (!dispatchLanes.execute(studioId, task)) {
+            backpressureTracker.close(sessionId, SessionBackpressureTracker.RESYNC);
+        }
+    }
+
+    // Hosts here see the guests waiting on other nodes too; a missed update is caught up by the next sync
+    @Override
+    public void remoteRoomChanged(String studioId) {
+        if (!presenceRegistry.members(studioId).isEmpty()) {
+            dispatchLanes.executeDroppable(studioId, () -> publishWaitingList(studioId));
+        }
+    }
+
+    // A host on another node admitted guests; the ones waiting here are moved in on this node
+    @Override
+    public void remoteAdmit(String studioId, Collection<String> peerIds) {
+        dispatchLanes.execute(studioId, () -> doRemoteAdmit(studioId, peerIds));
+    }
+
+    private void expireLater(String studioId, String peerId) {
+        resumeBuffer.expireLater(peerId, () -> {
+            if (!dispatchLanes.execute(studioId, () -> doExpire(peerId))) {
+                // Try again after another window rather than leave a ghost in the room
+                expireLater(studioId, peerId);
+            }
+        });
+    }
+
+    private void doRelay(String studioId, String senderSessionId, SignalFrame frame) {
+        // Waiting guests and sessions from other rooms cannot reach anyone
+        if (!presenceRegistry.isAdmitted(senderSessionId, studioId)) {
+            return;
+        }
+        String sender = presenceRegistry.get(senderSessionId).getPeerId();
+        String target = frame.targetId();
+        if (target == null) {
+            messagingTemplate.send(STUDIO_TOPIC_PREFIX + studioId, rawMessage(frame.body(), sender, null, -1));
+            return;
+        }
+        if (!canReach(target, studioId)) {
+            return;
+        }
+        // A candidate that cannot be delivered promptly is worthless; SDP and control always go out
+        if (frame.type() == SignalType.CANDIDATE && backpressureTracker.shouldDrop(sessionOf(target, studioId))) {
+            return;
+        }
+        if (iceCandidateCoalescer.isEnabled()) {
+            if (frame.type() == SignalType.CANDIDATE) {
+                iceCandidateCoalescer.offer(studioId, sender, target, frame.value(),
+                        candidates -> deliver(studioId, target, signalCodec.encodeCandidateBatch(target, candidates), sender));
+                return;
+            }
+            iceCandidateCoalescer.flushPair(studioId, sender, target);
+        }
+        deliver(studioId, target, frame.body(), sender);
+    }
+
+    // Numbered and kept for resume first, then sent if the target is currently connected
+    private void deliver(String studioId, String targetPeerId, byte[] body, String senderPeerId) {
+        long seq = resumeBuffer.record(targetPeerId, senderPeerId, body);
+        Participant target = presenceRegistry.getPeer(targetPeerId);
+        if (target != null && target.isSuspended()) {
+            return;
+        }
+        sendRawToSession(sessionOf(targetPeerId, studioId), body, senderPeerId, seq);
+    }
+
+    private void doEnter(String studioId, String sessionId, Principal user, String name, RoomPolicy policy) {
+        // A session is in at most one studio
+        if (presenceRegistry.get(sessionId) != null) {
+            doLeave(sessionId);
+        }
+        JwtPrincipal principal = jwtPrincipal(user);
+        Admission admission = presenceRegistry.join(studioId, sessionId,
+                principal != null ? principal.userId() : null, name, policy,
+                presenceDirectory.members(studioId).size());
+
+        switch (admission) {
+            case ADMITTED -> {
+                sendAdmitted(presenceRegistry.get(sessionId));
+                publishRoomState(studioId);
+                presenceDirectory.publish(studioId);
+            }
+            case WAITING -> {
+                sendToSession(sessionId, Map.of("type", "presence", "status", "waiting"));
+                publishWaitingList(studioId);
+                presenceDirectory.publish(studioId);
+            }
+            case FULL -> sendToSession(sessionId, Map.of("type", "presence", "status", "full"));
+            case REJECTED -> sendToSession(sessionId, Map.of("type", "presence", "status", "rejected"));
+        }
+    }
+
+    private void doResume(String studioId, String sessionId, String token, long lastSeq) {
+        String peerId = resumeBuffer.peerForToken(token, studioId).orElse(null);
+        if (peerId == null) {
+            sendToSession(sessionId, Map.of("type", "presence", "status", "resume-failed"));
+            return;
+        }
+        Optional<List<BufferedSignal>> missed = resumeBuffer.missedSince(peerId, lastSeq);
+        Participant participant = missed.isPresent() ? presenceRegistry.resume(peerId, studioId, sessionId) : null;
+        if (participant == null) {
+            // Something the client needs is gone; drop the old identity so it can rejoin cleanly
+            Participant stale = presenceRegistry.getPeer(peerId);
+            if (stale != null) {
+                afterLeave(stale.isSuspended()
+                        ? presenceRegistry.leavePeer(peerId)
+                        : presenceRegistry.leave(stale.getSessionId()));
+            }
+            sendToSession(sessionId, Map.of("type", "presence", "status", "resume-failed"));
+            return;
+        }
+        resumeBuffer.keep(peerId);
+        // Other nodes address the peer by its session, which just changed
+        presenceDirectory.publish(studioId);
+        sendToSession(sessionId, presenceFrame(participant, "resumed"));
+        missed.get().forEach(frame -> sendRawToSession(sessionId, frame.body(), frame.senderPeerId(), frame.seq()));
+        sendToSession(sessionId, roomState(studioId));
+        if (participant.isHost()) {
+            publishWaitingList(studioId);
+        }
+    }
+
+    private void doLeave(String sessionId) {
+        afterLeave(presenceRegistry.leave(sessionId));
+    }
+
+    private void doExpire(String peerId) {
+        afterLeave(presenceRegistry.leavePeer(peerId));
+    }
+
+    private void afterLeave(Participant participant) {
+        if (participant == null) {
+            return;
+        }
+        String peerId = participant.getPeerId();
+        iceCandidateCoalescer.discardPeer(peerId);
+        resumeBuffer.close(peerId);
+        qualityAggregator.discardPeer(participant.getStudioId(), peerId);
+        if (participant.isAdmitted()) {
+            broadcast(participant.getStudioId(), Map.of("type", "leave", "senderId", peerId));
+            publishRoomState(participant.getStudioId());
+        } else {
+            publishWaitingList(participant.getStudioId());
+        }
+        presenceDirectory.publish(participant.getStudioId());
+    }
+
+    // Hosts admit a batch at once so the room state goes out once, not per guest
+    private void doAdmit(String studioId, String hostSessionId, Collection<String> peerIds) {
+        if (!presenceRegistry.isHost(hostSessionId, studioId)) {
+            return;
+        }
+        afterAdmit(studioId, presenceRegistry.admit(studioId, hostSessionId, peerIds,
+                presenceDirectory.members(studioId).size()));
+        // Guests waiting on other nodes are admitted there, counting what was just admitted here
+        if (!presenceDirectory.waiting(studioId).isEmpty()) {
+            presenceDirectory.requestAdmit(studioId, peerIds);
+        }
+    }
+
+    private void doRemoteAdmit(String studioId, Collection<String> peerIds) {
+        afterAdmit(studioId, presenceRegistry.admitForRemoteHost(studioId, peerIds,
+                presenceDirectory.members(studioId).size()));
+    }
+
+    private void afterAdmit(String studioId, List<Participant> admitted) {
+        if (admitted.isEmpty()) {
+            return;
+        }
+        admitted.forEach(this::sendAdmitted);
+        publishRoomState(studioId);
+        publishWaitingList(studioId);
+        presenceDirectory.publish(studioId);
+    }
+
+    @Scheduled(fixedDelayString = "${application.studio.presence.sweep-interval:10000}")
+    public void evictIdleParticipants() {
+        presenceRegistry.findIdle(idleTimeoutMillis).forEach(participant -> {
+            leave(participant.getSessionId());
+            // The connection is as silent as the participant; close it rather than leave it unlisted but open
+            backpressureTracker.close(participant.getSessionId(), SessionBackpressureTracker.IDLE);
+        });
+    }
+
+    // Hosts get a live quality summary of their room; it is the first thing dropped for a slow host
+    @Scheduled(fixedDelayString = "${application.signaling.telemetry.publish-interval-ms:5000}")
+    public void publishConnectionQuality() {
+        qualityAggregator.evictIdle();
+        qualityAggregator.studioIds().forEach(studioId -> dispatchLanes.executeDroppable(studioId, () -> {
+            List<Map<String, Object>> participants = qualityAggregator.snapshot(studioId);
+            if (participants.isEmpty()) {
+                return;
+            }
+            Map<String, Object> payload = Map.of("type", "quality", "participants", participants);
+            presenceRegistry.members(studioId).stream()
+                    .filter(host -> host.isHost() && !host.isSuspended())
+                    .filter(host -> !backpressureTracker.shouldDrop(host.getSessionId()))
+                    .forEach(host -> sendToSession(host.getSessionId(), payload));
+        }));
+    }
+
+    public void broadcast(String studioId, Object payload) {
+        messagingTemplate.convertAndSend(STUDIO_TOPIC_PREFIX + studioId, payload);
+    }
+
+    public void sendToSession(String sessionId, Object payload) {
+        messagingTemplate.convertAndSendToUser(sessionId, PEER_QUEUE, payload, sessionHeaders(sessionId));
+    }
+
+    // Behind a relay the target may live on another node; it is reachable only if that node lists it as admitted
+    private boolean canReach(String targetPeerId, String studioId) {
+        Participant target = presenceRegistry.getPeer(targetPeerId);
+        if (target == null) {
+            RemotePeer remote = presenceDirectory.peer(studioId, targetPeerId);
+            return remote != null && remote.admitted();
+        }
+        return target.isAdmitted() && target.getStudioId().equals(studioId);
+    }
+
+    // Peers are addressed by peer id; the session behind it may have changed through a resume
+    private String sessionOf(String peerId, String studioId) {
+        Participant participant = presenceRegistry.getPeer(peerId);
+        if (participant != null) {
+            return participant.getSessionId();
+        }
+        RemotePeer remote = presenceDirectory.peer(studioId, peerId);
+        return remote != null && remote.session() != null ? remote.session() : peerId;
+    }
+
+    private void sendAdmitted(Participant participant) {
+        Map<String, Object> frame = presenceFrame(participant, "admitted");
+        if (resumeBuffer.isEnabled()) {
+            frame.put("resumeToken", resumeBuffer.open(participant.getPeerId(), participant.getStudioId()));
+        }
+        sendToSession(participant.getSessionId(), frame);
+    }
+
+    private Map<String, Object> presenceFrame(Participant participant, String status) {
+        RoomPolicy policy = presenceRegistry.policy(participant.getStudioId());
+        boolean muted = policy != null && policy.muteGuests() && !participant.isHost();
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "presence");
+        frame.put("status", status);
+        frame.put("selfId", participant.getPeerId());
+        frame.put("host", participant.isHost());
+        frame.put("muted", muted);
+        return frame;
+    }
+
+    // One snapshot per change instead of a join/leave frame per participant
+    private void publishRoomState(String studioId) {
+        broadcast(studioId, roomState(studioId));
+    }
+
+    private Map<String, Object> roomState(String studioId) {
+        RoomPolicy policy = presenceRegistry.policy(studioId);
+        List<Map<String, Object>> members = Stream.concat(
+                        presenceRegistry.members(studioId).stream().map(SignalingService::describe),
+                        presenceDirectory.members(studioId).stream().map(SignalingService::describe))
+                .toList();
+        Map<String, Object> state = new HashMap<>();
+        state.put("type", "room-state");
+        state.put("members", members);
+        state.put("waiting", presenceRegistry.waiting(studioId).size() + presenceDirectory.waiting(studioId).size());
+        state.put("capacity", policy != null ? policy.capacity() : 0);
+        return state;
+    }
+
+    // Guest names in the waiting room are only visible to hosts
+    private void publishWaitingList(String studioId) {
+        List<Map<String, Object>> waiting = Stream.concat(
+                        presenceRegistry.waiting(studioId).stream().map(SignalingService::describe),
+                        presenceDirectory.waiting(studioId).stream().map(SignalingService::describe))
+                .toList();
+        Map<String, Object> payload = Map.of("type", "waiting-room", "waiting", waiting);
+        presenceRegistry.members(studioId).stream()
+                .filter(host -> host.isHost() && !host.isSuspended())
+                .forEach(host -> sendToSession(host.getSessionId(), payload));
+    }
+
+    private static Map<String, Object> describe(Participant participant) {
+        return Map.of(
+                "id", participant.getPeerId(),
+                "name", participant.getName(),
+                "host", participant.isHost());
+    }
+
+    private static Map<String, Object> describe(RemotePeer peer) {
+        return Map.of(
+                "id", peer.id(),
+                "name", peer.name() != null ? peer.name() : "Guest",
+                "host", peer.host());
+    }
+
+    private static JwtPrincipal jwtPrincipal(Principal user) {
+        if (user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    // The client's bytes go out untouched; who sent them travels in the sender-id header
+    private void sendRawToSession(String sessionId, byte[] body, String senderPeerId, long seq) {
+        messagingTemplate.send("/user/" + sessionId + PEER_QUEUE, rawMessage(body, senderPeerId, sessionId, seq));
+    }
+
+    private static Message<byte[]> rawMessage(byte[] body, String senderPeerId, String targetSessionId, long seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(SENDER_HEADER, senderPeerId);
+        if (seq > 0) {
+            // Clients report the last seq they saw when resuming
+            accessor.setNativeHeader(SEQ_HEADER, Long.toString(seq));
+        }
+        if (targetSessionId != null) {
+            accessor.setSessionId(targetSessionId);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+
+    // Addressing the session id directly resolves the user destination without a principal
+    private static MessageHeaders sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
@@ -0,0 +1,132 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of single-threaded lanes, one per core by default. A studio id
+ * always hashes to the same lane, so everything that happens in one studio
+ * runs in submission order while different studios run in parallel without
+ * sharing a lock.
+ * <p>
+ * When a lane's queue is full, droppable work (ICE candidates, quality
+ * summaries) is discarded at once. Everything else waits briefly for room and,
+ * if there still is none, is reported back so the caller can make the client
+ * resync instead of silently losing an offer or a join.
+ */
+@Slf4j
+@Service
+public class StudioDispatchLanes {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final long offerTimeoutMillis;
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final Counter droppedTasks;
+    private final Counter rejectedTasks;
+
+    public StudioDispatchLanes(MeterRegistry meterRegistry,
+            @Value("${application.signaling.lanes:0}") int laneCount,
+            @Value("${application.signaling.lane-queue-capacity:10000}") int queueCapacity,
+            @Value("${application.signaling.lane-offer-timeout-ms:250}") long offerTimeoutMillis) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.lanes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    new CustomizableThreadFactory("signaling-lane-" + i + "-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            // The worker must already exist for tasks offered straight to the queue
+            lane.prestartAllCoreThreads();
+            lanes[i] = lane;
+            Gauge.builder("podnest.signaling.lane.queue.depth", lane, l -> l.getQueue().size())
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.waitTimer = Timer.builder("podnest.signaling.lane.latency")
+                .tag("stage", "wait")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("podnest.signaling.lane.latency")
+                .tag("stage", "run")
+                .register(meterRegistry);
+        this.droppedTasks = Counter.builder("podnest.signaling.lane.rejected")
+                .tag("kind", "droppable")
+                .register(meterRegistry);
+        this.rejectedTasks = Counter.builder("podnest.signaling.lane.rejected")
+                .tag("kind", "control")
+                .register(meterRegistry);
+    }
+
+    // False only when the lane stayed full for the whole offer timeout
+    public boolean execute(String studioId, Runnable task) {
+        ThreadPoolExecutor lane = laneFor(studioId);
+        Runnable timed = timed(studioId, task);
+        try {
+            lane.execute(timed);
+            return true;
+        } catch (RejectedExecutionException e) {
+            try {
+                if (!lane.isShutdown() && lane.getQueue().offer(timed, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            rejectedTasks.increment();
+            log.warn("Signaling lane for studio {} stayed full for {} ms", studioId, offerTimeoutMillis);
+            return false;
+        }
+    }
+
+    // For work that is worthless once late; a lane this far behind would not deliver it in time anyway.
+    // False when the task was dropped
+    public boolean executeDroppable(String studioId, Runnable task) {
+        try {
+            laneFor(studioId).execute(timed(studioId, task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            droppedTasks.increment();
+            return false;
+        }
+    }
+
+    private Runnable timed(String studioId, Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Signaling task for studio {} failed", studioId, e);
+            } finally {
+                runTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private ThreadPoolExecutor laneFor(String studioId) {
+        int h = studioId.hashCode();
+        return lanes[Math.floorMod(h ^ (h >>> 16), lanes.length)];
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.podnest.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.podnest.api.repository.SessionGuestRepository;
+import com.podnest.api.repository.StudioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Who may take part in a studio's signaling, loaded once per studio and then
+ * answered from memory. Writers that change ownership, the invite code or the
+ * guest list call {@link #invalidate(Long)}; the TTL covers other nodes.
+ */
+@Service
+public class StudioMembershipCache {
+
+    public record Membership(Long ownerId, String inviteCode, Set<String> guestEmails) {
+
+        // Cached for unknown ids too, so probing random studios costs one query per id
+        static final Membership NONE = new Membership(null, null, Set.of());
+
+        public boolean exists() {
+            return ownerId != null;
+        }
+    }
+
+    private final StudioRepository studioRepository;
+    private final SessionGuestRepository sessionGuestRepository;
+    private final Cache<Long, Membership> memberships;
+
+    public StudioMembershipCache(StudioRepository studioRepository,
+            SessionGuestRepository sessionGuestRepository,
+            @Value("${application.signaling.membership-cache.size:10000}") long size,
+            @Value("${application.signaling.membership-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.studioRepository = studioRepository;
+        this.sessionGuestRepository = sessionGuestRepository;
+        this.memberships = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public Membership get(Long studioId) {
+        return memberships.get(studioId, this::load);
+    }
+
+    /**
+     * True when the caller owns the studio, is on one of its guest lists, or
+     * connected with the studio's current invite code.
+     */
+    public boolean isAllowed(Long studioId, JwtPrincipal principal, String inviteCode) {
+        Membership membership = get(studioId);
+        if (!membership.exists()) {
+            return false;
+        }
+        if (principal != null) {
+            if (membership.ownerId().equals(principal.userId())) {
+                return true;
+            }
+            if (membership.guestEmails().contains(principal.username().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return inviteCode != null && inviteCode.equals(membership.inviteCode());
+    }
+
+    // Deferred to commit when called inside a transaction, so a concurrent load cannot re-cache old rows
+    public void invalidate(Long studioId) {
+        if (studioId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    memberships.invalidate(studioId);
+                }
+            });
+        } else {
+            memberships.invalidate(studioId);
+        }
+    }
+
+    private Membership load(Long studioId) {
+        return studioRepository.findById(studioId)
+                .map(studio -> new Membership(
+                        studio.getOwner().getId(),
+                        studio.getInviteCode(),
+                        Set.copyOf(sessionGuestRepository.findInvitedEmailsByStudioId(studioId))))
+                .orElse(Membership.NONE);
+    }
+}
@@ -0,0 +1,89 @@
+package com.podnest.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.podnest.api.model.PlanType;
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.Subscription;
+import com.podnest.api.model.SubscriptionStatus;
+import com.podnest.api.repository.ScheduledSessionRepository;
+import com.podnest.api.repository.StudioRepository;
+import com.podnest.api.repository.SubscriptionRepository;
+import com.podnest.api.service.StudioPresenceRegistry.RoomPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Capacity and waiting-room settings of a studio, read on the inbound thread
+ * before a join is queued so the studio's dispatch lane never waits on the
+ * database. The TTL is short because the settings follow the scheduled
+ * session closest to now.
+ */
+@Service
+public class StudioPolicyCache {
+
+    private final StudioRepository studioRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final ScheduledSessionRepository scheduledSessionRepository;
+    private final Map<PlanType, Integer> capacityByPlan;
+    // Empty for ids that are not studios, so probing random ids costs one query per id
+    private final Cache<String, Optional<RoomPolicy>> policies;
+
+    public StudioPolicyCache(StudioRepository studioRepository,
+            SubscriptionRepository subscriptionRepository,
+            ScheduledSessionRepository scheduledSessionRepository,
+            @Value("${application.studio.capacity.free:4}") int freeCapacity,
+            @Value("${application.studio.capacity.pro:10}") int proCapacity,
+            @Value("${application.studio.capacity.business:25}") int businessCapacity,
+            @Value("${application.studio.policy-cache.size:10000}") long size,
+            @Value("${application.studio.policy-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.studioRepository = studioRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.scheduledSessionRepository = scheduledSessionRepository;
+        this.capacityByPlan = Map.of(
+                PlanType.FREE, freeCapacity,
+                PlanType.PRO, proCapacity,
+                PlanType.BUSINESS, businessCapacity);
+        this.policies = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Null when the studio does not exist
+    public RoomPolicy get(String studioId) {
+        return policies.get(studioId, this::load).orElse(null);
+    }
+
+    private Optional<RoomPolicy> load(String studioId) {
+        Long id;
+        try {
+            id = Long.valueOf(studioId);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        Studio studio = studioRepository.findById(id).orElse(null);
+        if (studio == null) {
+            return Optional.empty();
+        }
+        Long ownerId = studio.getOwner().getId();
+
+        PlanType plan = subscriptionRepository.findByUserId(ownerId)
+                .filter(subscription -> subscription.getStatus() == SubscriptionStatus.ACTIVE)
+                .map(Subscription::getPlanType)
+                .orElse(PlanType.FREE);
+
+        // Settings come from the session scheduled closest to now, if any
+        LocalDateTime now = LocalDateTime.now();
+        return Optional.of(scheduledSessionRepository
+                .findFirstByStudioIdAndStartTimeBetweenOrderByStartTimeDesc(id, now.minusHours(6), now.plusHours(1))
+                .map(session -> new RoomPolicy(ownerId, capacityByPlan.get(plan),
+                        session.isWaitingRoomEnabled(), session.isMuteGuestsOnJoin()))
+                .orElseGet(() -> new RoomPolicy(ownerId, capacityByPlan.get(plan), false, false)));
+    }
+}
@@ -0,0 +1,346 @@
+package com.podnest.api.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is in which studio on this node. Rooms are created on the first
+ * subscription and dropped when the last participant leaves; each room is
+ * guarded by its own monitor so busy studios never contend with each other.
+ * <p>
+ * A participant is known to other peers by its peer id, which is the id of
+ * the STOMP session it first entered with. When the connection drops the
+ * participant can be suspended and later resumed on a new session under the
+ * same peer id.
+ */
+@Service
+public class StudioPresenceRegistry {
+
+    private static final int MAX_NAME_LENGTH = 64;
+
+    public enum Admission {
+        ADMITTED, WAITING, FULL, REJECTED
+    }
+
+    public record RoomPolicy(Long ownerId, int capacity, boolean waitingRoom, boolean muteGuests) {
+    }
+
+    public static final class Participant {
+        private final String peerId;
+        private final String studioId;
+        private final Long userId;
+        private final String name;
+        private final boolean host;
+        private volatile String sessionId;
+        private volatile long lastSeen;
+        private volatile boolean admitted;
+        private volatile boolean suspended;
+        private volatile boolean leaving;
+
+        Participant(String sessionId, String studioId, Long userId, String name, boolean host) {
+            this.peerId = sessionId;
+            this.sessionId = sessionId;
+            this.studioId = studioId;
+            this.userId = userId;
+            this.name = name;
+            this.host = host;
+            this.lastSeen = System.currentTimeMillis();
+        }
+
+        public String getPeerId() {
+            return peerId;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public String getStudioId() {
+            return studioId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHost() {
+            return host;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        public boolean isSuspended() {
+            return suspended;
+        }
+
+        // Set when the client sent a STOMP DISCONNECT, i.e. it left on purpose
+        public boolean isLeaving() {
+            return leaving;
+        }
+    }
+
+    private static final class Room {
+        private final RoomPolicy policy;
+        private final Map<String, Participant> members = new LinkedHashMap<>();
+        private final Map<String, Participant> waiting = new LinkedHashMap<>();
+        private boolean closed;
+
+        Room(RoomPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Participant> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Participant> peers = new ConcurrentHashMap<>();
+
+    // The policy is loaded by the caller (see StudioPolicyCache) and only used when the room is created;
+    // admittedElsewhere counts members other nodes hold, so the capacity is shared across them
+    public Admission join(String studioId, String sessionId, Long userId, String name, RoomPolicy policy,
+            int admittedElsewhere) {
+        while (true) {
+            Room room = rooms.get(studioId);
+            if (room == null) {
+                if (policy == null) {
+                    return Admission.REJECTED;
+                }
+                room = rooms.computeIfAbsent(studioId, id -> new Room(policy));
+            }
+            synchronized (room) {
+                if (room.closed) {
+                    continue;
+                }
+                boolean host = userId != null && userId.equals(room.policy.ownerId());
+                Participant participant = new Participant(sessionId, studioId, userId,
+                        displayName(name), host);
+
+                if (!host && room.members.size() + admittedElsewhere >= room.policy.capacity()) {
+                    closeIfEmpty(studioId, room);
+                    return Admission.FULL;
+                }
+                sessions.put(sessionId, participant);
+                peers.put(participant.peerId, participant);
+                if (!host && room.policy.waitingRoom()) {
+                    room.waiting.put(participant.peerId, participant);
+                    return Admission.WAITING;
+                }
+                participant.admitted = true;
+                room.members.put(participant.peerId, participant);
+                return Admission.ADMITTED;
+            }
+        }
+    }
+
+    public Participant leave(String sessionId) {
+        Participant participant = sessions.remove(sessionId);
+        if (participant == null) {
+            return null;
+        }
+        remove(participant);
+        return participant;
+    }
+
+    // Final departure of a suspended participant whose resume window ran out
+    public Participant leavePeer(String peerId) {
+        Participant participant = peers.get(peerId);
+        if (participant == null || !participant.suspended) {
+            return null;
+        }
+        remove(participant);
+        return participant;
+    }
+
+    // Keeps the participant in its room, reachable by peer id, but detached from any session
+    public Participant suspend(String sessionId) {
+        Participant participant = sessions.remove(sessionId);
+        if (participant != null) {
+            participant.suspended = true;
+        }
+        return participant;
+    }
+
+    // Rebinds a peer to a new session; also takes over from an old session the server has not seen drop yet
+    public Participant resume(String peerId, String studioId, String newSessionId) {
+        Participant participant = peers.get(peerId);
+        if (participant == null || !participant.admitted || !participant.studioId.equals(studioId)) {
+            return null;
+        }
+        sessions.remove(participant.sessionId, participant);
+        participant.sessionId = newSessionId;
+        participant.suspended = false;
+        participant.leaving = false;
+        participant.lastSeen = System.currentTimeMillis();
+        sessions.put(newSessionId, participant);
+        return participant;
+    }
+
+    public void markLeaving(String sessionId) {
+        Participant participant = sessions.get(sessionId);
+        if (participant != null) {
+            participant.leaving = true;
+        }
+    }
+
+    // Moves waiting guests into the room in arrival order; null means everyone who fits
+    public List<Participant> admit(String studioId, String hostSessionId, Collection<String> peerIds,
+            int admittedElsewhere) {
+        Room room = rooms.get(studioId);
+        if (room == null) {
+            return List.of();
+        }
+        synchronized (room) {
+            Participant host = sessions.get(hostSessionId);
+            if (host == null || !host.host || room.members.get(host.peerId) != host) {
+                return List.of();
+            }
+            return admitWaiting(room, peerIds, admittedElsewhere);
+        }
+    }
+
+    // The same for a host connected to another node, which has already checked it is the host
+    public List<Participant> admitForRemoteHost(String studioId, Collection<String> peerIds, int admittedElsewhere) {
+        Room room = rooms.get(studioId);
+        if (room == null) {
+            return List.of();
+        }
+        synchronized (room) {
+            return admitWaiting(room, peerIds, admittedElsewhere);
+        }
+    }
+
+    public boolean isHost(String sessionId, String studioId) {
+        Participant participant = get(sessionId);
+        return participant != null && participant.host && participant.admitted
+                && participant.studioId.equals(studioId);
+    }
+
+    // Caller holds the room's monitor
+    private List<Participant> admitWaiting(Room room, Collection<String> peerIds, int admittedElsewhere) {
+        List<Participant> admitted = new ArrayList<>();
+        Iterator<Participant> it = room.waiting.values().iterator();
+        while (it.hasNext() && room.members.size() + admittedElsewhere < room.policy.capacity()) {
+            Participant participant = it.next();
+            if (peerIds != null && !peerIds.contains(participant.peerId)) {
+                continue;
+            }
+            it.remove();
+            participant.admitted = true;
+            room.members.put(participant.peerId, participant);
+            admitted.add(participant);
+        }
+        return admitted;
+    }
+
+    public void touch(String sessionId) {
+        Participant participant = sessions.get(sessionId);
+        if (participant != null) {
+            participant.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    public Participant get(String sessionId) {
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    public Participant getPeer(String peerId) {
+        return peerId != null ? peers.get(peerId) : null;
+    }
+
+    public boolean isAdmitted(String sessionId, String studioId) {
+        Participant participant = get(sessionId);
+        return participant != null && participant.admitted && participant.studioId.equals(studioId);
+    }
+
+    public RoomPolicy policy(String studioId) {
+        Room room = rooms.get(studioId);
+        return room != null ? room.policy : null;
+    }
+
+    // Participants that stopped sending anything, heartbeats included
+    public List<Participant> findIdle(long timeoutMillis) {
+        long cutoff = System.currentTimeMillis() - timeoutMillis;
+        List<Participant> idle = new ArrayList<>();
+        sessions.values().forEach(participant -> {
+            if (participant.lastSeen < cutoff) {
+                idle.add(participant);
+            }
+        });
+        return idle;
+    }
+
+    public List<Participant> members(String studioId) {
+        Room room = rooms.get(studioId);
+        if (room == null) {
+            return List.of();
+        }
+        synchronized (room) {
+            return new ArrayList<>(room.members.values());
+        }
+    }
+
+    public List<Participant> waiting(String studioId) {
+        Room room = rooms.get(studioId);
+        if (room == null) {
+            return List.of();
+        }
+        synchronized (room) {
+            return new ArrayList<>(room.waiting.values());
+        }
+    }
+
+    public List<String> studioIds() {
+        return new ArrayList<>(rooms.keySet());
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    public int participantCount() {
+        return sessions.size();
+    }
+
+    private void remove(Participant participant) {
+        peers.remove(participant.peerId, participant);
+        Room room = rooms.get(participant.studioId);
+        if (room != null) {
+            synchronized (room) {
+                room.members.remove(participant.peerId, participant);
+                room.waiting.remove(participant.peerId, participant);
+                closeIfEmpty(participant.studioId, room);
+            }
+        }
+    }
+
+    private static String displayName(String name) {
+        if (name == null || name.isBlank()) {
+            return "Guest";
+        }
+        String trimmed = name.trim();
+        return trimmed.length() > MAX_NAME_LENGTH ? trimmed.substring(0, MAX_NAME_LENGTH) : trimmed;
+    }
+
+    private void closeIfEmpty(String studioId, Room room) {
+        if (room.members.isEmpty() && room.waiting.isEmpty()) {
+            room.closed = true;
+            rooms.remove(studioId, room);
+        }
+    }
+}
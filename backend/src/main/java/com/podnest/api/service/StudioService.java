@@ -1,11 +1,8 @@
 package com.podnest.api.service;
 
 import com.podnest.api.model.Studio;
-import com.podnest.api.model.User;
 import com.podnest.api.repository.StudioRepository;
-import com.podnest.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,12 +11,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StudioService {
     private final StudioRepository studioRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final StudioMembershipCache membershipCache;
 
     public List<Studio> getUserStudios() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
-        return studioRepository.findByOwner(user);
+        return studioRepository.findByOwnerId(currentUserService.get().getId());
     }
 
     public List<Studio> getAllStudios() {
@@ -32,25 +28,22 @@ public class StudioService {
     }
 
     public Studio createStudio(String name) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
         Studio studio = Studio.builder()
                 .name(name)
-                .owner(user)
+                .owner(currentUserService.get().getUser())
                 .build();
         return studioRepository.save(studio);
     }
 
     public void deleteStudio(Long id) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
         Studio studio = studioRepository.findById(id).orElseThrow();
 
-        if (!studio.getOwner().getId().equals(user.getId())) {
+        if (!studio.getOwner().getId().equals(currentUserService.get().getId())) {
             throw new RuntimeException("Not authorized to delete this studio");
         }
 
         studioRepository.delete(studio);
+        membershipCache.invalidate(id);
     }
 
     public Studio getByInviteCode(String inviteCode) {
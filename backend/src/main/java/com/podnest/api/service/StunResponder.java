@@ -0,0 +1,147 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Minimal STUN server (RFC 5389): answers Binding requests with the
+ * XOR-MAPPED-ADDRESS the packet came from, which is all browsers need to
+ * gather server-reflexive candidates. No authentication, no TURN, and
+ * everything that is not a well-formed Binding request is ignored.
+ *
+ * One thread loops over a blocking {@link DatagramChannel}. Request and
+ * response share two direct buffers allocated up front, so for IPv4 clients
+ * the packet path creates nothing beyond the source address the JDK hands
+ * back; IPv6 clients cost one 16-byte copy of their address.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "application.rtc.stun.enabled", havingValue = "true")
+public class StunResponder {
+
+    static final int MAGIC_COOKIE = 0x2112A442;
+    static final int HEADER_BYTES = 20;
+    static final short BINDING_REQUEST = 0x0001;
+    static final short BINDING_SUCCESS = 0x0101;
+    static final short XOR_MAPPED_ADDRESS = 0x0020;
+
+    private final int port;
+    private final String bindAddress;
+    private final ByteBuffer request = ByteBuffer.allocateDirect(1500);
+    private final ByteBuffer response = ByteBuffer.allocateDirect(HEADER_BYTES + 24);
+    private final Counter answered;
+    private final Counter ignored;
+    private DatagramChannel channel;
+    private Thread worker;
+
+    public StunResponder(MeterRegistry meterRegistry,
+            @Value("${application.rtc.stun.port:3478}") int port,
+            @Value("${application.rtc.stun.bind-address:0.0.0.0}") String bindAddress) {
+        this.port = port;
+        this.bindAddress = bindAddress;
+        this.answered = Counter.builder("podnest.stun.responses").register(meterRegistry);
+        this.ignored = Counter.builder("podnest.stun.ignored").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        InetAddress address = InetAddress.getByName(bindAddress);
+        channel = DatagramChannel.open(address instanceof Inet4Address
+                ? StandardProtocolFamily.INET
+                : StandardProtocolFamily.INET6);
+        channel.bind(new InetSocketAddress(address, port));
+        worker = new Thread(this::serve, "stun-responder");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("STUN responder listening on udp {}:{}", bindAddress, port);
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        channel.close();
+    }
+
+    private void serve() {
+        while (channel.isOpen()) {
+            try {
+                request.clear();
+                SocketAddress source = channel.receive(request);
+                request.flip();
+                if (source instanceof InetSocketAddress client && writeResponse(request, client, response)) {
+                    channel.send(response, client);
+                    answered.increment();
+                } else {
+                    ignored.increment();
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // A single bad send (e.g. ICMP unreachable surfacing) must not stop the responder
+                log.debug("STUN packet failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fills {@code out} with the Binding success response for {@code in}, ready
+     * to send. Returns false, leaving {@code out} undefined, when {@code in} is
+     * not a Binding request.
+     */
+    static boolean writeResponse(ByteBuffer in, InetSocketAddress client, ByteBuffer out) {
+        int length = in.remaining();
+        if (length < HEADER_BYTES
+                || in.getShort(0) != BINDING_REQUEST
+                || in.getInt(4) != MAGIC_COOKIE) {
+            return false;
+        }
+        int messageLength = in.getShort(2) & 0xFFFF;
+        if ((messageLength & 3) != 0 || HEADER_BYTES + messageLength != length) {
+            return false;
+        }
+
+        InetAddress address = client.getAddress();
+        boolean ipv4 = address instanceof Inet4Address;
+        int attributeLength = ipv4 ? 8 : 20;
+
+        out.clear();
+        out.putShort(BINDING_SUCCESS);
+        out.putShort((short) (4 + attributeLength));
+        out.putInt(MAGIC_COOKIE);
+        for (int i = 8; i < HEADER_BYTES; i++) {
+            out.put(in.get(i));
+        }
+        out.putShort(XOR_MAPPED_ADDRESS);
+        out.putShort((short) attributeLength);
+        out.put((byte) 0);
+        out.put((byte) (ipv4 ? 0x01 : 0x02));
+        out.putShort((short) (client.getPort() ^ (MAGIC_COOKIE >>> 16)));
+        if (ipv4) {
+            // Inet4Address.hashCode() is the address itself; getAddress() would copy it
+            out.putInt(address.hashCode() ^ MAGIC_COOKIE);
+        } else {
+            // IPv6 is XORed with the cookie followed by the transaction id
+            byte[] bytes = address.getAddress();
+            for (int i = 0; i < bytes.length; i++) {
+                out.put((byte) (bytes[i] ^ in.get(4 + i)));
+            }
+        }
+        out.flip();
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.podnest.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked access-token ids, checked on every authenticated request. A Bloom
+ * filter answers the common "not revoked" case without touching the exact set;
+ * entries are dropped once the token they block would have expired anyway.
+ */
+@Service
+public class TokenDenylist {
+
+    private final ConcurrentHashMap<String, Long> denied = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final int bitCount;
+    private final int hashCount;
+    private volatile AtomicLongArray bloom;
+
+    public TokenDenylist(
+            @Value("${application.security.jwt.denylist.expected-entries:100000}") int expectedEntries,
+            @Value("${application.security.jwt.denylist.false-positive-rate:0.01}") double falsePositiveRate) {
+        double bits = -expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, Math.ceil(bits)));
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedEntries * Math.log(2)));
+        this.bloom = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    public void deny(String tokenId, Instant expiresAt) {
+        if (tokenId == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        synchronized (writeLock) {
+            denied.put(tokenId, expiresAt.toEpochMilli());
+            setBits(bloom, tokenId);
+        }
+    }
+
+    public boolean isDenied(String tokenId) {
+        if (tokenId == null || !mightContain(bloom, tokenId)) {
+            return false;
+        }
+        Long expiresAt = denied.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public int size() {
+        return denied.size();
+    }
+
+    // Bloom filters cannot forget, so the filter is rebuilt from whatever is still live
+    @Scheduled(fixedDelayString = "${application.security.jwt.denylist.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            if (!denied.values().removeIf(expiresAt -> expiresAt <= now)) {
+                return;
+            }
+            AtomicLongArray rebuilt = new AtomicLongArray(bloom.length());
+            denied.keySet().forEach(tokenId -> setBits(rebuilt, tokenId));
+            bloom = rebuilt;
+        }
+    }
+
+    private void setBits(AtomicLongArray bits, String tokenId) {
+        int h1 = tokenId.hashCode();
+        int h2 = secondaryHash(tokenId);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray bits, String tokenId) {
+        int h1 = tokenId.hashCode();
+        int h2 = secondaryHash(tokenId);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, forced odd so the double-hashing stride never collapses to zero
+    private static int secondaryHash(String value) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash | 1;
+    }
+}
@@ -0,0 +1,9 @@
+package com.podnest.api.service;
+
+// Thrown by a job handler when running the job again cannot succeed (bad input); the job fails without retrying
+public class UnrecoverableJobException extends RuntimeException {
+
+    public UnrecoverableJobException(String message) {
+        super(message);
+    }
+}
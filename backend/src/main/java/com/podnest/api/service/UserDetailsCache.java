@@ -0,0 +1,51 @@
+package com.podnest.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.podnest.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+@Service
+public class UserDetailsCache {
+
+    public record CachedUser(Long id, String email, long credentialVersion) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<Long, CachedUser> users;
+
+    public UserDetailsCache(UserRepository userRepository,
+            @Value("${application.security.user-cache.size:10000}") long size,
+            @Value("${application.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        // The TTL bounds how long another node can keep trusting a version bumped elsewhere
+        this.users = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public CachedUser get(Long userId) {
+        return users.get(userId, id -> userRepository.findById(id)
+                .map(user -> new CachedUser(user.getId(), user.getEmail(), user.getCredentialVersion()))
+                .orElse(null));
+    }
+
+    // True when the token was issued for the user's current email and credential version
+    public boolean isCurrent(JwtPrincipal principal) {
+        if (principal.userId() == null) {
+            return false;
+        }
+        CachedUser user = get(principal.userId());
+        return user != null
+                && user.credentialVersion() == principal.credentialVersion()
+                && user.email().equals(principal.username());
+    }
+
+    public void invalidate(Long userId) {
+        users.invalidate(userId);
+    }
+}
@@ -0,0 +1,150 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import io.github.jaredmdobson.concentus.OpusDecoder;
+import io.github.jaredmdobson.concentus.OpusException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes the Opus track of a WebM recording in the same single pass the
+ * index scan makes and folds the samples into a {@link WaveformPeaks} file
+ * next to the media. Decoding runs at 8 kHz mono: the decoder skips the
+ * upper bands entirely, which is plenty for a waveform and several times
+ * cheaper than full-rate decoding.
+ */
+@Slf4j
+@Component
+public class WaveformJobHandler implements ProcessingJobHandler {
+
+    public static final String TYPE = "WAVEFORM";
+
+    private static final int SAMPLE_RATE = 8000;
+    // 120 ms, the longest Opus packet, at the decode rate
+    private static final int MAX_FRAME_SAMPLES = SAMPLE_RATE * 120 / 1000;
+
+    private final RecordingStorage storage;
+    private final int samplesPerPeak;
+    private final int maxLevels;
+
+    public WaveformJobHandler(RecordingStorage storage,
+            @Value("${application.processing.peaks.samples-per-peak:8000}") int samplesPerPeak,
+            @Value("${application.processing.peaks.max-levels:6}") int maxLevels) {
+        this.storage = storage;
+        this.samplesPerPeak = samplesPerPeak;
+        this.maxLevels = maxLevels;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void process(ProcessingJob job, Recording recording, Path media) throws Exception {
+        if (recording.getContentType() != null && !recording.getContentType().contains("webm")) {
+            return;
+        }
+        WaveformPeaks peaks;
+        try (FileChannel channel = FileChannel.open(media, StandardOpenOption.READ)) {
+            EbmlReader reader = new EbmlReader(channel);
+            WebmRemux.Head head;
+            try {
+                head = WebmRemux.scanHead(reader);
+            } catch (IllegalArgumentException | EOFException e) {
+                log.warn("Recording {} has no readable WebM header: {}", recording.getId(), e.getMessage());
+                return;
+            }
+            WebmRemux.Track opus = head.tracks().stream()
+                    .filter(track -> "A_OPUS".equals(track.codecId()))
+                    .findFirst()
+                    .orElse(null);
+            if (opus == null) {
+                return;
+            }
+            peaks = decode(reader, head, opus, recording.getId());
+        }
+        // Readers never see a half-written file
+        Path dir = storage.recordingDir(recording.getId());
+        Path partial = dir.resolve(WaveformPeaks.FILE_NAME + ".part");
+        peaks.write(partial);
+        Files.move(partial, dir.resolve(WaveformPeaks.FILE_NAME),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private WaveformPeaks decode(EbmlReader reader, WebmRemux.Head head, WebmRemux.Track opus, Long recordingId)
+            throws Exception {
+        // Encoder priming samples at the start are not part of the audio (OpusHead pre-skip, at 48 kHz)
+        OpusPeaks visitor = new OpusPeaks(reader, opus.number(), preSkip(reader, opus) * SAMPLE_RATE / 48000,
+                new WaveformPeaks.Builder(SAMPLE_RATE, samplesPerPeak, maxLevels));
+        WebmRemux.scan(reader, head, visitor);
+        if (visitor.corrupt > 0) {
+            log.warn("Recording {}: skipped {} undecodable Opus packets", recordingId, visitor.corrupt);
+        }
+        return visitor.builder.build();
+    }
+
+    private static int preSkip(EbmlReader reader, WebmRemux.Track opus) throws IOException {
+        WebmRemux.Range codecPrivate = opus.codecPrivate();
+        if (codecPrivate == null || codecPrivate.length() < 12) {
+            return 0;
+        }
+        reader.seek(codecPrivate.start() + 10);
+        long bigEndian = reader.readUnsigned(2);
+        return (int) (((bigEndian & 0xFF) << 8) | (bigEndian >> 8));
+    }
+
+    private static final class OpusPeaks implements WebmRemux.BlockVisitor {
+        private final EbmlReader reader;
+        private final long track;
+        private final WaveformPeaks.Builder builder;
+        private final OpusDecoder decoder;
+        private final short[] pcm = new short[MAX_FRAME_SAMPLES];
+        private byte[] packet = new byte[4096];
+        private int skip;
+        private int corrupt;
+
+        OpusPeaks(EbmlReader reader, long track, int skip, WaveformPeaks.Builder builder) throws OpusException {
+            this.reader = reader;
+            this.track = track;
+            this.skip = skip;
+            this.builder = builder;
+            // The decoder downmixes stereo streams itself when asked for one channel
+            this.decoder = new OpusDecoder(SAMPLE_RATE, 1);
+        }
+
+        @Override
+        public void block(long blockTrack, long time, long dataStart, long dataEnd) throws IOException {
+            if (blockTrack != track) {
+                return;
+            }
+            int length = (int) (dataEnd - dataStart);
+            if (packet.length < length) {
+                packet = new byte[Math.max(length, packet.length * 2)];
+            }
+            reader.seek(dataStart);
+            reader.read(packet, length);
+            int samples;
+            try {
+                samples = decoder.decode(packet, 0, length, pcm, 0, MAX_FRAME_SAMPLES, false);
+            } catch (OpusException | RuntimeException e) {
+                // A damaged packet costs one frame of waveform, not the whole job
+                corrupt++;
+                return;
+            }
+            int skipped = Math.min(skip, samples);
+            skip -= skipped;
+            builder.add(pcm, skipped, samples - skipped);
+        }
+    }
+}
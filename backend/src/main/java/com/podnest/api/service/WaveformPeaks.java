@@ -0,0 +1,164 @@
+package com.podnest.api.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Min/max waveform peaks at several resolutions. Each level holds one signed
+ * byte pair (min, max) per {@code samplesPerPeak} samples, and each level is
+ * four times coarser than the one before, so a client asking for a given
+ * width gets the smallest level that still covers it.
+ */
+public record WaveformPeaks(int sampleRate, List<Level> levels) {
+
+    public static final String FILE_NAME = "peaks";
+
+    private static final int MAGIC = 0x504E504B; // "PNPK"
+    private static final int LEVEL_FACTOR = 4;
+
+    // min and max interleaved: peaks[2 * i], peaks[2 * i + 1]
+    public record Level(int samplesPerPeak, byte[] peaks) {
+        public int count() {
+            return peaks.length / 2;
+        }
+    }
+
+    // The coarsest level with at least {@code resolution} peaks, or the finest one if none has that many
+    public Level level(int resolution) {
+        Level chosen = levels.get(0);
+        for (Level level : levels) {
+            if (level.count() >= resolution) {
+                chosen = level;
+            }
+        }
+        return chosen;
+    }
+
+    public void write(Path file) throws IOException {
+        int bytes = 4 + 4 + 4;
+        for (Level level : levels) {
+            bytes += 4 + 4 + level.peaks().length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        buffer.putInt(MAGIC).putInt(sampleRate).putInt(levels.size());
+        for (Level level : levels) {
+            buffer.putInt(level.samplesPerPeak()).putInt(level.count()).put(level.peaks());
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    public static WaveformPeaks read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a peaks file: " + file);
+            }
+            int sampleRate = buffer.getInt();
+            int count = buffer.getInt();
+            List<Level> levels = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int samplesPerPeak = buffer.getInt();
+                byte[] peaks = new byte[buffer.getInt() * 2];
+                buffer.get(peaks);
+                levels.add(new Level(samplesPerPeak, peaks));
+            }
+            return new WaveformPeaks(sampleRate, List.copyOf(levels));
+        }
+    }
+
+    /** Folds decoded samples into the finest level as they arrive; memory grows with peaks, not samples. */
+    static final class Builder {
+        private final int sampleRate;
+        private final int samplesPerPeak;
+        private final int maxLevels;
+        private byte[] peaks = new byte[256];
+        private int count;
+        private int filled;
+        private int min = Short.MAX_VALUE;
+        private int max = Short.MIN_VALUE;
+
+        Builder(int sampleRate, int samplesPerPeak, int maxLevels) {
+            this.sampleRate = sampleRate;
+            this.samplesPerPeak = samplesPerPeak;
+            this.maxLevels = maxLevels;
+        }
+
+        void add(short[] samples, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                int sample = samples[i];
+                if (sample < min) {
+                    min = sample;
+                }
+                if (sample > max) {
+                    max = sample;
+                }
+                if (++filled == samplesPerPeak) {
+                    emit();
+                }
+            }
+        }
+
+        WaveformPeaks build() {
+            if (filled > 0) {
+                emit();
+            }
+            List<Level> levels = new ArrayList<>();
+            byte[] finest = new byte[count * 2];
+            System.arraycopy(peaks, 0, finest, 0, finest.length);
+            levels.add(new Level(samplesPerPeak, finest));
+            // Stop once a level is down to a handful of peaks
+            while (levels.size() < maxLevels && levels.get(levels.size() - 1).count() > LEVEL_FACTOR * 16) {
+                levels.add(coarsen(levels.get(levels.size() - 1)));
+            }
+            return new WaveformPeaks(sampleRate, List.copyOf(levels));
+        }
+
+        private void emit() {
+            if (peaks.length < (count + 1) * 2) {
+                byte[] grown = new byte[peaks.length * 2];
+                System.arraycopy(peaks, 0, grown, 0, peaks.length);
+                peaks = grown;
+            }
+            peaks[2 * count] = (byte) (min >> 8);
+            peaks[2 * count + 1] = (byte) (max >> 8);
+            count++;
+            filled = 0;
+            min = Short.MAX_VALUE;
+            max = Short.MIN_VALUE;
+        }
+
+        private static Level coarsen(Level finer) {
+            int count = (finer.count() + LEVEL_FACTOR - 1) / LEVEL_FACTOR;
+            byte[] peaks = new byte[count * 2];
+            for (int i = 0; i < count; i++) {
+                byte min = Byte.MAX_VALUE;
+                byte max = Byte.MIN_VALUE;
+                for (int j = i * LEVEL_FACTOR; j < Math.min(finer.count(), (i + 1) * LEVEL_FACTOR); j++) {
+                    min = (byte) Math.min(min, finer.peaks()[2 * j]);
+                    max = (byte) Math.max(max, finer.peaks()[2 * j + 1]);
+                }
+                peaks[2 * i] = min;
+                peaks[2 * i + 1] = max;
+            }
+            return new Level(finer.samplesPerPeak() * LEVEL_FACTOR, peaks);
+        }
+    }
+}
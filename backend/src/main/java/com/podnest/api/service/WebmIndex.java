@@ -0,0 +1,79 @@
+package com.podnest.api.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sidecar seek index of a remuxed WebM file: every cluster's byte range and
+ * start time, and the first video keyframe in it. Server-side features use
+ * it to jump to a point in the recording without scanning the file again.
+ * Times are in the file's timecode-scale ticks.
+ */
+public record WebmIndex(long timecodeScale, long durationTicks, List<Cluster> clusters) {
+
+    public static final String FILE_NAME = "index";
+
+    private static final int MAGIC = 0x504E5831; // "PNX1"
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 4;
+    private static final int CLUSTER_BYTES = 8 * 4;
+
+    // keyframe is -1 when the cluster has none
+    public record Cluster(long offset, long size, long timecode, long keyframe) {
+    }
+
+    public long durationMillis() {
+        return Math.round(durationTicks * (timecodeScale / 1_000_000.0));
+    }
+
+    public long ticksForMillis(long millis) {
+        return Math.round(millis * (1_000_000.0 / timecodeScale));
+    }
+
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + clusters.size() * CLUSTER_BYTES);
+        buffer.putInt(MAGIC).putLong(timecodeScale).putLong(durationTicks).putInt(clusters.size());
+        for (Cluster cluster : clusters) {
+            buffer.putLong(cluster.offset()).putLong(cluster.size())
+                    .putLong(cluster.timecode()).putLong(cluster.keyframe());
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    public static WebmIndex read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a recording index: " + file);
+            }
+            long timecodeScale = buffer.getLong();
+            long durationTicks = buffer.getLong();
+            int count = buffer.getInt();
+            if (buffer.remaining() != (long) count * CLUSTER_BYTES) {
+                throw new IOException("Truncated recording index: " + file);
+            }
+            List<Cluster> clusters = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                clusters.add(new Cluster(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong()));
+            }
+            return new WebmIndex(timecodeScale, durationTicks, List.copyOf(clusters));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Rewrites a browser WebM recording so it has a Duration and Cues (see
+ * {@link WebmRemux}), swaps it in for the original, writes the sidecar
+ * {@link WebmIndex} and stores the duration on the recording. Files that
+ * are not WebM, or that cannot be parsed, are left as they are.
+ */
+@Slf4j
+@Component
+public class WebmIndexJobHandler implements ProcessingJobHandler {
+
+    public static final String TYPE = "INDEX";
+
+    private final RecordingStorage storage;
+    private final RecordingRepository recordingRepository;
+    private final ProcessingJobService processingJobService;
+
+    // The job service collects every handler, so it is injected lazily to break the cycle
+    public WebmIndexJobHandler(RecordingStorage storage,
+            RecordingRepository recordingRepository,
+            @Lazy ProcessingJobService processingJobService) {
+        this.storage = storage;
+        this.recordingRepository = recordingRepository;
+        this.processingJobService = processingJobService;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void process(ProcessingJob job, Recording recording, Path media) throws Exception {
+        if (recording.getContentType() != null && !recording.getContentType().contains("webm")) {
+            return;
+        }
+        Path dir = storage.recordingDir(recording.getId());
+        Path remuxed = dir.resolve("media.remux");
+        WebmIndex index;
+        try (FileChannel in = FileChannel.open(media, StandardOpenOption.READ)) {
+            WebmRemux.Layout layout;
+            try {
+                layout = WebmRemux.scan(in);
+            } catch (IllegalArgumentException | EOFException e) {
+                log.warn("Recording {} is not indexable WebM: {}", recording.getId(), e.getMessage());
+                return;
+            }
+            if (layout.clusters().isEmpty()) {
+                return;
+            }
+            try (FileChannel out = FileChannel.open(remuxed, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                index = WebmRemux.write(in, layout.head(), layout.clusters(), 0, out);
+                out.force(true);
+            }
+        }
+        // A retry after a crash here just rescans the already rewritten file
+        Files.move(remuxed, media, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index.write(dir.resolve(WebmIndex.FILE_NAME));
+
+        long durationMs = index.durationMillis();
+        recordingRepository.updateMediaInfo(recording.getId(), Files.size(media), durationMs, format(durationMs));
+        // Any checksum taken so far was of the old bytes
+        recordingRepository.updateChecksum(recording.getId(), null);
+        processingJobService.enqueue(recording.getId(), ChecksumJobHandler.TYPE, null);
+    }
+
+    // Same "HH:MM:SS" form the studio sends when it saves a recording
+    static String format(long durationMs) {
+        long seconds = durationMs / 1000;
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
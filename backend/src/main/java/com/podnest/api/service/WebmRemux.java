@@ -0,0 +1,549 @@
+package com.podnest.api.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Makes MediaRecorder WebM seekable. The browser writes a live stream: the
+ * Segment and its clusters have unknown sizes, Info has no Duration and
+ * there are no Cues, so players cannot seek without reading the whole file.
+ *
+ * {@link #scan} walks the file once, reading only element headers and the
+ * first bytes of each block. {@link #write} then lays out a new Segment with
+ * a SeekHead, Info with the real Duration, the original Tracks, every
+ * cluster with a known size, and Cues at the end. Cluster payloads are
+ * copied channel to channel, so memory use does not depend on file size.
+ */
+final class WebmRemux {
+
+    static final long EBML = 0x1A45DFA3L;
+    static final long SEGMENT = 0x18538067L;
+    static final long SEEK_HEAD = 0x114D9B74L;
+    static final long INFO = 0x1549A966L;
+    static final long TRACKS = 0x1654AE6BL;
+    static final long CLUSTER = 0x1F43B675L;
+    static final long CUES = 0x1C53BB6BL;
+    static final long CHAPTERS = 0x1043A770L;
+    static final long TAGS = 0x1254C367L;
+    static final long ATTACHMENTS = 0x1941A469L;
+    static final long TIMECODE_SCALE = 0x2AD7B1L;
+    static final long DURATION = 0x4489L;
+    static final long TRACK_ENTRY = 0xAEL;
+    static final long TRACK_NUMBER = 0xD7L;
+    static final long TRACK_TYPE = 0x83L;
+    static final long CODEC_ID = 0x86L;
+    static final long CODEC_PRIVATE = 0x63A2L;
+    static final long CLUSTER_TIMECODE = 0xE7L;
+    static final long SIMPLE_BLOCK = 0xA3L;
+    static final long BLOCK_GROUP = 0xA0L;
+    static final long BLOCK = 0xA1L;
+    static final long REFERENCE_BLOCK = 0xFBL;
+    static final long VOID = 0xECL;
+    static final long CRC32 = 0xBFL;
+    static final long SEEK = 0x4DBBL;
+    static final long SEEK_ID = 0x53ABL;
+    static final long SEEK_POSITION = 0x53ACL;
+    static final long CUE_POINT = 0xBBL;
+    static final long CUE_TIME = 0xB3L;
+    static final long CUE_TRACK_POSITIONS = 0xB7L;
+    static final long CUE_TRACK = 0xF7L;
+    static final long CUE_CLUSTER_POSITION = 0xF1L;
+
+    static final int TRACK_TYPE_VIDEO = 1;
+
+    // Fixed layout: three Seek entries, each a 4-byte id and an 8-byte position
+    private static final int SEEK_ENTRY_BYTES = 2 + 1 + (2 + 1 + 4) + (2 + 1 + 8);
+    private static final int SEEK_HEAD_BYTES = 4 + 1 + 3 * SEEK_ENTRY_BYTES;
+    private static final int SIZED_HEADER_BYTES = 4 + 8;
+    private static final int UINT_ELEMENT_BYTES = 1 + 1 + 8;
+    private static final int DURATION_BYTES = 2 + 1 + 8;
+    private static final int CUE_POINT_BYTES = 1 + 1 + UINT_ELEMENT_BYTES + 1 + 1 + 2 * UINT_ELEMENT_BYTES;
+
+    // [start, end) in the source file
+    record Range(long start, long end) {
+        long length() {
+            return end - start;
+        }
+    }
+
+    record Track(long number, int type, String codecId, Range codecPrivate) {
+    }
+
+    /** Everything in front of the first cluster that the rewrite keeps. */
+    record Head(long ebmlHeaderEnd, long segmentEnd, long timecodeScale, List<Range> infoChildren,
+            Range tracksElement, List<Track> tracks, List<Range> extras, long firstCluster) {
+
+        // Cues point at video keyframes; an audio-only file can start anywhere
+        Set<Long> cueTracks() {
+            Set<Long> video = new HashSet<>();
+            Set<Long> all = new HashSet<>();
+            for (Track track : tracks) {
+                all.add(track.number());
+                if (track.type() == TRACK_TYPE_VIDEO) {
+                    video.add(track.number());
+                }
+            }
+            return video.isEmpty() ? all : video;
+        }
+    }
+
+    /**
+     * One cluster. {@code next} is where the following element starts, which
+     * for an unknown-size cluster is only found by reading it. Times are
+     * absolute ticks; keyframe is -1 when the cluster has none.
+     */
+    record Cluster(long start, Range body, Range timecodeElement, long timecode, long keyframe,
+            long lastBlock, long next) {
+    }
+
+    record Layout(Head head, List<Cluster> clusters) {
+    }
+
+    /**
+     * Sees every unlaced block as the scan passes it. The payload is
+     * [dataStart, dataEnd); the reader may be moved, the scan seeks back.
+     */
+    interface BlockVisitor {
+        void block(long track, long time, long dataStart, long dataEnd) throws IOException;
+    }
+
+    private WebmRemux() {
+    }
+
+    /**
+     * Scans a whole file. A truncated tail (a tab that crashed mid-cluster)
+     * is cut at the last complete element. Throws IllegalArgumentException
+     * when the file is not WebM at all.
+     */
+    static Layout scan(FileChannel channel) throws IOException {
+        EbmlReader reader = new EbmlReader(channel);
+        return scan(reader, scanHead(reader), null);
+    }
+
+    // The same single pass, also handing each block to the visitor (which may be null)
+    static Layout scan(EbmlReader reader, Head head, BlockVisitor visitor) throws IOException {
+        Set<Long> cueTracks = head.cueTracks();
+        List<Cluster> clusters = new ArrayList<>();
+        long position = head.firstCluster();
+        while (position >= 0 && position < head.segmentEnd()) {
+            reader.seek(position);
+            long id;
+            long size;
+            try {
+                id = reader.readId();
+                size = reader.readSize();
+            } catch (EOFException e) {
+                break;
+            }
+            if (id == CLUSTER) {
+                Cluster cluster = readCluster(reader, position, size, head.segmentEnd(), cueTracks, visitor);
+                if (cluster == null) {
+                    break;
+                }
+                clusters.add(cluster);
+                position = cluster.next();
+            } else if (isSegmentChild(id) && size != EbmlReader.UNKNOWN_SIZE) {
+                // Cues or tags left behind by an earlier writer; ours replace them
+                position = reader.position() + size;
+            } else {
+                break;
+            }
+        }
+        return new Layout(head, clusters);
+    }
+
+    // Reads up to the first cluster only, which is cheap however large the file is
+    static Head scanHead(EbmlReader reader) throws IOException {
+        reader.seek(0);
+        if (reader.readId() != EBML) {
+            throw new IllegalArgumentException("Not an EBML file");
+        }
+        long headerSize = reader.readSize();
+        if (headerSize == EbmlReader.UNKNOWN_SIZE) {
+            throw new IllegalArgumentException("EBML header has no size");
+        }
+        long ebmlHeaderEnd = reader.position() + headerSize;
+        reader.seek(ebmlHeaderEnd);
+        if (reader.readId() != SEGMENT) {
+            throw new IllegalArgumentException("No Segment after the EBML header");
+        }
+        long segmentSize = reader.readSize();
+        long segmentEnd = segmentSize == EbmlReader.UNKNOWN_SIZE
+                ? reader.length()
+                : Math.min(reader.length(), reader.position() + segmentSize);
+
+        long timecodeScale = 1_000_000;
+        List<Range> infoChildren = new ArrayList<>();
+        Range tracksElement = null;
+        List<Track> tracks = new ArrayList<>();
+        List<Range> extras = new ArrayList<>();
+        long firstCluster = -1;
+
+        while (reader.position() < segmentEnd) {
+            long start = reader.position();
+            long id = reader.readId();
+            if (id < 0) {
+                break;
+            }
+            long size = reader.readSize();
+            if (id == CLUSTER) {
+                firstCluster = start;
+                break;
+            }
+            if (size == EbmlReader.UNKNOWN_SIZE) {
+                throw new IllegalArgumentException("Unsized element before the first cluster");
+            }
+            long end = reader.position() + size;
+            if (end > segmentEnd) {
+                throw new IllegalArgumentException("File ends inside its header");
+            }
+            if (id == INFO) {
+                while (reader.position() < end) {
+                    long childStart = reader.position();
+                    long childId = reader.readId();
+                    long childSize = reader.readSize();
+                    long childEnd = reader.position() + childSize;
+                    if (childId == TIMECODE_SCALE) {
+                        timecodeScale = reader.readUnsigned((int) childSize);
+                    }
+                    // Duration is rewritten; a CRC would no longer match the new body
+                    if (childId != DURATION && childId != VOID && childId != CRC32) {
+                        infoChildren.add(new Range(childStart, childEnd));
+                    }
+                    reader.seek(childEnd);
+                }
+            } else if (id == TRACKS) {
+                tracksElement = new Range(start, end);
+                while (reader.position() < end) {
+                    long entryId = reader.readId();
+                    long entryEnd = reader.readSize() + reader.position();
+                    if (entryId == TRACK_ENTRY) {
+                        tracks.add(readTrack(reader, entryEnd));
+                    }
+                    reader.seek(entryEnd);
+                }
+            } else if (id != SEEK_HEAD && id != CUES && id != VOID && id != CRC32) {
+                extras.add(new Range(start, end));
+            }
+            reader.seek(end);
+        }
+        if (tracksElement == null || tracks.isEmpty()) {
+            throw new IllegalArgumentException("No tracks");
+        }
+        return new Head(ebmlHeaderEnd, segmentEnd, timecodeScale, infoChildren, tracksElement,
+                tracks, extras, firstCluster);
+    }
+
+    /**
+     * Reads one cluster whose id and size have just been consumed. Returns
+     * null when nothing usable is left (no timecode, or cut off before it).
+     */
+    static Cluster readCluster(EbmlReader reader, long start, long size, long segmentEnd,
+            Set<Long> cueTracks, BlockVisitor visitor) throws IOException {
+        long bodyStart = reader.position();
+        long end = size == EbmlReader.UNKNOWN_SIZE ? segmentEnd : Math.min(segmentEnd, bodyStart + size);
+        long bodyEnd = bodyStart;
+        long timecode = -1;
+        Range timecodeElement = null;
+        long keyframe = -1;
+        long lastBlock = -1;
+
+        while (reader.position() < end) {
+            long childStart = reader.position();
+            long id;
+            long childSize;
+            try {
+                id = reader.readId();
+                childSize = reader.readSize();
+            } catch (EOFException e) {
+                break;
+            }
+            // In an unknown-size cluster, the next cluster (or Cues) is what ends it
+            if (id < 0 || isSegmentChild(id) || childSize == EbmlReader.UNKNOWN_SIZE) {
+                break;
+            }
+            long childEnd = reader.position() + childSize;
+            if (childEnd > end) {
+                break;
+            }
+            if (id == CLUSTER_TIMECODE) {
+                timecode = reader.readUnsigned((int) childSize);
+                timecodeElement = new Range(childStart, childEnd);
+            } else if ((id == SIMPLE_BLOCK || id == BLOCK_GROUP) && timecode >= 0) {
+                long[] block = id == SIMPLE_BLOCK
+                        ? readBlock(reader, childEnd, true)
+                        : readBlockGroup(reader, childEnd);
+                if (block != null) {
+                    long time = timecode + block[1];
+                    if (visitor != null && block[3] == 0) {
+                        visitor.block(block[0], time, block[4], block[5]);
+                    }
+                    lastBlock = Math.max(lastBlock, time);
+                    if (keyframe < 0 && block[2] == 1 && cueTracks.contains(block[0])) {
+                        keyframe = time;
+                    }
+                }
+            }
+            reader.seek(childEnd);
+            bodyEnd = childEnd;
+        }
+        if (timecodeElement == null) {
+            return null;
+        }
+        return new Cluster(start, new Range(bodyStart, bodyEnd), timecodeElement, timecode, keyframe,
+                Math.max(lastBlock, timecode), bodyEnd);
+    }
+
+    /**
+     * Writes the seekable file to {@code out} and returns its index.
+     * {@code clusters} may be any run of the scanned clusters; every cluster
+     * time is moved back by {@code shift} ticks so the output starts near zero.
+     */
+    static WebmIndex write(FileChannel in, Head head, List<Cluster> clusters, long shift, FileChannel out)
+            throws IOException {
+        long infoBody = DURATION_BYTES;
+        for (Range child : head.infoChildren()) {
+            infoBody += child.length();
+        }
+        long extrasBytes = 0;
+        for (Range extra : head.extras()) {
+            extrasBytes += extra.length();
+        }
+
+        // Positions below are relative to the start of the Segment's data, as SeekHead and Cues expect
+        long infoPosition = SEEK_HEAD_BYTES;
+        long tracksPosition = infoPosition + SIZED_HEADER_BYTES + infoBody;
+        long position = tracksPosition + head.tracksElement().length() + extrasBytes;
+        long[] clusterPositions = new long[clusters.size()];
+        long lastBlock = 0;
+        int cuePoints = 0;
+        boolean anyKeyframe = clusters.stream().anyMatch(cluster -> cluster.keyframe() >= 0);
+        for (int i = 0; i < clusters.size(); i++) {
+            Cluster cluster = clusters.get(i);
+            clusterPositions[i] = position;
+            position += SIZED_HEADER_BYTES + clusterBody(cluster);
+            lastBlock = Math.max(lastBlock, cluster.lastBlock() - shift);
+            if (!anyKeyframe || cluster.keyframe() >= 0) {
+                cuePoints++;
+            }
+        }
+        long cuesPosition = position;
+        long segmentSize = cuesPosition + SIZED_HEADER_BYTES + (long) cuePoints * CUE_POINT_BYTES;
+
+        Writer writer = new Writer(in, out);
+        writer.copy(new Range(0, head.ebmlHeaderEnd()));
+        writer.sized(SEGMENT, segmentSize);
+        long segmentData = writer.position();
+
+        writer.id(SEEK_HEAD).put((byte) (0x80 | 3 * SEEK_ENTRY_BYTES));
+        writer.seek(INFO, infoPosition).seek(TRACKS, tracksPosition).seek(CUES, cuesPosition);
+
+        writer.sized(INFO, infoBody);
+        for (Range child : head.infoChildren()) {
+            writer.copy(child);
+        }
+        writer.id(DURATION).put((byte) 0x88).putDouble(lastBlock);
+
+        writer.copy(head.tracksElement());
+        for (Range extra : head.extras()) {
+            writer.copy(extra);
+        }
+
+        List<WebmIndex.Cluster> indexed = new ArrayList<>(clusters.size());
+        for (int i = 0; i < clusters.size(); i++) {
+            Cluster cluster = clusters.get(i);
+            long body = clusterBody(cluster);
+            writer.sized(CLUSTER, body);
+            writer.copy(new Range(cluster.body().start(), cluster.timecodeElement().start()));
+            writer.uint(CLUSTER_TIMECODE, cluster.timecode() - shift);
+            writer.copy(new Range(cluster.timecodeElement().end(), cluster.body().end()));
+            indexed.add(new WebmIndex.Cluster(segmentData + clusterPositions[i], SIZED_HEADER_BYTES + body,
+                    cluster.timecode() - shift, cluster.keyframe() >= 0 ? cluster.keyframe() - shift : -1));
+        }
+
+        long cueTrack = head.cueTracks().stream().mapToLong(Long::longValue).min().orElse(1);
+        writer.sized(CUES, (long) cuePoints * CUE_POINT_BYTES);
+        for (int i = 0; i < clusters.size(); i++) {
+            Cluster cluster = clusters.get(i);
+            if (anyKeyframe && cluster.keyframe() < 0) {
+                continue;
+            }
+            long time = (anyKeyframe ? cluster.keyframe() : cluster.timecode()) - shift;
+            writer.id(CUE_POINT).put((byte) (0x80 | (CUE_POINT_BYTES - 2)));
+            writer.uint(CUE_TIME, time);
+            writer.id(CUE_TRACK_POSITIONS).put((byte) (0x80 | 2 * UINT_ELEMENT_BYTES));
+            writer.uint(CUE_TRACK, cueTrack);
+            writer.uint(CUE_CLUSTER_POSITION, clusterPositions[i]);
+        }
+        writer.flush();
+
+        return new WebmIndex(head.timecodeScale(), lastBlock, List.copyOf(indexed));
+    }
+
+    // The Timecode child is always rewritten as an 8-byte integer
+    private static long clusterBody(Cluster cluster) {
+        return cluster.body().length() - cluster.timecodeElement().length() + UINT_ELEMENT_BYTES;
+    }
+
+    private static Track readTrack(EbmlReader reader, long end) throws IOException {
+        long number = 0;
+        int type = 0;
+        String codecId = "";
+        Range codecPrivate = null;
+        while (reader.position() < end) {
+            long start = reader.position();
+            long id = reader.readId();
+            long size = reader.readSize();
+            long childEnd = reader.position() + size;
+            if (id == TRACK_NUMBER) {
+                number = reader.readUnsigned((int) size);
+            } else if (id == TRACK_TYPE) {
+                type = (int) reader.readUnsigned((int) size);
+            } else if (id == CODEC_ID) {
+                codecId = reader.readString((int) size);
+            } else if (id == CODEC_PRIVATE) {
+                codecPrivate = new Range(childEnd - size, childEnd);
+            }
+            reader.seek(childEnd);
+        }
+        return new Track(number, type, codecId, codecPrivate);
+    }
+
+    // {track, relative time, keyframe ? 1 : 0, lacing, data start, data end},
+    // or null when the block is too short to hold a header
+    private static long[] readBlock(EbmlReader reader, long end, boolean simple) throws IOException {
+        if (end - reader.position() < 4) {
+            return null;
+        }
+        long track = reader.readVint();
+        long relative = (short) reader.readUnsigned(2);
+        int flags = (int) reader.readUnsigned(1);
+        return new long[] { track, relative, simple && (flags & 0x80) != 0 ? 1 : 0, (flags >> 1) & 3,
+                reader.position(), end };
+    }
+
+    // A Block in a group is a keyframe unless the group references another frame
+    private static long[] readBlockGroup(EbmlReader reader, long end) throws IOException {
+        long[] block = null;
+        boolean referencesOther = false;
+        while (reader.position() < end) {
+            long id = reader.readId();
+            long childEnd = reader.readSize() + reader.position();
+            if (id == BLOCK) {
+                block = readBlock(reader, childEnd, false);
+            } else if (id == REFERENCE_BLOCK) {
+                referencesOther = true;
+            }
+            reader.seek(childEnd);
+        }
+        if (block != null && !referencesOther) {
+            block[2] = 1;
+        }
+        return block;
+    }
+
+    private static boolean isSegmentChild(long id) {
+        return id == CLUSTER || id == CUES || id == SEEK_HEAD || id == INFO || id == TRACKS
+                || id == CHAPTERS || id == TAGS || id == ATTACHMENTS || id == SEGMENT || id == EBML;
+    }
+
+    /** Buffers element headers and hands payload ranges to the kernel with transferTo. */
+    private static final class Writer {
+        private final FileChannel in;
+        private final FileChannel out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long flushed;
+
+        Writer(FileChannel in, FileChannel out) throws IOException {
+            this.in = in;
+            this.out = out;
+            this.flushed = out.position();
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        Writer put(byte b) throws IOException {
+            room(1);
+            buffer.put(b);
+            return this;
+        }
+
+        Writer putDouble(double value) throws IOException {
+            room(8);
+            buffer.putDouble(value);
+            return this;
+        }
+
+        Writer id(long id) throws IOException {
+            int width = id > 0xFFFFFF ? 4 : id > 0xFFFF ? 3 : id > 0xFF ? 2 : 1;
+            room(width);
+            for (int i = width - 1; i >= 0; i--) {
+                buffer.put((byte) (id >>> (8 * i)));
+            }
+            return this;
+        }
+
+        // Element header with an 8-byte size, so sizes never change the layout
+        Writer sized(long id, long size) throws IOException {
+            id(id);
+            room(8);
+            buffer.put((byte) 0x01);
+            for (int i = 6; i >= 0; i--) {
+                buffer.put((byte) (size >>> (8 * i)));
+            }
+            return this;
+        }
+
+        Writer uint(long id, long value) throws IOException {
+            id(id);
+            room(9);
+            buffer.put((byte) 0x88).putLong(value);
+            return this;
+        }
+
+        Writer seek(long target, long position) throws IOException {
+            id(SEEK).put((byte) (0x80 | (SEEK_ENTRY_BYTES - 3)));
+            id(SEEK_ID).put((byte) 0x84);
+            room(4);
+            buffer.putInt((int) target);
+            return uint(SEEK_POSITION, position);
+        }
+
+        void copy(Range range) throws IOException {
+            flush();
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long n = in.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    throw new EOFException("Source ended at offset " + position);
+                }
+                position += n;
+                remaining -= n;
+            }
+            flushed += range.length();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += out.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void room(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.podnest.api.config;
+
+import com.podnest.api.repository.UserRepository;
+import com.podnest.api.service.CurrentUser;
+import com.podnest.api.service.CurrentUserService;
+import com.podnest.api.service.JwtPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class CurrentUserArgumentResolverTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CurrentUserService currentUserService = new CurrentUserService(userRepository);
+    private final CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver(currentUserService);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void onlyCurrentUserParametersAreResolved() throws Exception {
+        Method handler = getClass().getDeclaredMethod("handler", CurrentUser.class, String.class);
+
+        assertThat(resolver.supportsParameter(new MethodParameter(handler, 0))).isTrue();
+        assertThat(resolver.supportsParameter(new MethodParameter(handler, 1))).isFalse();
+    }
+
+    @Test
+    void controllerAndServicesShareOneCallerPerRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        JwtPrincipal principal = new JwtPrincipal("token", "host@podnest.test", 42L, 0,
+                Instant.now(), Instant.now().plusSeconds(60));
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, List.of()));
+        MethodParameter parameter = new MethodParameter(
+                getClass().getDeclaredMethod("handler", CurrentUser.class, String.class), 0);
+
+        Object argument = resolver.resolveArgument(parameter, null, new ServletWebRequest(request), null);
+
+        assertThat(argument).isSameAs(currentUserService.get());
+        assertThat(((CurrentUser) argument).getId()).isEqualTo(42L);
+        verifyNoInteractions(userRepository);
+    }
+
+    @SuppressWarnings("unused")
+    private void handler(CurrentUser currentUser, String other) {
+    }
+}
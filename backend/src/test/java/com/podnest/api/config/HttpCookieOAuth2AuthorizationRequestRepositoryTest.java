@@ -0,0 +1,118 @@
+package com.podnest.api.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.endpoint.PkceParameterNames;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpCookieOAuth2AuthorizationRequestRepositoryTest {
+
+    private static final String SECRET = "oauth2-cookie-secret-for-tests-0123456789";
+
+    private final HttpCookieOAuth2AuthorizationRequestRepository repository =
+            new HttpCookieOAuth2AuthorizationRequestRepository(SECRET, true, List.of("http://localhost:5173"));
+
+    @Test
+    void onlyStatelessModeNeedsTheCookieSecret() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withUserConfiguration(HttpCookieOAuth2AuthorizationRequestRepository.class);
+
+        // Session mode keeps the request in the HttpSession; starting without a secret is fine
+        runner.withPropertyValues("application.security.stateless=false")
+                .run(context -> assertThat(context).hasNotFailed()
+                        .doesNotHaveBean(HttpCookieOAuth2AuthorizationRequestRepository.class));
+        runner.run(context -> assertThat(context).hasNotFailed()
+                .doesNotHaveBean(HttpCookieOAuth2AuthorizationRequestRepository.class));
+        runner.withPropertyValues("application.security.stateless=true")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("application.security.stateless=true",
+                        "application.security.oauth2.cookie-secret=" + SECRET)
+                .run(context -> assertThat(context).hasSingleBean(HttpCookieOAuth2AuthorizationRequestRepository.class));
+    }
+
+    @Test
+    void roundTripsTheAuthorizationRequestThroughTheCookie() {
+        OAuth2AuthorizationRequest original = authorizationRequest();
+
+        OAuth2AuthorizationRequest loaded = repository.loadAuthorizationRequest(requestWith(save(original)));
+
+        assertThat(loaded).isNotNull();
+        assertThat(loaded.getState()).isEqualTo(original.getState());
+        assertThat(loaded.getClientId()).isEqualTo("client");
+        assertThat(loaded.getRedirectUri()).isEqualTo(original.getRedirectUri());
+        assertThat(loaded.getScopes()).containsExactlyInAnyOrder("profile", "email");
+        assertThat(loaded.getAuthorizationRequestUri()).isEqualTo(original.getAuthorizationRequestUri());
+        assertThat(loaded.<String>getAttribute(OAuth2ParameterNames.REGISTRATION_ID)).isEqualTo("google");
+        assertThat(loaded.<String>getAttribute(PkceParameterNames.CODE_VERIFIER)).isEqualTo("verifier");
+        assertThat(loaded.getAdditionalParameters()).containsEntry("nonce", "n-1");
+    }
+
+    @Test
+    void rejectsCookieSignedWithAnotherSecret() {
+        HttpCookieOAuth2AuthorizationRequestRepository other = new HttpCookieOAuth2AuthorizationRequestRepository(
+                "another-cookie-secret-for-tests-9876543210", true, List.of());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        other.saveAuthorizationRequest(authorizationRequest(), new MockHttpServletRequest(), response);
+
+        assertThat(repository.loadAuthorizationRequest(requestWith(cookieValue(response)))).isNull();
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String value = save(authorizationRequest());
+        String tampered = "A" + value.substring(1);
+
+        assertThat(repository.loadAuthorizationRequest(requestWith(tampered))).isNull();
+    }
+
+    @Test
+    void refusesToStartWithoutADedicatedSecret() {
+        assertThatThrownBy(() -> new HttpCookieOAuth2AuthorizationRequestRepository("", false, List.of()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new HttpCookieOAuth2AuthorizationRequestRepository("short", false, List.of()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private String save(OAuth2AuthorizationRequest authorizationRequest) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        repository.saveAuthorizationRequest(authorizationRequest, new MockHttpServletRequest(), response);
+        return cookieValue(response);
+    }
+
+    private static String cookieValue(MockHttpServletResponse response) {
+        String header = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertThat(header).startsWith(HttpCookieOAuth2AuthorizationRequestRepository.AUTHORIZATION_REQUEST_COOKIE + "=");
+        return header.substring(header.indexOf('=') + 1, header.indexOf(';'));
+    }
+
+    private static MockHttpServletRequest requestWith(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(HttpCookieOAuth2AuthorizationRequestRepository.AUTHORIZATION_REQUEST_COOKIE, value));
+        return request;
+    }
+
+    private static OAuth2AuthorizationRequest authorizationRequest() {
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+                .clientId("client")
+                .redirectUri("http://localhost:8080/login/oauth2/code/google")
+                .scopes(Set.of("profile", "email"))
+                .state("state-123")
+                .additionalParameters(Map.of("nonce", "n-1"))
+                .attributes(Map.of(OAuth2ParameterNames.REGISTRATION_ID, "google",
+                        PkceParameterNames.CODE_VERIFIER, "verifier"))
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.podnest.api.config;
+
+import com.podnest.api.controller.UserController;
+import com.podnest.api.dto.ChangePasswordRequest;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.UserRepository;
+import com.podnest.api.service.AuthenticationService;
+import com.podnest.api.service.CurrentUserService;
+import com.podnest.api.service.JwtPrincipal;
+import com.podnest.api.service.JwtService;
+import com.podnest.api.service.PasswordHashingService;
+import com.podnest.api.service.RefreshTokenService;
+import com.podnest.api.service.TokenDenylist;
+import com.podnest.api.service.UserDetailsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs requests through the filter with the real token, user-cache and
+ * denylist services; only the repository and password hashing are mocked.
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final String KEY = "c2lnbmluZy1rZXktZm9yLWp3dC1zZXJ2aWNlLXRlc3RzLW9ubHktMzJieXRlcyE=";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashingService hashing = mock(PasswordHashingService.class);
+    private final TokenDenylist tokenDenylist = new TokenDenylist(1_000, 0.01);
+    private JwtService jwtService;
+    private UserDetailsCache userDetailsCache;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", KEY);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 100L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        userDetailsCache = new UserDetailsCache(userRepository, 100, 300);
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsCache, tokenDenylist);
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("host@podnest.test");
+        user.setPassword("$2a$04$old");
+        user.setCredentialVersion(3);
+        when(userRepository.findById(42L)).thenAnswer(invocation -> Optional.of(copy(user)));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void requestAuthenticatesFromClaimsWithoutLoadingTheUser() throws Exception {
+        String token = jwtService.generateToken(user);
+        // The first request fills the user cache
+        assertThat(authenticate(token)).isNotNull();
+        clearInvocations(userRepository);
+
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication.getPrincipal()).isInstanceOfSatisfying(JwtPrincipal.class, principal -> {
+            assertThat(principal.userId()).isEqualTo(42L);
+            assertThat(principal.username()).isEqualTo("host@podnest.test");
+        });
+        assertThat(new CurrentUserService(userRepository).get().getId()).isEqualTo(42L);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void passwordChangeRejectsTokensIssuedBeforeIt() throws Exception {
+        String oldToken = jwtService.generateToken(user);
+        assertThat(authenticate(oldToken)).isNotNull();
+        when(hashing.matches("secret", "$2a$04$old")).thenReturn(CompletableFuture.completedFuture(true));
+        when(hashing.encode("changed")).thenReturn(CompletableFuture.completedFuture("$2a$04$new"));
+        AuthenticationService authenticationService = new AuthenticationService(userRepository, hashing, jwtService,
+                userDetailsCache, mock(RefreshTokenService.class), tokenDenylist, 1);
+        String newToken;
+        try {
+            newToken = authenticationService.changePassword(user, new ChangePasswordRequest("secret", "changed"))
+                    .join().getToken();
+        } finally {
+            ReflectionTestUtils.invokeMethod(authenticationService, "shutdown");
+        }
+
+        // The cached version 3 was evicted, so the old token is refused right away
+        assertThat(user.getCredentialVersion()).isEqualTo(4);
+        assertThat(authenticate(oldToken)).isNull();
+        assertThat(authenticate(newToken)).isNotNull();
+    }
+
+    @Test
+    void profileUpdateEvictsTheCachedUser() throws Exception {
+        String token = jwtService.generateToken(user);
+        authenticate(token);
+        UserController controller = new UserController(userRepository, userDetailsCache,
+                mock(AuthenticationService.class));
+
+        controller.updateProfile(new CurrentUserService(userRepository).get(), Map.of("fullName", "Host"));
+        // Bumped elsewhere, e.g. by a password change on another node
+        user.setCredentialVersion(4);
+
+        assertThat(authenticate(token)).isNull();
+        verify(userRepository, times(3)).findById(42L);
+    }
+
+    @Test
+    void deniedTokenIsNotAuthenticated() throws Exception {
+        String token = jwtService.generateToken(user);
+        JwtPrincipal principal = jwtService.verify(token).orElseThrow();
+
+        tokenDenylist.deny(principal.tokenId(), principal.expiresAt());
+
+        assertThat(authenticate(token)).isNull();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setCredentialVersion(user.getCredentialVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,49 @@
+package com.podnest.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ManagementSecurityConfigurationTest {
+
+    @Test
+    void operatorCredentialGrantsTheOperatorAuthority() {
+        AuthenticationManager manager = ManagementSecurityConfiguration.operatorAuthentication("operator", "s3cret");
+
+        Authentication result = manager.authenticate(basic("operator", "s3cret"));
+
+        assertThat(result.isAuthenticated()).isTrue();
+        assertThat(result.getName()).isEqualTo("operator");
+        assertThat(result.getCredentials()).isNull();
+        assertThat(result.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly(ManagementSecurityConfiguration.OPERATOR_AUTHORITY);
+    }
+
+    @Test
+    void wrongUserOrPasswordIsRejected() {
+        AuthenticationManager manager = ManagementSecurityConfiguration.operatorAuthentication("operator", "s3cret");
+
+        assertThatThrownBy(() -> manager.authenticate(basic("operator", "s3cre")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> manager.authenticate(basic("host@podnest.test", "s3cret")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void withoutAPasswordNobodyGetsIn() {
+        AuthenticationManager manager = ManagementSecurityConfiguration.operatorAuthentication("operator", "");
+
+        assertThatThrownBy(() -> manager.authenticate(basic("operator", "")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    private static Authentication basic(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
@@ -0,0 +1,51 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.StudioPresenceRegistry;
+import com.podnest.api.service.StudioPresenceRegistry.RoomPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PresenceChannelInterceptorTest {
+
+    private final StudioPresenceRegistry registry = new StudioPresenceRegistry();
+    private final PresenceChannelInterceptor interceptor = new PresenceChannelInterceptor(registry);
+
+    @BeforeEach
+    void setUp() {
+        registry.join("1", "alice", null, "Alice", new RoomPolicy(7L, 4, false, false), 0);
+    }
+
+    @Test
+    void heartbeatKeepsTheParticipantFresh() throws Exception {
+        long joinedAt = registry.get("alice").getLastSeen();
+        Thread.sleep(5);
+
+        interceptor.preSend(message(SimpMessageType.HEARTBEAT, "alice"), mock(MessageChannel.class));
+
+        assertThat(registry.get("alice").getLastSeen()).isGreaterThan(joinedAt);
+        assertThat(registry.findIdle(1_000)).isEmpty();
+    }
+
+    @Test
+    void onlyAnExplicitDisconnectMarksTheParticipantAsLeaving() {
+        interceptor.preSend(message(SimpMessageType.MESSAGE, "alice"), mock(MessageChannel.class));
+        assertThat(registry.get("alice").isLeaving()).isFalse();
+
+        interceptor.preSend(message(SimpMessageType.DISCONNECT, "alice"), mock(MessageChannel.class));
+        assertThat(registry.get("alice").isLeaving()).isTrue();
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
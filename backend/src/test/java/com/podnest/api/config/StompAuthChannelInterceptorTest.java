@@ -0,0 +1,112 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.JwtPrincipal;
+import com.podnest.api.service.JwtService;
+import com.podnest.api.service.TokenDenylist;
+import com.podnest.api.service.UserDetailsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StompAuthChannelInterceptorTest {
+
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+    private final TokenDenylist tokenDenylist = mock(TokenDenylist.class);
+    private final StompAuthChannelInterceptor interceptor =
+            new StompAuthChannelInterceptor(jwtService, userDetailsCache, tokenDenylist);
+    private final JwtPrincipal principal = new JwtPrincipal("jti-1", "host@podnest.test", 7L, 1,
+            Instant.now(), Instant.now().plusSeconds(60));
+
+    @BeforeEach
+    void setUp() {
+        when(jwtService.verify(anyString())).thenReturn(Optional.empty());
+        when(jwtService.verify("good")).thenReturn(Optional.of(principal));
+        when(userDetailsCache.isCurrent(principal)).thenReturn(true);
+    }
+
+    @Test
+    void validBearerTokenBecomesTheSessionPrincipal() {
+        StompHeaderAccessor accessor = connect("Bearer good", null);
+
+        interceptor.preSend(message(accessor), mock(MessageChannel.class));
+
+        assertThat(accessor.getUser()).isInstanceOfSatisfying(Authentication.class,
+                user -> assertThat(user.getPrincipal()).isEqualTo(principal));
+    }
+
+    @Test
+    void guestConnectsWithTheInviteCodeAlone() {
+        StompHeaderAccessor accessor = connect(null, "  abc123 ");
+
+        interceptor.preSend(message(accessor), mock(MessageChannel.class));
+
+        assertThat(accessor.getUser()).isNull();
+        assertThat(accessor.getSessionAttributes())
+                .containsEntry(StompAuthChannelInterceptor.INVITE_CODE_ATTRIBUTE, "abc123");
+    }
+
+    @Test
+    void connectWithNeitherTokenNorInviteCodeIsRefused() {
+        assertThatThrownBy(() -> interceptor.preSend(message(connect(null, " ")), mock(MessageChannel.class)))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(message(connect("Bearer forged", null)), mock(MessageChannel.class)))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void revokedOrOutdatedTokenIsNotAccepted() {
+        when(tokenDenylist.isDenied("jti-1")).thenReturn(true);
+        assertThatThrownBy(() -> interceptor.preSend(message(connect("Bearer good", null)), mock(MessageChannel.class)))
+                .isInstanceOf(AccessDeniedException.class);
+
+        when(tokenDenylist.isDenied("jti-1")).thenReturn(false);
+        when(userDetailsCache.isCurrent(principal)).thenReturn(false);
+        // Still allowed in as a guest, but not as the account holder
+        StompHeaderAccessor accessor = connect("Bearer good", "abc123");
+        interceptor.preSend(message(accessor), mock(MessageChannel.class));
+        assertThat(accessor.getUser()).isNull();
+    }
+
+    @Test
+    void framesOtherThanConnectPassThrough() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = message(accessor);
+
+        assertThat(interceptor.preSend(message, mock(MessageChannel.class))).isSameAs(message);
+    }
+
+    private static StompHeaderAccessor connect(String authorization, String inviteCode) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        if (authorization != null) {
+            accessor.addNativeHeader("Authorization", authorization);
+        }
+        if (inviteCode != null) {
+            accessor.addNativeHeader(StompAuthChannelInterceptor.INVITE_CODE_HEADER, inviteCode);
+        }
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
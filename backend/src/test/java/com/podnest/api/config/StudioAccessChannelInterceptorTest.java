@@ -0,0 +1,119 @@
+package com.podnest.api.config;
+
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.SessionGuestRepository;
+import com.podnest.api.repository.StudioRepository;
+import com.podnest.api.service.JwtPrincipal;
+import com.podnest.api.service.StudioMembershipCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudioAccessChannelInterceptorTest {
+
+    private final StudioRepository studioRepository = mock(StudioRepository.class);
+    private final SessionGuestRepository sessionGuestRepository = mock(SessionGuestRepository.class);
+    private StudioAccessChannelInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setId(7L);
+        when(studioRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(studioRepository.findById(1L))
+                .thenReturn(Optional.of(Studio.builder().id(1L).owner(owner).inviteCode("abc123").build()));
+        when(sessionGuestRepository.findInvitedEmailsByStudioId(1L)).thenReturn(List.of("guest@podnest.test"));
+        interceptor = new StudioAccessChannelInterceptor(
+                new StudioMembershipCache(studioRepository, sessionGuestRepository, 100, 300));
+    }
+
+    @Test
+    void ownerListedGuestAndInviteCodeMayJoin() {
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/topic/studio/1", user(7L, "host@podnest.test"), null);
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/topic/studio/1", user(8L, "Guest@PodNest.test"), null);
+        assertAllowed(SimpMessageType.MESSAGE, "/app/studio/1/signal", null, "abc123");
+    }
+
+    @Test
+    void strangersAndWrongInviteCodesAreRefused() {
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/studio/1", user(9L, "someone@podnest.test"), null);
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/studio/1", null, "wrong");
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/studio/2", null, "abc123");
+    }
+
+    @Test
+    void ownUserQueuesNeedNoMembership() {
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/user/queue/signal", null, null);
+    }
+
+    @Test
+    void onlyStudioTopicsAndAppMappingsAreReachable() {
+        JwtPrincipal owner = user(7L, "host@podnest.test");
+        // Straight to the broker, bypassing the controllers
+        assertDenied(SimpMessageType.MESSAGE, "/topic/studio/1", owner, null);
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/studio/1/extra", owner, null);
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/other", owner, null);
+        assertDenied(SimpMessageType.MESSAGE, "/app/studio/abc/signal", owner, null);
+        assertDenied(SimpMessageType.MESSAGE, null, owner, null);
+    }
+
+    @Test
+    void membershipIsLoadedOncePerStudio() {
+        for (int i = 0; i < 5; i++) {
+            assertAllowed(SimpMessageType.MESSAGE, "/app/studio/1/signal", null, "abc123");
+        }
+
+        verify(studioRepository, times(1)).findById(1L);
+    }
+
+    private void assertAllowed(SimpMessageType type, String destination, JwtPrincipal user, String inviteCode) {
+        assertThatCode(() -> interceptor.preSend(message(type, destination, user, inviteCode), mock(MessageChannel.class)))
+                .doesNotThrowAnyException();
+    }
+
+    private void assertDenied(SimpMessageType type, String destination, JwtPrincipal user, String inviteCode) {
+        assertThatThrownBy(() -> interceptor.preSend(message(type, destination, user, inviteCode),
+                mock(MessageChannel.class)))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    private static JwtPrincipal user(Long id, String email) {
+        return new JwtPrincipal("jti-" + id, email, id, 1, Instant.now(), Instant.now().plusSeconds(60));
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String destination, JwtPrincipal user,
+            String inviteCode) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setDestination(destination);
+        if (user != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (inviteCode != null) {
+            attributes.put(StompAuthChannelInterceptor.INVITE_CODE_ATTRIBUTE, inviteCode);
+        }
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,95 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.SessionBackpressureTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrackedSubProtocolWebSocketHandlerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SessionBackpressureTracker tracker = new SessionBackpressureTracker(meterRegistry,
+            10_000, 512 * 1024, 1024, 256 * 1024, 60_000, 45_000);
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TrackedSubProtocolWebSocketHandler handler;
+    private WebSocketSession socket;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        handler = new TrackedSubProtocolWebSocketHandler(new ExecutorSubscribableChannel(),
+                new ExecutorSubscribableChannel(), tracker);
+        handler.setDefaultProtocolHandler(new StompSubProtocolHandler());
+        handler.start();
+
+        // A client that stops reading: the first write never completes until released
+        socket = mock(WebSocketSession.class);
+        when(socket.getId()).thenReturn("slow");
+        when(socket.isOpen()).thenReturn(true);
+        when(socket.getAttributes()).thenReturn(new HashMap<>());
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(socket).sendMessage(any(WebSocketMessage.class));
+        handler.afterConnectionEstablished(socket);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        handler.stop();
+    }
+
+    @Test
+    void decoratedSessionIsTheTrackersOwn() {
+        assertThat(handler.decorateSession(socket).getClass().getEnclosingClass())
+                .isEqualTo(SessionBackpressureTracker.class);
+    }
+
+    @Test
+    void slowSessionFillsUpAndCandidatesAreDropped() throws Exception {
+        Thread stuck = new Thread(() -> handler.handleMessage(frame()));
+        stuck.start();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(tracker.shouldDrop("slow")).isFalse();
+
+        // Everything after the stuck write queues in the tracker's buffer, where it can be measured
+        for (int i = 0; i < 4; i++) {
+            handler.handleMessage(frame());
+        }
+
+        assertThat(tracker.shouldDrop("slow")).isTrue();
+        assertThat(meterRegistry.counter("podnest.signaling.session.dropped").count()).isEqualTo(1.0);
+        release.countDown();
+        stuck.join(5_000);
+    }
+
+    private static Message<byte[]> frame() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("slow");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/user/queue/signal");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[400], accessor.getMessageHeaders());
+    }
+}
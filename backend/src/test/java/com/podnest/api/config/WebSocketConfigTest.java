@@ -0,0 +1,57 @@
+package com.podnest.api.config;
+
+import com.podnest.api.service.SessionBackpressureTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Answers.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class WebSocketConfigTest {
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private WebSocketConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new WebSocketConfig(mock(StompAuthChannelInterceptor.class),
+                mock(StudioAccessChannelInterceptor.class), mock(PresenceChannelInterceptor.class),
+                mock(SessionBackpressureTracker.class), taskScheduler);
+        ReflectionTestUtils.setField(config, "brokerMode", "simple");
+        ReflectionTestUtils.setField(config, "heartbeatMillis", 10_000L);
+    }
+
+    @Test
+    void nativeEndpointIsRegisteredNextToSockJs() {
+        StompEndpointRegistry registry = mock(StompEndpointRegistry.class, RETURNS_DEEP_STUBS);
+
+        config.registerStompEndpoints(registry);
+
+        verify(registry).addEndpoint("/ws-native");
+        verify(registry).addEndpoint("/ws");
+    }
+
+    @Test
+    void simpleBrokerSendsAndExpectsHeartbeats() {
+        MessageBrokerRegistry registry = new MessageBrokerRegistry(new ExecutorSubscribableChannel(),
+                new ExecutorSubscribableChannel());
+
+        config.configureMessageBroker(registry);
+
+        SubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        SimpleBrokerMessageHandler broker = ReflectionTestUtils.invokeMethod(registry, "getSimpleBroker",
+                brokerChannel);
+        assertThat(broker).isNotNull();
+        assertThat(broker.getHeartbeatValue()).containsExactly(10_000L, 10_000L);
+        assertThat(broker.getTaskScheduler()).isSameAs(taskScheduler);
+    }
+}
@@ -0,0 +1,60 @@
+package com.podnest.api.controller;
+
+import com.podnest.api.config.RefreshTokenCookie;
+import com.podnest.api.dto.AuthenticationResponse;
+import com.podnest.api.dto.RefreshTokenRequest;
+import com.podnest.api.service.AuthenticationService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthenticationControllerTest {
+
+    private final AuthenticationService service = mock(AuthenticationService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new AuthenticationController(service, new RefreshTokenCookie(60_000)))
+            .build();
+
+    @Test
+    void refreshFromCookieRotatesTheCookieAndKeepsTheTokenOutOfTheBody() throws Exception {
+        when(service.refresh(argThat((RefreshTokenRequest r) -> "old".equals(r.getRefreshToken()))))
+                .thenReturn(new AuthenticationResponse("access", "rotated"));
+
+        mockMvc.perform(post("/api/auth/refresh").cookie(new Cookie(RefreshTokenCookie.NAME, "old")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("access"))
+                .andExpect(jsonPath("$.refreshToken").value(nullValue()))
+                .andExpect(header().string(HttpHeaders.SET_COOKIE, allOf(
+                        containsString(RefreshTokenCookie.NAME + "=rotated"),
+                        containsString("Path=" + RefreshTokenCookie.PATH),
+                        containsString("HttpOnly"),
+                        containsString("Secure"),
+                        containsString("SameSite=Strict"))));
+    }
+
+    @Test
+    void refreshFromBodyStillReturnsTheToken() throws Exception {
+        when(service.refresh(argThat((RefreshTokenRequest r) -> "stored".equals(r.getRefreshToken()))))
+                .thenReturn(new AuthenticationResponse("access", "next"));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType("application/json")
+                        .content("{\"refreshToken\":\"stored\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").value("next"))
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE));
+    }
+}
@@ -0,0 +1,139 @@
+package com.podnest.api.controller;
+
+import com.podnest.api.config.GlobalExceptionHandler;
+import com.podnest.api.model.Recording;
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.RecordingRepository;
+import com.podnest.api.service.CurrentUserService;
+import com.podnest.api.service.LiveRecordingIngestService;
+import com.podnest.api.service.MediaUrlSigner;
+import com.podnest.api.service.RecordingClipService;
+import com.podnest.api.service.RecordingMediaService;
+import com.podnest.api.service.RecordingService;
+import com.podnest.api.service.RecordingStorage;
+import com.podnest.api.service.RecordingUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RecordingMediaControllerTest {
+
+    private static final String KEY = "media-signing-key-for-controller-tests";
+
+    @TempDir
+    Path dir;
+
+    private final RecordingRepository recordingRepository = mock(RecordingRepository.class);
+    private final MediaUrlSigner signer = new MediaUrlSigner(KEY, 3_600);
+    private final byte[] media = new byte[1_000];
+    private MockMvc mockMvc;
+    private String mediaUrl;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < media.length; i++) {
+            media[i] = (byte) i;
+        }
+        RecordingStorage storage = new RecordingStorage(dir.toString());
+        Files.write(storage.mediaPath(3L), media);
+        User owner = new User();
+        owner.setId(7L);
+        when(recordingRepository.findById(3L)).thenReturn(Optional.of(Recording.builder().id(3L)
+                .studio(Studio.builder().id(1L).owner(owner).build())
+                .fileSize((long) media.length)
+                .contentType("video/webm")
+                .build()));
+
+        RecordingMediaService mediaService = new RecordingMediaService(recordingRepository, storage, signer,
+                mock(CurrentUserService.class));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new RecordingController(mock(RecordingService.class),
+                        mock(RecordingUploadService.class), mock(LiveRecordingIngestService.class), mediaService,
+                        mock(RecordingClipService.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        mediaUrl = signer.sign(3L, "media");
+        etag = mockMvc.perform(get(mediaUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void wholeFileWithoutARange() throws Exception {
+        mockMvc.perform(get(mediaUrl))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, media.length))
+                .andExpect(content().bytes(media));
+    }
+
+    @Test
+    void rangeIsAnsweredWithPartialContent() throws Exception {
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/1000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(Arrays.copyOfRange(media, 100, 200)));
+
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 990-999/1000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(media, 990, 1_000)));
+    }
+
+    @Test
+    void rangePastTheEndIsUnsatisfiable() throws Exception {
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.RANGE, "bytes=5000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws Exception {
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent());
+
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, "\"changed\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(media));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get(mediaUrl).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void urlSignedForThePeaksDoesNotOpenTheMedia() throws Exception {
+        String peaksUrl = signer.sign(3L, "peaks");
+        String query = peaksUrl.substring(peaksUrl.indexOf('?'));
+
+        mockMvc.perform(get("/api/recordings/3/media" + query))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/recordings/3/media"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,97 @@
+package com.podnest.api.service;
+
+import com.podnest.api.dto.AuthenticationRequest;
+import com.podnest.api.dto.AuthenticationResponse;
+import com.podnest.api.dto.ChangePasswordRequest;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceTest {
+
+    private final UserRepository repository = mock(UserRepository.class);
+    private final PasswordHashingService hashing = mock(PasswordHashingService.class);
+    private final JwtService jwtService = mock(JwtService.class);
+    private final RefreshTokenService refreshTokens = mock(RefreshTokenService.class);
+    private AuthenticationService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = new AuthenticationService(repository, hashing, jwtService, mock(UserDetailsCache.class),
+                refreshTokens, mock(TokenDenylist.class), 2);
+        user = new User();
+        user.setId(7L);
+        user.setEmail("guest@podnest.test");
+        user.setPassword("$2a$04$old");
+        when(repository.findByEmail("guest@podnest.test")).thenReturn(Optional.of(user));
+        when(jwtService.generateToken(user)).thenReturn("access");
+        when(refreshTokens.issue(user)).thenReturn("refresh");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void savesOffTheHashingThread() {
+        AtomicReference<String> savedOn = new AtomicReference<>();
+        when(hashing.matches("secret", "$2a$04$old")).thenReturn(CompletableFuture.completedFuture(true));
+        when(hashing.needsRehash("$2a$04$old")).thenReturn(true);
+        when(hashing.encode("secret")).thenReturn(CompletableFuture.supplyAsync(() -> "$2a$10$new",
+                runnable -> new Thread(runnable, "password-hash-test").start()));
+        when(repository.save(any(User.class))).thenAnswer(invocation -> {
+            savedOn.set(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+
+        AuthenticationResponse response = service.authenticate(request()).join();
+
+        assertThat(response.getToken()).isEqualTo("access");
+        assertThat(user.getPassword()).isEqualTo("$2a$10$new");
+        assertThat(savedOn.get()).startsWith("auth-completion-");
+    }
+
+    @Test
+    void skipsRehashWhenTheHashingPoolIsFull() {
+        when(hashing.matches("secret", "$2a$04$old")).thenReturn(CompletableFuture.completedFuture(true));
+        when(hashing.needsRehash("$2a$04$old")).thenReturn(true);
+        when(hashing.encode("secret")).thenThrow(new PasswordHashingOverloadedException(2));
+
+        AuthenticationResponse response = service.authenticate(request()).join();
+
+        assertThat(response.getToken()).isEqualTo("access");
+        assertThat(user.getPassword()).isEqualTo("$2a$04$old");
+        verify(repository, never()).save(any(User.class));
+    }
+
+    @Test
+    void blankNewPasswordIsABadRequest() {
+        ChangePasswordRequest request = new ChangePasswordRequest("secret", " ");
+
+        assertThatThrownBy(() -> service.changePassword(user, request))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private static AuthenticationRequest request() {
+        return new AuthenticationRequest("guest@podnest.test", "secret");
+    }
+}
@@ -0,0 +1,104 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.RecordingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ClipJobHandlerTest {
+
+    private static final Long SOURCE_ID = 3L;
+    private static final Long CLIP_ID = 9L;
+
+    @TempDir
+    Path dir;
+
+    private final RecordingRepository recordingRepository = mock(RecordingRepository.class);
+    private final ProcessingJobService processingJobService = mock(ProcessingJobService.class);
+    private RecordingStorage storage;
+    private ClipJobHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        storage = new RecordingStorage(dir.toString());
+        handler = new ClipJobHandler(storage, recordingRepository, processingJobService);
+    }
+
+    @Test
+    void cutsTheRangeAndQueuesChecksumAndPeaks() throws Exception {
+        indexedSource();
+        Path media = storage.mediaPath(CLIP_ID);
+
+        handler.process(job(1_200, 2_800), clip(), media);
+
+        WebmIndex index = WebmIndex.read(media.resolveSibling(WebmIndex.FILE_NAME));
+        // Cut on cluster boundaries: from the keyframe at 1 s through the cluster starting at 2 s
+        assertThat(index.clusters()).extracting(WebmIndex.Cluster::timecode).containsExactly(0L, 1_000L);
+        assertThat(index.durationMillis()).isEqualTo(1_500);
+        assertThat(storage.recordingDir(CLIP_ID).resolve("media.clip")).doesNotExist();
+        verify(recordingRepository).updateMediaInfo(CLIP_ID, Files.size(media), 1_500L, "00:00:01");
+        verify(processingJobService).enqueue(CLIP_ID, ChecksumJobHandler.TYPE, null);
+        verify(processingJobService).enqueue(CLIP_ID, WaveformJobHandler.TYPE, null);
+    }
+
+    @Test
+    void rangeWithoutAKeyframeFailsWithoutRetry() throws Exception {
+        // An index whose clusters carry no keyframe at all
+        new WebmIndex(1_000_000, 2_000, List.of(new WebmIndex.Cluster(40, 100, 0, -1),
+                new WebmIndex.Cluster(140, 100, 1_000, -1)))
+                .write(storage.recordingDir(SOURCE_ID).resolve(WebmIndex.FILE_NAME));
+
+        assertThatThrownBy(() -> handler.process(job(0, 1_500), clip(), storage.mediaPath(CLIP_ID)))
+                .isInstanceOf(UnrecoverableJobException.class)
+                .hasMessage("No media between 0 and 1500 ms");
+        verify(processingJobService, never()).enqueue(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void sourceNotIndexedYetIsRetried() {
+        assertThatThrownBy(() -> handler.process(job(0, 1_000), clip(), storage.mediaPath(CLIP_ID)))
+                .isInstanceOf(IllegalStateException.class)
+                .isNotInstanceOf(UnrecoverableJobException.class);
+        verify(recordingRepository, never()).updateMediaInfo(eq(CLIP_ID), anyLong(), anyLong(), anyString());
+    }
+
+    // Five one-second clusters, remuxed and indexed the way the INDEX job leaves them
+    private void indexedSource() throws Exception {
+        Path live = Files.write(dir.resolve("live.webm"), TestWebm.live(5, 1_000));
+        WebmIndex index;
+        try (FileChannel in = FileChannel.open(live, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(storage.mediaPath(SOURCE_ID), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE)) {
+            WebmRemux.Layout layout = WebmRemux.scan(in);
+            index = WebmRemux.write(in, layout.head(), layout.clusters(), 0, out);
+        }
+        index.write(storage.recordingDir(SOURCE_ID).resolve(WebmIndex.FILE_NAME));
+    }
+
+    private static ProcessingJob job(long startMs, long endMs) {
+        return ProcessingJob.builder().id(1L).recordingId(CLIP_ID).jobType(ClipJobHandler.TYPE)
+                .payload(ClipJobHandler.payload(SOURCE_ID, startMs, endMs)).build();
+    }
+
+    private static Recording clip() {
+        return Recording.builder().id(CLIP_ID).contentType("video/webm").build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.User;
+import com.podnest.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CurrentUserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CurrentUserService service = new CurrentUserService(userRepository);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolvedOncePerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        signIn(jwt(42L, "host@podnest.test"));
+
+        CurrentUser first = service.get();
+        // Whatever the security context says later, the request keeps the caller it started with
+        signIn(jwt(43L, "guest@podnest.test"));
+
+        assertThat(service.get()).isSameAs(first);
+        assertThat(first.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void eachRequestResolvesItsOwnCaller() {
+        signIn(jwt(42L, "host@podnest.test"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        CurrentUser first = service.get();
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertThat(service.get()).isNotSameAs(first);
+    }
+
+    @Test
+    void jwtCallerIsKnownWithoutLoadingTheEntity() {
+        signIn(jwt(42L, "host@podnest.test"));
+
+        CurrentUser currentUser = service.get();
+
+        assertThat(currentUser.getId()).isEqualTo(42L);
+        assertThat(currentUser.getEmail()).isEqualTo("host@podnest.test");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void entityIsLoadedOnceOnFirstUse() {
+        User user = new User();
+        user.setId(42L);
+        when(userRepository.findById(42L)).thenReturn(Optional.of(user));
+        signIn(jwt(42L, "host@podnest.test"));
+        CurrentUser currentUser = service.get();
+
+        assertThat(currentUser.getUser()).isSameAs(user);
+        assertThat(currentUser.getUser()).isSameAs(user);
+        verify(userRepository, times(1)).findById(42L);
+    }
+
+    @Test
+    void sessionLoginFallsBackToTheEmail() {
+        User user = new User();
+        user.setId(42L);
+        when(userRepository.findByEmail("host@podnest.test")).thenReturn(Optional.of(user));
+        signIn(UsernamePasswordAuthenticationToken.authenticated("host@podnest.test", null, List.of()));
+
+        CurrentUser currentUser = service.get();
+
+        assertThat(currentUser.getId()).isEqualTo(42L);
+        assertThat(currentUser.getId()).isEqualTo(42L);
+        verify(userRepository, times(1)).findByEmail("host@podnest.test");
+    }
+
+    @Test
+    void anonymousCallerIsRejected() {
+        assertThatThrownBy(service::get).isInstanceOf(AuthenticationCredentialsNotFoundException.class);
+    }
+
+    private static UsernamePasswordAuthenticationToken jwt(Long userId, String email) {
+        JwtPrincipal principal = new JwtPrincipal("token-" + userId, email, userId, 0,
+                Instant.now(), Instant.now().plusSeconds(60));
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, List.of());
+    }
+
+    private static void signIn(UsernamePasswordAuthenticationToken authentication) {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
@@ -0,0 +1,152 @@
+package com.podnest.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EbmlReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idsKeepTheirLengthMarker() throws Exception {
+        try (FileChannel channel = open(0xA3, 0x42, 0x86, 0x2A, 0xD7, 0xB1, 0x1A, 0x45, 0xDF, 0xA3)) {
+            EbmlReader reader = new EbmlReader(channel);
+
+            assertThat(reader.readId()).isEqualTo(WebmRemux.SIMPLE_BLOCK);
+            assertThat(reader.readId()).isEqualTo(0x4286L);
+            assertThat(reader.readId()).isEqualTo(WebmRemux.TIMECODE_SCALE);
+            assertThat(reader.readId()).isEqualTo(WebmRemux.EBML);
+            assertThat(reader.position()).isEqualTo(10);
+            assertThat(reader.readId()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void sizesOfEveryWidthAndUnknownSize() throws Exception {
+        try (FileChannel channel = open(
+                0x85,
+                0x40, 0x02,
+                0x01, 0x00, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00,
+                0xFF,
+                0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF)) {
+            EbmlReader reader = new EbmlReader(channel);
+
+            assertThat(reader.readSize()).isEqualTo(5);
+            assertThat(reader.readSize()).isEqualTo(2);
+            assertThat(reader.readSize()).isEqualTo(65_536);
+            assertThat(reader.readSize()).isEqualTo(EbmlReader.UNKNOWN_SIZE);
+            assertThat(reader.readSize()).isEqualTo(EbmlReader.UNKNOWN_SIZE);
+        }
+    }
+
+    @Test
+    void blockTrackNumberCannotBeUnknown() throws Exception {
+        try (FileChannel channel = open(0x81, 0xFF)) {
+            EbmlReader reader = new EbmlReader(channel);
+
+            assertThat(reader.readVint()).isEqualTo(1);
+            assertThatThrownBy(reader::readVint).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void zeroLeadingByteIsRejected() throws Exception {
+        try (FileChannel channel = open(0x00, 0x00)) {
+            EbmlReader reader = new EbmlReader(channel);
+
+            assertThatThrownBy(reader::readId).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(reader::readSize).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void readsValues() throws Exception {
+        ByteBuffer values = ByteBuffer.allocate(3 + 4 + 8 + 6)
+                .put((byte) 0x0F).putShort((short) 0x4240)
+                .putFloat(1.5f)
+                .putDouble(12_345.25)
+                .put("webm\0\0".getBytes());
+        try (FileChannel channel = open(values.array())) {
+            EbmlReader reader = new EbmlReader(channel);
+
+            assertThat(reader.readUnsigned(3)).isEqualTo(1_000_000);
+            assertThat(reader.readFloat(4)).isEqualTo(1.5);
+            assertThat(reader.readFloat(8)).isEqualTo(12_345.25);
+            // Strings are padded with NULs in some writers
+            assertThat(reader.readString(6)).isEqualTo("webm");
+            assertThat(reader.readFloat(0)).isZero();
+            assertThatThrownBy(() -> reader.readUnsigned(9)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> reader.readFloat(2)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void windowRefillsAcrossTheBufferAndOnSeekingBack() throws Exception {
+        // A 100 KB payload between two elements, larger than the 64 KB window
+        byte[] bytes = new byte[1 + 100_000 + 1];
+        bytes[0] = (byte) 0xA3;
+        for (int i = 1; i <= 100_000; i++) {
+            bytes[i] = (byte) i;
+        }
+        bytes[bytes.length - 1] = (byte) 0xEC;
+        try (FileChannel channel = open(bytes)) {
+            EbmlReader reader = new EbmlReader(channel);
+            assertThat(reader.length()).isEqualTo(bytes.length);
+
+            assertThat(reader.readId()).isEqualTo(WebmRemux.SIMPLE_BLOCK);
+            byte[] payload = new byte[100_000];
+            reader.read(payload, payload.length);
+            assertThat(payload[0]).isEqualTo((byte) 1);
+            assertThat(payload[99_999]).isEqualTo((byte) 100_000);
+            assertThat(reader.readId()).isEqualTo(WebmRemux.VOID);
+
+            reader.seek(70_000);
+            byte[] small = new byte[4];
+            reader.read(small, 4);
+            assertThat(small).containsExactly((byte) 70_000, (byte) 70_001, (byte) 70_002, (byte) 70_003);
+
+            reader.seek(0);
+            assertThat(reader.readId()).isEqualTo(WebmRemux.SIMPLE_BLOCK);
+        }
+    }
+
+    @Test
+    void truncatedElementIsAnEof() throws Exception {
+        try (FileChannel channel = open(0x1A, 0x45, 0xDF)) {
+            EbmlReader reader = new EbmlReader(channel);
+
+            assertThatThrownBy(reader::readId).isInstanceOf(EOFException.class);
+        }
+        try (FileChannel channel = open(0x88, 0x00, 0x00)) {
+            EbmlReader reader = new EbmlReader(channel);
+            reader.readSize();
+
+            assertThatThrownBy(() -> reader.readUnsigned(8)).isInstanceOf(EOFException.class);
+            assertThatThrownBy(() -> reader.read(new byte[100_000], 100_000)).isInstanceOf(EOFException.class);
+        }
+    }
+
+    private FileChannel open(int... bytes) throws Exception {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        return open(data);
+    }
+
+    private FileChannel open(byte[] data) throws Exception {
+        Path file = Files.write(Files.createTempFile(dir, "ebml", ".bin"), data);
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+}
@@ -0,0 +1,156 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the coalescer's timers by hand: the scheduler records what would
+ * run and when, and each test fires the flushes itself.
+ */
+class IceCandidateCoalescerTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(10);
+    private static final Duration MAX_DELAY = Duration.ofMillis(50);
+
+    private record Timer(Runnable task, Instant at, ScheduledFuture<?> future) {
+    }
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final StudioDispatchLanes lanes = mock(StudioDispatchLanes.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Timer> timers = new ArrayList<>();
+    private final List<List<String>> delivered = new ArrayList<>();
+    private IceCandidateCoalescer coalescer;
+    private boolean laneAccepts = true;
+
+    @BeforeEach
+    void setUp() {
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            ScheduledFuture<?> future = mock(ScheduledFuture.class);
+            timers.add(new Timer(invocation.getArgument(0), invocation.getArgument(1), future));
+            return future;
+        });
+        when(lanes.executeDroppable(anyString(), any(Runnable.class))).thenAnswer(invocation -> {
+            if (laneAccepts) {
+                invocation.<Runnable>getArgument(1).run();
+            }
+            return laneAccepts;
+        });
+        coalescer = new IceCandidateCoalescer(taskScheduler, lanes, meterRegistry, true,
+                WINDOW.toMillis(), MAX_DELAY.toMillis(), 3);
+    }
+
+    @Test
+    void candidatesWithinTheWindowGoOutAsOneBatch() {
+        Instant before = Instant.now();
+        offer("bob", "c1");
+        offer("bob", "c2");
+
+        assertThat(timers).hasSize(2);
+        // Each arrival moves the flush to a window after it and cancels the previous timer
+        assertThat(timers.get(1).at()).isAfterOrEqualTo(before.plus(WINDOW));
+        verify(timers.get(0).future()).cancel(false);
+        assertThat(delivered).isEmpty();
+
+        fire(1);
+
+        assertThat(delivered).containsExactly(List.of("c1", "c2"));
+        assertThat(meterRegistry.counter("podnest.signaling.ice.candidates").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("podnest.signaling.ice.batches").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void windowNeverSlidesPastTheDeadline() throws Exception {
+        Instant first = Instant.now();
+        offer("bob", "c1");
+        Thread.sleep(MAX_DELAY.toMillis() - 5);
+        Instant second = Instant.now();
+        offer("bob", "c2");
+
+        // A window from the second arrival would end after the first one's cap
+        assertThat(timers.get(1).at()).isBefore(second.plus(WINDOW))
+                .isAfterOrEqualTo(first.plus(MAX_DELAY));
+    }
+
+    @Test
+    void fullBatchIsSentAtOnce() {
+        offer("bob", "c1");
+        offer("bob", "c2");
+        offer("bob", "c3");
+
+        assertThat(delivered).containsExactly(List.of("c1", "c2", "c3"));
+        verify(timers.get(1).future()).cancel(false);
+        // The last timer fires late and finds nothing left to send
+        fire(1);
+        assertThat(delivered).hasSize(1);
+
+        offer("bob", "c4");
+        fire(2);
+        assertThat(delivered).containsExactly(List.of("c1", "c2", "c3"), List.of("c4"));
+    }
+
+    @Test
+    void flushPairSendsPendingCandidatesFirst() {
+        offer("bob", "c1");
+        offer("carol", "c2");
+
+        coalescer.flushPair("1", "alice", "bob");
+
+        assertThat(delivered).containsExactly(List.of("c1"));
+        verify(timers.get(0).future()).cancel(false);
+        fire(0);
+        assertThat(delivered).containsExactly(List.of("c1"));
+        // Other pairs keep their own batch
+        fire(1);
+        assertThat(delivered).containsExactly(List.of("c1"), List.of("c2"));
+    }
+
+    @Test
+    void flushDroppedByAFullLaneStillGoesOut() {
+        offer("bob", "c1");
+        laneAccepts = false;
+
+        fire(0);
+
+        assertThat(delivered).containsExactly(List.of("c1"));
+    }
+
+    @Test
+    void discardedPeerLosesItsCandidates() {
+        offer("bob", "c1");
+
+        coalescer.discardPeer("bob");
+        fire(0);
+
+        assertThat(delivered).isEmpty();
+        verify(timers.get(0).future()).cancel(false);
+    }
+
+    private void offer(String target, String candidate) {
+        coalescer.offer("1", "alice", target, candidate.getBytes(StandardCharsets.UTF_8), candidates -> {
+            List<String> batch = new ArrayList<>();
+            candidates.forEach(bytes -> batch.add(new String(bytes, StandardCharsets.UTF_8)));
+            delivered.add(batch);
+        });
+    }
+
+    private void fire(int timer) {
+        timers.get(timer).task().run();
+    }
+}
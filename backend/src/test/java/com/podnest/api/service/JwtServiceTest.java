@@ -0,0 +1,94 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private static final String KEY = "c2lnbmluZy1rZXktZm9yLWp3dC1zZXJ2aWNlLXRlc3RzLW9ubHktMzJieXRlcyE=";
+    private static final String OTHER_KEY = "YW5vdGhlci1zaWduaW5nLWtleS1mb3Itand0LXRlc3RzLW9ubHktMzJieXRlcw==";
+
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = service(KEY, 60_000);
+        user = new User();
+        user.setId(42L);
+        user.setEmail("host@podnest.test");
+        user.setCredentialVersion(3);
+    }
+
+    @Test
+    void verifiesTokenAndExposesClaims() {
+        String token = jwtService.generateToken(user);
+
+        JwtPrincipal principal = jwtService.verify(token).orElseThrow();
+
+        assertThat(principal.username()).isEqualTo("host@podnest.test");
+        assertThat(principal.userId()).isEqualTo(42L);
+        assertThat(principal.credentialVersion()).isEqualTo(3);
+        assertThat(principal.tokenId()).isNotBlank();
+    }
+
+    @Test
+    void secondVerificationIsServedFromTheCache() {
+        String token = jwtService.generateToken(user);
+
+        JwtPrincipal first = jwtService.verify(token).orElseThrow();
+        JwtPrincipal second = jwtService.verify(token).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String forged = service(OTHER_KEY, 60_000).generateToken(user);
+
+        assertThat(jwtService.verify(forged)).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(jwtService.verify(tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredAndMalformedTokens() {
+        String expired = service(KEY, -1_000).generateToken(user);
+
+        assertThat(jwtService.verify(expired)).isEmpty();
+        assertThat(jwtService.verify("not-a-jwt")).isEmpty();
+    }
+
+    @Test
+    void tokenValidityChecksTheUsername() {
+        String token = jwtService.generateToken(user);
+        Optional<JwtPrincipal> principal = jwtService.verify(token);
+
+        assertThat(principal).isPresent();
+        assertThat(jwtService.isTokenValid(token, org.springframework.security.core.userdetails.User
+                .withUsername("host@podnest.test").password("x").build())).isTrue();
+        assertThat(jwtService.isTokenValid(token, org.springframework.security.core.userdetails.User
+                .withUsername("someone@else.test").password("x").build())).isFalse();
+    }
+
+    private static JwtService service(String key, long expiration) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", key);
+        ReflectionTestUtils.setField(service, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(service, "verifiedCacheSize", 100L);
+        service.init();
+        return service;
+    }
+}
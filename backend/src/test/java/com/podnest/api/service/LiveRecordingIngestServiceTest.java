@@ -0,0 +1,115 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.RecordingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LiveRecordingIngestServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final RecordingRepository recordingRepository = mock(RecordingRepository.class);
+    private final RecordingService recordingService = mock(RecordingService.class);
+
+    @Test
+    void sweepOnlyLooksAtSpoolsOnThisNode() throws Exception {
+        RecordingStorage storage = new RecordingStorage(dir.toString());
+        LiveRecordingIngestService service = new LiveRecordingIngestService(recordingRepository, recordingService,
+                storage, mock(CurrentUserService.class), 60_000);
+        // Recording 6 was being recorded here and went quiet; 5 is recording on another node
+        Path quiet = Files.write(storage.liveSpoolPath(6L), new byte[] {1, 2, 3});
+        Files.setLastModifiedTime(quiet, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+        Recording local = Recording.builder().id(6L).status(LiveRecordingIngestService.STATUS_RECORDING).build();
+        when(recordingRepository.findAllById(any())).thenReturn(List.of(local));
+
+        service.finalizeAbandoned();
+
+        verify(recordingRepository).findAllById(argThat((Iterable<Long> ids) ->
+                Set.copyOf((Collection<Long>) ids).equals(Set.of(6L))));
+        verify(recordingService).mediaStored(eq(local), eq(3L), eq("video/webm"));
+        assertThat(storage.mediaPath(6L)).exists();
+    }
+
+    @Test
+    void recentSpoolIsLeftAlone() throws Exception {
+        RecordingStorage storage = new RecordingStorage(dir.toString());
+        LiveRecordingIngestService service = new LiveRecordingIngestService(recordingRepository, recordingService,
+                storage, mock(CurrentUserService.class), 60_000);
+        Files.write(storage.liveSpoolPath(6L), new byte[] {1});
+        when(recordingRepository.findAllById(any())).thenReturn(List.of(
+                Recording.builder().id(6L).status(LiveRecordingIngestService.STATUS_RECORDING).build()));
+
+        service.finalizeAbandoned();
+
+        verify(recordingService, never()).mediaStored(any(), anyLong(), anyString());
+        verify(recordingRepository, never()).save(any());
+    }
+
+    @Test
+    void nodeWithoutSpoolsDoesNotQueryOrFailAnything() {
+        LiveRecordingIngestService service = new LiveRecordingIngestService(recordingRepository, recordingService,
+                new RecordingStorage(dir.toString()), mock(CurrentUserService.class), 0);
+
+        service.finalizeAbandoned();
+
+        verify(recordingRepository, never()).findAllById(any());
+        verify(recordingRepository, never()).save(any());
+    }
+
+    @Test
+    void interruptedBodyIsRetryableAndAcknowledgesNothing() {
+        RecordingStorage storage = new RecordingStorage(dir.toString());
+        CurrentUserService currentUserService = mock(CurrentUserService.class);
+        LiveRecordingIngestService service = new LiveRecordingIngestService(recordingRepository, recordingService,
+                storage, currentUserService, 60_000);
+        User owner = new User();
+        owner.setId(7L);
+        when(recordingRepository.findById(6L)).thenReturn(Optional.of(Recording.builder().id(6L)
+                .studio(Studio.builder().id(1L).owner(owner).build()).build()));
+        when(currentUserService.get()).thenReturn(new CurrentUser(7L, "host@podnest.test", null));
+        service.start(6L, null);
+        // The connection drops after two of the four announced bytes
+        InputStream cutOff = new SequenceInputStream(new ByteArrayInputStream(new byte[] {1, 2}), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> service.append(6L, 0, 4, cutOff))
+                .isInstanceOf(RecordingMediaException.class)
+                .extracting(e -> ((RecordingMediaException) e).getStatus())
+                .isEqualTo(HttpStatus.REQUEST_TIMEOUT);
+        assertThat(service.offset(6L)).isZero();
+        assertThat(service.append(6L, 0, 4, new ByteArrayInputStream(new byte[] {1, 2, 3, 4}))).isEqualTo(4);
+    }
+}
@@ -0,0 +1,55 @@
+package com.podnest.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MediaUrlSignerTest {
+
+    private static final String KEY = "media-signing-key-for-signer-tests-only";
+
+    @Test
+    void missingWeakOrPlaceholderKeyFailsStartup() {
+        assertThatThrownBy(() -> new MediaUrlSigner(null, 3_600)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new MediaUrlSigner("short", 3_600)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new MediaUrlSigner("change-me-media-signing-key", 3_600))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void signatureCoversRecordingAndPath() {
+        MediaUrlSigner signer = new MediaUrlSigner(KEY, 3_600);
+        String url = signer.sign(3L, "peaks");
+        long expires = Long.parseLong(param(url, "expires"));
+        String sig = param(url, "sig");
+
+        assertThat(url).startsWith("/api/recordings/3/peaks?");
+        assertThat(signer.isValid(3L, "peaks", expires, sig)).isTrue();
+        assertThat(signer.isValid(3L, "media", expires, sig)).isFalse();
+        assertThat(signer.isValid(4L, "peaks", expires, sig)).isFalse();
+        assertThat(new MediaUrlSigner(KEY + "-other", 3_600).isValid(3L, "peaks", expires, sig)).isFalse();
+    }
+
+    @Test
+    void expiredOrIncompleteSignatureIsRejected() {
+        MediaUrlSigner signer = new MediaUrlSigner(KEY, 3_600);
+        String url = signer.sign(3L, "media");
+        String sig = param(url, "sig");
+
+        assertThat(signer.isValid(3L, "media", 1L, sig)).isFalse();
+        assertThat(signer.isValid(3L, "media", null, sig)).isFalse();
+        assertThat(signer.isValid(3L, "media", Long.parseLong(param(url, "expires")), null)).isFalse();
+    }
+
+    private static String param(String url, String name) {
+        for (String pair : URI.create(url).getQuery().split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        throw new AssertionError("No " + name + " in " + url);
+    }
+}
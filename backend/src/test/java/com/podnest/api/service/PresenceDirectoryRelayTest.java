@@ -0,0 +1,165 @@
+package com.podnest.api.service;
+
+import com.podnest.api.service.StudioPresenceRegistry.RoomPolicy;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes relaying through an in-process Artemis, exchanging presence the
+ * way separate backends would.
+ */
+class PresenceDirectoryRelayTest {
+
+    private static final RoomPolicy POLICY = new RoomPolicy(1L, 4, true, false);
+
+    private EmbeddedActiveMQ broker;
+    private int port;
+    private final List<StompBrokerRelayMessageHandler> relays = new ArrayList<>();
+
+    @BeforeEach
+    void startBroker() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+        // Same prefixes the relay expects from a production broker
+        configuration.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+    }
+
+    @AfterEach
+    void stopBroker() throws Exception {
+        relays.forEach(StompBrokerRelayMessageHandler::stop);
+        broker.stop();
+    }
+
+    @Test
+    void membersOfOneNodeAreVisibleOnTheOther() {
+        Node a = node();
+        Node b = node();
+        a.registry.join("1", "alice", 1L, "Alice", POLICY, 0);
+        a.registry.join("1", "gus", null, "Gus", POLICY, 0);
+
+        await(() -> {
+            a.directory.publish("1");
+            return b.directory.peer("1", "gus") != null;
+        });
+
+        assertThat(b.directory.members("1")).extracting(PresenceDirectory.RemotePeer::id).containsExactly("alice");
+        assertThat(b.directory.waiting("1")).extracting(PresenceDirectory.RemotePeer::id).containsExactly("gus");
+        assertThat(b.changed).contains("1");
+        // A node never lists itself
+        assertThat(a.directory.members("1")).isEmpty();
+    }
+
+    @Test
+    void admitIsHandedToTheOtherNode() {
+        Node a = node();
+        Node b = node();
+        a.registry.join("1", "alice", 1L, "Alice", POLICY, 0);
+
+        await(() -> {
+            a.directory.publish("1");
+            return b.directory.peer("1", "alice") != null;
+        });
+        a.directory.requestAdmit("1", List.of("gus"));
+
+        await(() -> !b.admits.isEmpty());
+        assertThat(b.admits.get(0)).isEqualTo(Map.of("1", List.of("gus")));
+    }
+
+    @Test
+    void nodeThatLeavesIsForgotten() {
+        Node a = node();
+        Node b = node();
+        a.registry.join("1", "alice", 1L, "Alice", POLICY, 0);
+        await(() -> {
+            a.directory.publish("1");
+            return b.directory.peer("1", "alice") != null;
+        });
+
+        a.directory.leaveCluster();
+
+        await(() -> b.directory.members("1").isEmpty());
+    }
+
+    private Node node() {
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(new ExecutorSubscribableChannel(),
+                new ExecutorSubscribableChannel(), brokerChannel, List.of("/topic", "/queue"));
+        relay.setRelayHost("127.0.0.1");
+        relay.setRelayPort(port);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("stompBrokerRelayMessageHandler", relay);
+        StudioPresenceRegistry registry = new StudioPresenceRegistry();
+        PresenceDirectory directory = new PresenceDirectory(new SimpMessagingTemplate(brokerChannel), registry,
+                beans.getBeanProvider(AbstractBrokerMessageHandler.class), "relay", 5_000);
+        Node node = new Node(registry, directory);
+        directory.setListener(node);
+        assertThat(directory.isEnabled()).isTrue();
+
+        relay.start();
+        relays.add(relay);
+        await(relay::isBrokerAvailable);
+        return node;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition within 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Node implements PresenceDirectory.Listener {
+        final StudioPresenceRegistry registry;
+        final PresenceDirectory directory;
+        final List<String> changed = new CopyOnWriteArrayList<>();
+        final List<Map<String, Collection<String>>> admits = new CopyOnWriteArrayList<>();
+
+        Node(StudioPresenceRegistry registry, PresenceDirectory directory) {
+            this.registry = registry;
+            this.directory = directory;
+        }
+
+        @Override
+        public void remoteRoomChanged(String studioId) {
+            changed.add(studioId);
+        }
+
+        @Override
+        public void remoteAdmit(String studioId, Collection<String> peerIds) {
+            admits.add(Map.of(studioId, peerIds));
+        }
+    }
+}
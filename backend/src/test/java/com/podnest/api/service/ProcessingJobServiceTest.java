@@ -0,0 +1,219 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.ProcessingJob;
+import com.podnest.api.model.Recording;
+import com.podnest.api.repository.ProcessingJobRepository;
+import com.podnest.api.repository.RecordingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessingJobServiceTest {
+
+    private static final long TIMEOUT = 5_000;
+
+    @TempDir
+    Path dir;
+
+    private final ProcessingJobRepository jobRepository = mock(ProcessingJobRepository.class);
+    private final RecordingRepository recordingRepository = mock(RecordingRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProcessingJobService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void claimedJobRunsUnderALeaseAndSettlesTheRecording() throws Exception {
+        StubHandler handler = new StubHandler("INDEX", null);
+        service = service(handler);
+        dueJob(1L, 1, 5);
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(1);
+        when(jobRepository.countByRecordingIdAndStatusIn(eq(7L), any())).thenReturn(0L);
+
+        LocalDateTime before = LocalDateTime.now();
+        service.poll();
+
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepository).claim(eq(1L), owner.capture(), any(), until.capture());
+        // The lease runs for the configured 120 seconds from the claim
+        assertThat(until.getValue()).isAfterOrEqualTo(before.plusSeconds(120));
+        assertThat(handler.ran.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+        verify(jobRepository, timeout(TIMEOUT)).markDone(eq(1L), eq(owner.getValue()), any());
+        verify(recordingRepository, timeout(TIMEOUT)).transitionStatus(7L, "processing", "ready");
+        assertThat(meterRegistry.counter("podnest.processing.jobs", "outcome", "done").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void jobClaimedByAnotherNodeIsNotRun() {
+        StubHandler handler = new StubHandler("INDEX", null);
+        service = service(handler);
+        when(jobRepository.findClaimable(eq("INDEX"), any(), any())).thenReturn(List.of(1L));
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(0);
+
+        service.poll();
+        service.poll();
+
+        // The permit came back each time, so the second poll still asked for work
+        verify(jobRepository, times(2)).findClaimable(eq("INDEX"), any(), any());
+        assertThat(handler.ran.getCount()).isEqualTo(1);
+        verify(jobRepository, never()).findById(any());
+    }
+
+    @Test
+    void failedJobIsRetriedWithBackoff() throws Exception {
+        service = service(new StubHandler("INDEX", new IllegalStateException("disk hiccup")));
+        dueJob(1L, 2, 5);
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(1);
+        // This job is pending again, so the recording stays in processing
+        when(jobRepository.countByRecordingIdAndStatusIn(eq(7L), any())).thenReturn(1L);
+
+        LocalDateTime before = LocalDateTime.now();
+        service.poll();
+
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<LocalDateTime> runAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepository, timeout(TIMEOUT)).markRetry(eq(1L), anyString(), error.capture(), runAfter.capture());
+        assertThat(error.getValue()).isEqualTo("IllegalStateException: disk hiccup");
+        // Second attempt: base 1 s doubled once, plus up to a quarter of jitter
+        assertThat(runAfter.getValue()).isAfterOrEqualTo(before.plusNanos(2_000_000_000L))
+                .isBefore(LocalDateTime.now().plusNanos(2_500_000_000L + 1_000_000L));
+        verify(jobRepository, never()).markFailed(anyLong(), anyString(), anyString(), any());
+        verify(recordingRepository, never()).transitionStatus(any(), anyString(), anyString());
+    }
+
+    @Test
+    void jobOutOfAttemptsFailsTheRecording() {
+        service = service(new StubHandler("INDEX", new IllegalStateException("corrupt")));
+        dueJob(1L, 5, 5);
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(1);
+        when(jobRepository.countByRecordingIdAndStatusIn(7L, Set.of("PENDING", "RUNNING"))).thenReturn(0L);
+        when(jobRepository.countByRecordingIdAndStatusIn(7L, Set.of("FAILED"))).thenReturn(1L);
+
+        service.poll();
+
+        verify(jobRepository, timeout(TIMEOUT)).markFailed(eq(1L), anyString(), eq("IllegalStateException: corrupt"),
+                any());
+        verify(jobRepository, never()).markRetry(anyLong(), anyString(), anyString(), any());
+        verify(recordingRepository, timeout(TIMEOUT)).transitionStatus(7L, "processing", "failed");
+        assertThat(meterRegistry.counter("podnest.processing.jobs", "outcome", "failed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void unrecoverableJobFailsOnItsFirstAttempt() {
+        service = service(new StubHandler("INDEX", new UnrecoverableJobException("No media between 0 and 10 ms")));
+        dueJob(1L, 1, 5);
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(1);
+        when(jobRepository.countByRecordingIdAndStatusIn(7L, Set.of("PENDING", "RUNNING"))).thenReturn(0L);
+        when(jobRepository.countByRecordingIdAndStatusIn(7L, Set.of("FAILED"))).thenReturn(1L);
+
+        service.poll();
+
+        verify(jobRepository, timeout(TIMEOUT)).markFailed(eq(1L), anyString(),
+                eq("UnrecoverableJobException: No media between 0 and 10 ms"), any());
+        verify(jobRepository, never()).markRetry(anyLong(), anyString(), anyString(), any());
+        verify(recordingRepository, timeout(TIMEOUT)).transitionStatus(7L, "processing", "failed");
+    }
+
+    @Test
+    void runningJobsRenewTheirLease() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubHandler handler = new StubHandler("INDEX", null) {
+            @Override
+            public void process(ProcessingJob job, Recording recording, Path media) throws Exception {
+                super.process(job, recording, media);
+                release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        };
+        service = service(handler);
+        dueJob(1L, 1, 5);
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(1);
+        service.renewLeases();
+        verify(jobRepository, never()).renewLeases(any(), anyString(), any());
+
+        service.poll();
+        assertThat(handler.ran.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+        service.renewLeases();
+        release.countDown();
+
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        verify(jobRepository).claim(eq(1L), owner.capture(), any(), any());
+        verify(jobRepository).renewLeases(eq(Set.of(1L)), eq(owner.getValue()), any());
+    }
+
+    @Test
+    void enqueueRejectsUnknownTypes() {
+        service = service(new StubHandler("INDEX", null));
+
+        assertThatThrownBy(() -> service.enqueue(7L, "TRANSCODE", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ProcessingJobService service(ProcessingJobHandler handler) {
+        MockEnvironment environment = new MockEnvironment();
+        return new ProcessingJobService(jobRepository, recordingRepository, new RecordingStorage(dir.toString()),
+                List.of(handler), environment, meterRegistry, 2, 2, 120, 5, 1_000, 60_000);
+    }
+
+    private void dueJob(Long id, int attempts, int maxAttempts) {
+        when(jobRepository.findClaimable(eq("INDEX"), any(), any())).thenReturn(List.of(id)).thenReturn(List.of());
+        // Attempts as they read after the claim incremented them
+        when(jobRepository.findById(id)).thenReturn(Optional.of(ProcessingJob.builder()
+                .id(id).recordingId(7L).jobType("INDEX").status("RUNNING")
+                .attempts(attempts).maxAttempts(maxAttempts).build()));
+        when(recordingRepository.findById(7L)).thenReturn(Optional.of(Recording.builder().id(7L).build()));
+    }
+
+    private static class StubHandler implements ProcessingJobHandler {
+        final CountDownLatch ran = new CountDownLatch(1);
+        private final String type;
+        private final Exception failure;
+
+        StubHandler(String type, Exception failure) {
+            this.type = type;
+            this.failure = failure;
+        }
+
+        @Override
+        public String type() {
+            return type;
+        }
+
+        @Override
+        public void process(ProcessingJob job, Recording recording, Path media) throws Exception {
+            ran.countDown();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.RecordingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecordingClipServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final RecordingRepository recordingRepository = mock(RecordingRepository.class);
+    private final RecordingService recordingService = mock(RecordingService.class);
+    private final ProcessingJobService processingJobService = mock(ProcessingJobService.class);
+    private final CurrentUserService currentUserService = mock(CurrentUserService.class);
+    private RecordingStorage storage;
+    private RecordingClipService service;
+
+    @BeforeEach
+    void setUp() {
+        storage = new RecordingStorage(dir.toString());
+        service = new RecordingClipService(recordingRepository, recordingService, processingJobService,
+                currentUserService, storage);
+        User owner = new User();
+        owner.setId(7L);
+        when(recordingRepository.findById(3L)).thenReturn(Optional.of(Recording.builder().id(3L).title("Episode")
+                .studio(Studio.builder().id(1L).owner(owner).build())
+                .fileSize(1_000L).contentType("video/webm").durationMs(2_000L).build()));
+        when(currentUserService.get()).thenReturn(new CurrentUser(7L, "host@podnest.test", null));
+        when(recordingRepository.save(any(Recording.class))).thenAnswer(invocation -> {
+            Recording recording = invocation.getArgument(0);
+            if (recording.getId() == null) {
+                recording.setId(9L);
+            }
+            return recording;
+        });
+        when(recordingService.withMediaUrl(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void rangeWithNoMediaIsRefusedUpFront() throws Exception {
+        new WebmIndex(1_000_000, 2_000, List.of(new WebmIndex.Cluster(40, 100, 0, -1)))
+                .write(storage.recordingDir(3L).resolve(WebmIndex.FILE_NAME));
+
+        assertThatThrownBy(() -> service.createClip(3L, 0, 1_000, null))
+                .isInstanceOf(RecordingMediaException.class)
+                .hasMessage("No media between 0 and 1000 ms")
+                .extracting(e -> ((RecordingMediaException) e).getStatus())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(recordingRepository, never()).save(any());
+        verify(processingJobService, never()).enqueue(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void sourceNotIndexedYetLeavesTheCheckToTheJob() {
+        Recording clip = service.createClip(3L, 0, 1_000, null);
+
+        assertThat(clip.getTitle()).isEqualTo("Episode (clip)");
+        assertThat(clip.getStatus()).isEqualTo("processing");
+        verify(processingJobService).enqueue(eq(9L), eq(ClipJobHandler.TYPE), eq(ClipJobHandler.payload(3L, 0, 1_000)));
+    }
+}
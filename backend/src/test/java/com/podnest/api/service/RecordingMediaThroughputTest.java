@@ -0,0 +1,108 @@
+package com.podnest.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the channel transfer media playback uses with a plain stream copy
+ * over a loopback socket. Opt-in, since the numbers depend on the machine:
+ * {@code mvn test -Dtest=RecordingMediaThroughputTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RecordingMediaThroughputTest {
+
+    private static final int FILE_BYTES = 256 * 1024 * 1024;
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void channelTransferAgainstStreamCopy() throws Exception {
+        Path file = dir.resolve("media");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer block = ByteBuffer.allocate(1024 * 1024);
+            for (int written = 0; written < FILE_BYTES; written += block.capacity()) {
+                block.clear();
+                channel.write(block);
+            }
+        }
+
+        // Warm the page cache and the JIT for both paths before timing anything
+        send(file, true);
+        send(file, false);
+        long transfer = 0;
+        long stream = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            transfer += send(file, true);
+            stream += send(file, false);
+        }
+
+        System.out.printf("media copy over loopback, %d MB x %d: transferTo %.0f MB/s, stream copy %.0f MB/s%n",
+                FILE_BYTES >> 20, ROUNDS, megabytesPerSecond(transfer), megabytesPerSecond(stream));
+    }
+
+    // Returns nanoseconds spent sending the whole file to a reader that discards it
+    private static long send(Path file, boolean useTransfer) throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0))) {
+            CompletableFuture<Long> drained = CompletableFuture.supplyAsync(() -> drain(server));
+            try (SocketChannel socket = SocketChannel.open(server.getLocalAddress())) {
+                long started = System.nanoTime();
+                if (useTransfer) {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        long position = 0;
+                        while (position < FILE_BYTES) {
+                            position += channel.transferTo(position, FILE_BYTES - position, socket);
+                        }
+                    }
+                } else {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        OutputStream out = Channels.newOutputStream(socket);
+                        in.transferTo(out);
+                        out.flush();
+                    }
+                }
+                socket.shutdownOutput();
+                assertThat(drained.get(60, TimeUnit.SECONDS)).isEqualTo(FILE_BYTES);
+                return System.nanoTime() - started;
+            }
+        }
+    }
+
+    private static long drain(ServerSocketChannel server) {
+        try (SocketChannel peer = server.accept()) {
+            ByteBuffer sink = ByteBuffer.allocateDirect(1024 * 1024);
+            long total = 0;
+            int n;
+            while ((n = peer.read(sink)) >= 0) {
+                total += n;
+                sink.clear();
+            }
+            return total;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double megabytesPerSecond(long nanos) {
+        return (double) FILE_BYTES * ROUNDS / (1 << 20) / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,111 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Recording;
+import com.podnest.api.model.RecordingUpload;
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.RecordingRepository;
+import com.podnest.api.repository.RecordingUploadChunkRepository;
+import com.podnest.api.repository.RecordingUploadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecordingUploadServiceTest {
+
+    private static final byte[] MEDIA = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    private final RecordingUploadRepository uploadRepository = mock(RecordingUploadRepository.class);
+    private final RecordingUploadChunkRepository chunkRepository = mock(RecordingUploadChunkRepository.class);
+    private final RecordingRepository recordingRepository = mock(RecordingRepository.class);
+    private final RecordingService recordingService = mock(RecordingService.class);
+    private final CurrentUserService currentUserService = mock(CurrentUserService.class);
+    private RecordingStorage storage;
+    private RecordingUploadService service;
+    private RecordingUpload upload;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setId(7L);
+        Recording recording = Recording.builder().id(3L).studio(Studio.builder().id(1L).owner(owner).build()).build();
+        when(recordingRepository.findById(3L)).thenReturn(Optional.of(recording));
+        when(currentUserService.get()).thenReturn(new CurrentUser(7L, "host@podnest.test", null));
+        when(uploadRepository.save(any(RecordingUpload.class))).thenAnswer(invocation -> {
+            upload = invocation.getArgument(0);
+            if (upload.getStatus() == null) {
+                upload.setStatus("OPEN");
+            }
+            return upload;
+        });
+        when(uploadRepository.findWithOwnerById(anyString())).thenAnswer(invocation -> Optional.ofNullable(upload));
+        when(recordingService.mediaStored(any(), anyLong(), anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        storage = new RecordingStorage(dir.toString());
+        service = new RecordingUploadService(uploadRepository, chunkRepository, recordingRepository, storage,
+                recordingService, currentUserService, 4, 1_000, 48);
+    }
+
+    @Test
+    void chunksArrivingOutOfOrderLandAtTheirOffsets() throws Exception {
+        String uploadId = (String) service.create(3L, MEDIA.length, "video/webm").get("uploadId");
+        assertThat(Files.size(storage.uploadPath(uploadId))).isEqualTo(MEDIA.length);
+
+        // Last chunk first, then the middle one, then the start
+        service.writeChunk(uploadId, 2, 2, chunk(8, 2));
+        service.writeChunk(uploadId, 1, 4, chunk(4, 4));
+        service.writeChunk(uploadId, 0, 4, chunk(0, 4));
+        when(chunkRepository.findReceivedIndexes(uploadId)).thenReturn(List.of(0, 1, 2));
+
+        service.complete(uploadId);
+
+        assertThat(Files.readAllBytes(storage.mediaPath(3L))).isEqualTo(MEDIA);
+        verify(recordingService).mediaStored(any(), eq((long) MEDIA.length), eq("video/webm"));
+    }
+
+    @Test
+    void completeIsRefusedWhileChunksAreMissing() {
+        String uploadId = (String) service.create(3L, MEDIA.length, "video/webm").get("uploadId");
+        service.writeChunk(uploadId, 2, 2, chunk(8, 2));
+        when(chunkRepository.findReceivedIndexes(uploadId)).thenReturn(List.of(2));
+
+        assertThatThrownBy(() -> service.complete(uploadId))
+                .isInstanceOf(RecordingMediaException.class)
+                .hasMessageContaining("[0, 1]");
+    }
+
+    @Test
+    void shortChunkIsNotRecorded() {
+        String uploadId = (String) service.create(3L, MEDIA.length, "video/webm").get("uploadId");
+
+        assertThatThrownBy(() -> service.writeChunk(uploadId, 0, 4, chunk(0, 3)))
+                .isInstanceOf(RecordingMediaException.class)
+                .hasMessageContaining("incomplete");
+        verify(chunkRepository, never()).save(any());
+    }
+
+    private static ByteArrayInputStream chunk(int offset, int length) {
+        return new ByteArrayInputStream(MEDIA, offset, length);
+    }
+}
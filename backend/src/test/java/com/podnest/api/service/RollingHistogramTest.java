@@ -0,0 +1,91 @@
+package com.podnest.api.service;
+
+import com.podnest.api.service.RollingHistogram.Summary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollingHistogramTest {
+
+    @Test
+    void percentilesAreReportedAsBucketUpperBoundsCappedAtTheMax() {
+        RollingHistogram histogram = new RollingHistogram(4, 1_000);
+        for (int v = 1; v <= 100; v++) {
+            histogram.record(v, 500);
+        }
+
+        Summary summary = histogram.summary(500);
+
+        assertThat(summary.count()).isEqualTo(100);
+        assertThat(summary.mean()).isEqualTo(50);
+        // 50 falls in 32-63, 95 in 64-127 which is capped by the real maximum
+        assertThat(summary.p50()).isEqualTo(63);
+        assertThat(summary.p95()).isEqualTo(100);
+        assertThat(summary.max()).isEqualTo(100);
+    }
+
+    @Test
+    void zeroAndNegativeSamplesLandInTheFirstBucket() {
+        RollingHistogram histogram = new RollingHistogram(4, 1_000);
+        histogram.record(0, 0);
+        histogram.record(-5, 0);
+
+        Summary summary = histogram.summary(0);
+
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.p95()).isZero();
+        assertThat(summary.max()).isZero();
+    }
+
+    @Test
+    void samplesAgeOutOfTheWindow() {
+        RollingHistogram histogram = new RollingHistogram(4, 1_000);
+        histogram.record(10, 0);
+        histogram.record(20, 3_500);
+
+        assertThat(histogram.summary(3_999).count()).isEqualTo(2);
+        assertThat(histogram.summary(4_000).count()).isEqualTo(1);
+        assertThat(histogram.isIdle(4_000)).isFalse();
+        assertThat(histogram.summary(7_000)).isEqualTo(new Summary(0, 0, 0, 0, 0));
+        assertThat(histogram.isIdle(7_000)).isTrue();
+    }
+
+    @Test
+    void reusedSlotStartsFromZero() {
+        RollingHistogram histogram = new RollingHistogram(4, 1_000);
+        histogram.record(1_000_000, 0);
+
+        // Same slot index, four periods later
+        histogram.record(5, 4_000);
+
+        Summary summary = histogram.summary(4_000);
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.max()).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentWritersWithinOnePeriodLoseNothing() throws Exception {
+        RollingHistogram histogram = new RollingHistogram(4, 60_000);
+        histogram.record(1, 0);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i % 100, 1_000);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        Summary summary = histogram.summary(1_000);
+        assertThat(summary.count()).isEqualTo(40_001);
+        assertThat(summary.max()).isEqualTo(99);
+    }
+}
@@ -0,0 +1,73 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionBackpressureTrackerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void silentConnectionIsReapedAndActiveOneIsKept() throws Exception {
+        SessionBackpressureTracker tracker = tracker(50);
+        WebSocketSession silent = session("silent");
+        WebSocketSession chatty = session("chatty");
+        tracker.decorate(silent);
+        tracker.decorate(chatty);
+
+        Thread.sleep(100);
+        // Any inbound frame counts, STOMP heartbeats included
+        tracker.touch("chatty");
+        tracker.reapIdleSessions();
+
+        verify(silent).close(SessionBackpressureTracker.IDLE);
+        verify(chatty, never()).close(SessionBackpressureTracker.IDLE);
+        assertThat(tracker.stats()).extracting(entry -> entry.get("sessionId")).containsExactly("chatty");
+        assertThat(meterRegistry.counter("podnest.signaling.session.idle.closed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void connectionThatNeverSendsConnectIsReapedToo() throws Exception {
+        SessionBackpressureTracker tracker = tracker(0);
+        WebSocketSession halfOpen = session("half-open");
+        tracker.decorate(halfOpen);
+
+        Thread.sleep(5);
+        tracker.reapIdleSessions();
+
+        verify(halfOpen).close(SessionBackpressureTracker.IDLE);
+    }
+
+    @Test
+    void closedSessionIsForgotten() throws Exception {
+        SessionBackpressureTracker tracker = tracker(60_000);
+        WebSocketSession session = session("gone");
+        tracker.decorate(session);
+
+        tracker.remove("gone");
+        tracker.close("gone", SessionBackpressureTracker.RESYNC);
+
+        verify(session, never()).close(SessionBackpressureTracker.RESYNC);
+        assertThat(tracker.stats()).isEmpty();
+        assertThat(meterRegistry.get("podnest.signaling.sessions").gauge().value()).isZero();
+    }
+
+    private SessionBackpressureTracker tracker(long idleTimeoutMillis) {
+        return new SessionBackpressureTracker(meterRegistry, 10_000, 512 * 1024, 64 * 1024, 256 * 1024, 5_000,
+                idleTimeoutMillis);
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
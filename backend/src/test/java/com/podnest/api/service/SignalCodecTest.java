@@ -0,0 +1,118 @@
+package com.podnest.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignalCodecTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final SignalCodec codec = new SignalCodec();
+
+    @Test
+    void candidateIsSlicedExactly() {
+        String candidate = "{\"candidate\":\"a=candidate:1 1 udp 2122260223 10.0.0.2 54321 typ host\","
+                + "\"sdpMid\":\"0\",\"sdpMLineIndex\":0}";
+
+        SignalFrame frame = codec.peek(body("{\"candidate\":" + candidate
+                + ",\"targetId\":\"abc\",\"type\":\"candidate\"}"));
+
+        assertThat(frame.type()).isEqualTo(SignalType.CANDIDATE);
+        assertThat(frame.targetId()).isEqualTo("abc");
+        assertThat(new String(frame.value(), StandardCharsets.UTF_8)).isEqualTo(candidate);
+    }
+
+    @Test
+    void offerSliceSurvivesNestedBracesInStrings() {
+        String offer = "{\"type\":\"offer\",\"sdp\":\"v=0\\r\\na=x:{\\\"}\\r\\n\"}";
+
+        SignalFrame frame = codec.peek(body("{\"type\":\"offer\",\"targetId\":\"abc\",\"name\":\"Gus\",\"offer\":"
+                + offer + "}"));
+
+        assertThat(new String(frame.value(), StandardCharsets.UTF_8)).isEqualTo(offer);
+    }
+
+    @Test
+    void batchOfSlicesIsValidJson() throws Exception {
+        byte[] first = codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\","
+                + "\"candidate\":{\"candidate\":\"a=candidate:1 1 udp\"}}")).value();
+        byte[] second = codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\","
+                + "\"candidate\":{\"candidate\":\"a=candidate:2 1 tcp\",\"sdpMid\":\"0\"}}")).value();
+
+        JsonNode batch = JSON.readTree(codec.encodeCandidateBatch("abc", List.of(first, second)));
+
+        assertThat(batch.get("type").asText()).isEqualTo("candidates");
+        assertThat(batch.get("targetId").asText()).isEqualTo("abc");
+        assertThat(batch.get("candidates")).hasSize(2);
+        assertThat(batch.get("candidates").get(0).get("candidate").asText()).isEqualTo("a=candidate:1 1 udp");
+        assertThat(batch.get("candidates").get(1).get("sdpMid").asText()).isEqualTo("0");
+    }
+
+    @Test
+    void payloadThatIsNotAnObjectIsRejected() {
+        // A scalar cannot be sliced reliably, and would break the batch it is spliced into
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\","
+                + "\"candidate\":\"a=candidate:1 1 udp\"}")))
+                .isInstanceOf(InvalidSignalException.class)
+                .hasMessage("candidate must be a JSON object");
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\",\"candidate\":42}")))
+                .isInstanceOf(InvalidSignalException.class);
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"offer\",\"targetId\":\"abc\",\"offer\":null}")))
+                .isInstanceOf(InvalidSignalException.class);
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"answer\",\"targetId\":\"abc\",\"answer\":[]}")))
+                .isInstanceOf(InvalidSignalException.class);
+    }
+
+    @Test
+    void trailingDataIsRejected() {
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\","
+                + "\"candidate\":{}}{\"type\":\"join\"}")))
+                .isInstanceOf(InvalidSignalException.class);
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"join\"} 1")))
+                .isInstanceOf(InvalidSignalException.class);
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"join\"}]")))
+                .isInstanceOf(InvalidSignalException.class);
+        // Whitespace after the object is harmless
+        assertThat(codec.peek(body("{\"type\":\"join\"}\n")).type()).isEqualTo(SignalType.JOIN);
+    }
+
+    @Test
+    void routingFieldsAreChecked() {
+        assertThatThrownBy(() -> codec.peek(body("[]"))).isInstanceOf(InvalidSignalException.class);
+        assertThatThrownBy(() -> codec.peek(body("{\"targetId\":\"abc\"}")))
+                .hasMessage("Signal has no type");
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"offer\",\"targetId\":\"abc\"}")))
+                .hasMessage("offer requires offer");
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"candidate\",\"candidate\":{}}")))
+                .hasMessage("candidate requires a targetId");
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"join\",\"targetId\":\"a b\"}")))
+                .hasMessage("Invalid targetId");
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"join\",\"senderId\":\"abc\"}")))
+                .hasMessage("senderId is assigned by the server");
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\",\"candidate\":{")))
+                .hasMessage("Malformed signal");
+    }
+
+    @Test
+    void sizeLimitsArePerType() {
+        String padding = "x".repeat(2_100);
+
+        assertThatThrownBy(() -> codec.peek(body("{\"type\":\"candidate\",\"targetId\":\"abc\","
+                + "\"candidate\":{\"candidate\":\"" + padding + "\"}}")))
+                .hasMessage("Signal too large for candidate");
+        assertThat(codec.peek(body("{\"type\":\"offer\",\"targetId\":\"abc\",\"offer\":{\"sdp\":\"" + padding + "\"}}"))
+                .type()).isEqualTo(SignalType.OFFER);
+        assertThatThrownBy(() -> codec.peek(new byte[0])).isInstanceOf(InvalidSignalException.class);
+    }
+
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
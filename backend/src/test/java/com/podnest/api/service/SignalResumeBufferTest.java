@@ -0,0 +1,126 @@
+package com.podnest.api.service;
+
+import com.podnest.api.service.SignalResumeBuffer.BufferedSignal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SignalResumeBufferTest {
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void framesAreNumberedPerPeerAndReplayedAfterTheLastSeen() {
+        SignalResumeBuffer buffer = buffer(64, 1024);
+        buffer.open("bob", "1");
+
+        assertThat(buffer.record("bob", "alice", bytes(10))).isEqualTo(1);
+        assertThat(buffer.record("bob", "alice", bytes(10))).isEqualTo(2);
+        assertThat(buffer.record("bob", "carol", bytes(10))).isEqualTo(3);
+
+        List<BufferedSignal> missed = buffer.missedSince("bob", 1).orElseThrow();
+        assertThat(missed).extracting(BufferedSignal::seq).containsExactly(2L, 3L);
+        assertThat(missed).extracting(BufferedSignal::senderPeerId).containsExactly("alice", "carol");
+        assertThat(buffer.missedSince("bob", 3)).contains(List.of());
+    }
+
+    @Test
+    void peerWithoutABufferIsNotNumbered() {
+        SignalResumeBuffer buffer = buffer(64, 1024);
+
+        assertThat(buffer.record("nobody", "alice", bytes(10))).isEqualTo(-1);
+        assertThat(buffer.missedSince("nobody", 0)).isEmpty();
+    }
+
+    @Test
+    void resumeFailsOnceAMissedFrameWasEvicted() {
+        SignalResumeBuffer buffer = buffer(2, 1024);
+        buffer.open("bob", "1");
+        for (int i = 0; i < 3; i++) {
+            buffer.record("bob", "alice", bytes(10));
+        }
+
+        assertThat(buffer.missedSince("bob", 0)).isEmpty();
+        assertThat(buffer.missedSince("bob", 1)).hasValueSatisfying(missed -> assertThat(missed).hasSize(2));
+        // A client claiming to be ahead of the server is not trusted either
+        assertThat(buffer.missedSince("bob", 4)).isEmpty();
+    }
+
+    @Test
+    void framesOverTheNodeBudgetAreNotRetained() {
+        SignalResumeBuffer buffer = buffer(64, 25);
+        buffer.open("bob", "1");
+
+        buffer.record("bob", "alice", bytes(20));
+        long seq = buffer.record("bob", "alice", bytes(20));
+
+        assertThat(seq).isEqualTo(2);
+        assertThat(buffer.missedSince("bob", 0)).isEmpty();
+        assertThat(meterRegistry.counter("podnest.signaling.resume.not-retained").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("podnest.signaling.resume.bytes").gauge().value()).isEqualTo(20.0);
+    }
+
+    @Test
+    void tokenOnlyResumesInItsStudioAndIsReplacedOnReopen() {
+        SignalResumeBuffer buffer = buffer(64, 1024);
+        String first = buffer.open("bob", "1");
+
+        assertThat(buffer.peerForToken(first, "1")).contains("bob");
+        assertThat(buffer.peerForToken(first, "2")).isEmpty();
+        assertThat(buffer.peerForToken(null, "1")).isEmpty();
+
+        String second = buffer.open("bob", "1");
+        assertThat(second).isNotEqualTo(first);
+        assertThat(buffer.peerForToken(first, "1")).isEmpty();
+        assertThat(buffer.peerForToken(second, "1")).contains("bob");
+    }
+
+    @Test
+    void closeReleasesTheBytes() {
+        SignalResumeBuffer buffer = buffer(64, 1024);
+        String token = buffer.open("bob", "1");
+        buffer.record("bob", "alice", bytes(100));
+
+        buffer.close("bob");
+
+        assertThat(buffer.peerForToken(token, "1")).isEmpty();
+        assertThat(meterRegistry.get("podnest.signaling.resume.bytes").gauge().value()).isZero();
+        assertThat(meterRegistry.get("podnest.signaling.resume.peers").gauge().value()).isZero();
+    }
+
+    @Test
+    void keepCancelsThePendingExpiry() {
+        ScheduledFuture<?> expiry = mock(ScheduledFuture.class);
+        doReturn(expiry).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        SignalResumeBuffer buffer = buffer(64, 1024);
+        buffer.open("bob", "1");
+        Runnable onExpiry = () -> { };
+
+        buffer.expireLater("bob", onExpiry);
+        buffer.keep("bob");
+
+        verify(taskScheduler).schedule(eq(onExpiry), any(Instant.class));
+        verify(expiry).cancel(false);
+    }
+
+    private SignalResumeBuffer buffer(int maxFramesPerPeer, long maxTotalBytes) {
+        return new SignalResumeBuffer(taskScheduler, meterRegistry, true, 20_000, maxFramesPerPeer, 64 * 1024,
+                maxTotalBytes);
+    }
+
+    private static byte[] bytes(int length) {
+        return new byte[length];
+    }
+}
@@ -0,0 +1,237 @@
+package com.podnest.api.service;
+
+import com.podnest.api.model.Studio;
+import com.podnest.api.model.User;
+import com.podnest.api.repository.ScheduledSessionRepository;
+import com.podnest.api.repository.StudioRepository;
+import com.podnest.api.repository.SubscriptionRepository;
+import com.podnest.api.service.PresenceDirectory.RemotePeer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SignalingServiceTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final StudioRepository studioRepository = mock(StudioRepository.class);
+    private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+    private final ScheduledSessionRepository scheduledSessionRepository = mock(ScheduledSessionRepository.class);
+    private final StudioDispatchLanes lanes = mock(StudioDispatchLanes.class);
+    private final SignalResumeBuffer resumeBuffer = mock(SignalResumeBuffer.class);
+    private final SessionBackpressureTracker backpressureTracker = mock(SessionBackpressureTracker.class);
+    private final PresenceDirectory directory = mock(PresenceDirectory.class);
+    private final StudioPresenceRegistry registry = new StudioPresenceRegistry();
+    private StudioPolicyCache policyCache;
+    private SignalingService service;
+
+    @BeforeEach
+    void setUp() {
+        // Lanes run inline so every call below is complete when it returns
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        }).when(lanes).execute(anyString(), any(Runnable.class));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        }).when(lanes).executeDroppable(anyString(), any(Runnable.class));
+        for (long id : new long[] {1L, 2L}) {
+            User owner = new User();
+            owner.setId(100 + id);
+            when(studioRepository.findById(id)).thenReturn(Optional.of(Studio.builder().id(id).owner(owner).build()));
+        }
+        when(subscriptionRepository.findByUserId(anyLong())).thenReturn(Optional.empty());
+        when(scheduledSessionRepository.findFirstByStudioIdAndStartTimeBetweenOrderByStartTimeDesc(anyLong(), any(), any()))
+                .thenReturn(Optional.empty());
+        when(resumeBuffer.record(anyString(), anyString(), any())).thenReturn(1L);
+
+        policyCache = new StudioPolicyCache(studioRepository, subscriptionRepository, scheduledSessionRepository,
+                4, 10, 25, 100, 60);
+        service = new SignalingService(messagingTemplate, registry, policyCache, directory,
+                mock(IceCandidateCoalescer.class), lanes, new SignalCodec(), backpressureTracker, resumeBuffer,
+                mock(ConnectionQualityAggregator.class));
+        ReflectionTestUtils.setField(service, "idleTimeoutMillis", 30_000L);
+    }
+
+    @Test
+    void policyIsLoadedBeforeTheJoinIsQueued() {
+        StudioDispatchLanes queued = mock(StudioDispatchLanes.class);
+        SignalingService deferred = new SignalingService(messagingTemplate, registry, policyCache, directory,
+                mock(IceCandidateCoalescer.class), queued, new SignalCodec(), backpressureTracker, resumeBuffer,
+                mock(ConnectionQualityAggregator.class));
+
+        deferred.enter("1", "alice", null, "Alice");
+        deferred.enter("1", "bob", null, "Bob");
+
+        // One query for both joins, and none of it left for the lane
+        verify(studioRepository, times(1)).findById(1L);
+        verify(queued, times(2)).execute(eq("1"), any(Runnable.class));
+    }
+
+    @Test
+    void offerThatCannotBeQueuedMakesTheSenderResync() {
+        join("1", "alice");
+        join("1", "bob");
+        when(lanes.execute(anyString(), any(Runnable.class))).thenReturn(false);
+
+        service.relay("1", "alice", body("{\"type\":\"offer\",\"targetId\":\"bob\",\"offer\":{}}"));
+
+        verify(backpressureTracker).close("alice", SessionBackpressureTracker.RESYNC);
+    }
+
+    @Test
+    void candidatesUseTheDroppablePath() {
+        join("1", "alice");
+        join("1", "bob");
+
+        service.relay("1", "alice", body("{\"type\":\"candidate\",\"targetId\":\"bob\",\"candidate\":{}}"));
+
+        verify(lanes).executeDroppable(eq("1"), any(Runnable.class));
+        verify(lanes, never()).execute(anyString(), any(Runnable.class));
+        verify(messagingTemplate).send(eq("/user/bob/queue/signal"), any());
+    }
+
+    @Test
+    void idleEvictionAlsoClosesTheConnection() {
+        join("1", "alice");
+        ReflectionTestUtils.setField(service, "idleTimeoutMillis", -1L);
+
+        service.evictIdleParticipants();
+
+        assertThat(registry.get("alice")).isNull();
+        verify(backpressureTracker).close("alice", SessionBackpressureTracker.IDLE);
+    }
+
+    @Test
+    void targetedSignalGoesOnlyToTheTargetSession() {
+        join("1", "alice");
+        join("1", "bob");
+        join("1", "carol");
+
+        service.relay("1", "alice", body("{\"type\":\"offer\",\"targetId\":\"bob\",\"offer\":{\"sdp\":\"v=0\"}}"));
+
+        ArgumentCaptor<Message<?>> sent = messageCaptor();
+        verify(messagingTemplate).send(eq("/user/bob/queue/signal"), sent.capture());
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(sent.getValue());
+        assertThat(headers.getFirstNativeHeader(SignalingService.SENDER_HEADER)).isEqualTo("alice");
+        assertThat(headers.getSessionId()).isEqualTo("bob");
+        verify(messagingTemplate, never()).send(eq("/user/carol/queue/signal"), any());
+        verify(messagingTemplate, never()).send(eq("/topic/studio/1"), any());
+    }
+
+    @Test
+    void untargetedJoinIsBroadcastToTheRoom() {
+        join("1", "alice");
+
+        service.relay("1", "alice", body("{\"type\":\"join\"}"));
+
+        ArgumentCaptor<Message<?>> sent = messageCaptor();
+        verify(messagingTemplate).send(eq("/topic/studio/1"), sent.capture());
+        assertThat(SimpMessageHeaderAccessor.wrap(sent.getValue()).getFirstNativeHeader(SignalingService.SENDER_HEADER))
+                .isEqualTo("alice");
+    }
+
+    @Test
+    void signalsFromOutsideTheRoomOrToAnotherRoomAreDropped() {
+        join("1", "alice");
+        join("2", "dave");
+
+        service.relay("2", "alice", body("{\"type\":\"offer\",\"targetId\":\"dave\",\"offer\":{}}"));
+        service.relay("1", "alice", body("{\"type\":\"offer\",\"targetId\":\"dave\",\"offer\":{}}"));
+        service.relay("1", "alice", body("{\"type\":\"offer\",\"targetId\":\"nobody\",\"offer\":{}}"));
+
+        verify(messagingTemplate, never()).send(anyString(), any());
+    }
+
+    @Test
+    void peerOnAnotherNodeIsReachableOnlyOnceAdmittedThere() {
+        join("1", "alice");
+        when(directory.peer("1", "erin")).thenReturn(new RemotePeer("erin", "erin-2", "Erin", false, true));
+        when(directory.peer("1", "frank")).thenReturn(new RemotePeer("frank", "frank", "Frank", false, false));
+
+        service.relay("1", "alice", body("{\"type\":\"offer\",\"targetId\":\"erin\",\"offer\":{}}"));
+        service.relay("1", "alice", body("{\"type\":\"offer\",\"targetId\":\"frank\",\"offer\":{}}"));
+
+        // Delivered to the session the other node reported, which changed when erin resumed there
+        verify(messagingTemplate).send(eq("/user/erin-2/queue/signal"), any());
+        verify(messagingTemplate, never()).send(eq("/user/frank/queue/signal"), any());
+    }
+
+    @Test
+    void capacityCountsMembersOnOtherNodes() {
+        when(directory.members("1")).thenReturn(List.of(
+                new RemotePeer("x", "x", "X", false, true),
+                new RemotePeer("y", "y", "Y", false, true)));
+
+        service.enter("1", "alice", null, "Alice");
+        service.enter("1", "bob", null, "Bob");
+        service.enter("1", "carol", null, "Carol");
+
+        assertThat(registry.isAdmitted("alice", "1")).isTrue();
+        assertThat(registry.isAdmitted("bob", "1")).isTrue();
+        assertThat(registry.get("carol")).isNull();
+        verify(directory, times(2)).publish("1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void roomStateListsMembersFromEveryNode() {
+        when(directory.members("1")).thenReturn(List.of(new RemotePeer("erin", "erin", "Erin", false, true)));
+        when(directory.waiting("1")).thenReturn(List.of(new RemotePeer("gus", "gus", "Gus", false, false)));
+
+        service.enter("1", "alice", null, "Alice");
+
+        ArgumentCaptor<Object> state = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/studio/1"), state.capture());
+        Map<String, Object> payload = (Map<String, Object>) state.getValue();
+        assertThat((List<Map<String, Object>>) payload.get("members"))
+                .extracting(member -> member.get("id"))
+                .containsExactly("alice", "erin");
+        assertThat(payload.get("waiting")).isEqualTo(1);
+    }
+
+    @Test
+    void remoteAdmitMovesGuestsWaitingHere() {
+        registry.join("1", "gus", null, "Gus",
+                new StudioPresenceRegistry.RoomPolicy(101L, 4, true, false), 0);
+
+        service.remoteAdmit("1", List.of("gus"));
+
+        assertThat(registry.isAdmitted("gus", "1")).isTrue();
+        verify(directory).publish("1");
+    }
+
+    private void join(String studioId, String sessionId) {
+        registry.join(studioId, sessionId, null, sessionId, policyCache.get(studioId), 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Message<?>> messageCaptor() {
+        return ArgumentCaptor.forClass((Class<Message<?>>) (Class<?>) Message.class);
+    }
+
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
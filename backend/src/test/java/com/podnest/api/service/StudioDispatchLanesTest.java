@@ -0,0 +1,84 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudioDispatchLanesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StudioDispatchLanes lanes = new StudioDispatchLanes(meterRegistry, 1, 1, 50);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        lanes.shutdown();
+    }
+
+    @Test
+    void fullLaneDropsCandidatesAndReportsControlTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.execute("1", () -> {
+            started.countDown();
+            await(release);
+        });
+        started.await(1, TimeUnit.SECONDS);
+        assertThat(lanes.execute("1", () -> { })).isTrue();
+
+        assertThat(lanes.executeDroppable("1", () -> { })).isFalse();
+        boolean accepted = lanes.execute("1", () -> { });
+
+        assertThat(accepted).isFalse();
+        assertThat(meterRegistry.get("podnest.signaling.lane.rejected").tag("kind", "droppable").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("podnest.signaling.lane.rejected").tag("kind", "control").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void controlTaskWaitsForRoomAndKeepsItsOrder() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        lanes.execute("1", () -> await(release));
+        lanes.execute("1", () -> order.add(1));
+
+        // Frees the queue slot while the next submission is waiting for it
+        new Thread(() -> {
+            sleep(20);
+            release.countDown();
+        }).start();
+        boolean accepted = lanes.execute("1", () -> {
+            order.add(2);
+            done.countDown();
+        });
+
+        assertThat(accepted).isTrue();
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(1, 2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.podnest.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StunResponderTest {
+
+    private static final byte[] TRANSACTION_ID = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+
+    @Test
+    void answersBindingRequestWithTheXorMappedIpv4Address() throws Exception {
+        InetSocketAddress client = new InetSocketAddress(InetAddress.getByName("192.0.2.33"), 54321);
+        ByteBuffer out = ByteBuffer.allocate(StunResponder.HEADER_BYTES + 24);
+
+        assertThat(StunResponder.writeResponse(bindingRequest(), client, out)).isTrue();
+
+        assertThat(mappedAddress(out)).isEqualTo(client);
+    }
+
+    @Test
+    void answersBindingRequestWithTheXorMappedIpv6Address() throws Exception {
+        InetSocketAddress client = new InetSocketAddress(InetAddress.getByName("2001:db8::1"), 3478);
+        ByteBuffer out = ByteBuffer.allocate(StunResponder.HEADER_BYTES + 24);
+
+        assertThat(StunResponder.writeResponse(bindingRequest(), client, out)).isTrue();
+
+        assertThat(mappedAddress(out)).isEqualTo(client);
+    }
+
+    @Test
+    void ignoresAnythingButAWellFormedBindingRequest() {
+        InetSocketAddress client = new InetSocketAddress(InetAddress.getLoopbackAddress(), 5000);
+        ByteBuffer out = ByteBuffer.allocate(StunResponder.HEADER_BYTES + 24);
+
+        ByteBuffer wrongType = bindingRequest();
+        wrongType.putShort(0, (short) 0x0111);
+        ByteBuffer wrongCookie = bindingRequest();
+        wrongCookie.putInt(4, 0);
+        ByteBuffer wrongLength = bindingRequest();
+        wrongLength.putShort(2, (short) 4);
+
+        assertThat(StunResponder.writeResponse(wrongType, client, out)).isFalse();
+        assertThat(StunResponder.writeResponse(wrongCookie, client, out)).isFalse();
+        assertThat(StunResponder.writeResponse(wrongLength, client, out)).isFalse();
+        assertThat(StunResponder.writeResponse(ByteBuffer.allocate(8), client, out)).isFalse();
+    }
+
+    @Test
+    void answersOverLoopback() throws Exception {
+        StunResponder responder = new StunResponder(new SimpleMeterRegistry(), 0, "127.0.0.1");
+        responder.start();
+        try (DatagramSocket socket = new DatagramSocket(new InetSocketAddress("127.0.0.1", 0))) {
+            socket.setSoTimeout(5_000);
+            DatagramChannel channel = (DatagramChannel) ReflectionTestUtils.getField(responder, "channel");
+            ByteBuffer request = bindingRequest();
+            socket.send(new DatagramPacket(request.array(), request.remaining(), channel.getLocalAddress()));
+
+            DatagramPacket reply = new DatagramPacket(new byte[1500], 1500);
+            socket.receive(reply);
+
+            ByteBuffer response = ByteBuffer.wrap(reply.getData(), 0, reply.getLength());
+            assertThat(response.getShort(0)).isEqualTo(StunResponder.BINDING_SUCCESS);
+            assertThat(Arrays.copyOfRange(reply.getData(), 8, 20)).isEqualTo(TRANSACTION_ID);
+            assertThat(mappedAddress(response)).isEqualTo(socket.getLocalSocketAddress());
+        } finally {
+            responder.stop();
+        }
+    }
+
+    private static ByteBuffer bindingRequest() {
+        ByteBuffer request = ByteBuffer.allocate(StunResponder.HEADER_BYTES);
+        request.putShort(StunResponder.BINDING_REQUEST);
+        request.putShort((short) 0);
+        request.putInt(StunResponder.MAGIC_COOKIE);
+        request.put(TRANSACTION_ID);
+        return request.flip();
+    }
+
+    // Decodes the XOR-MAPPED-ADDRESS attribute the way a browser would
+    private static InetSocketAddress mappedAddress(ByteBuffer response) throws Exception {
+        assertThat(response.getShort(StunResponder.HEADER_BYTES)).isEqualTo(StunResponder.XOR_MAPPED_ADDRESS);
+        int family = response.get(StunResponder.HEADER_BYTES + 5);
+        int port = (response.getShort(StunResponder.HEADER_BYTES + 6) ^ (StunResponder.MAGIC_COOKIE >>> 16)) & 0xFFFF;
+        byte[] address = new byte[family == 0x01 ? 4 : 16];
+        for (int i = 0; i < address.length; i++) {
+            address[i] = (byte) (response.get(StunResponder.HEADER_BYTES + 8 + i) ^ response.get(4 + i));
+        }
+        return new InetSocketAddress(InetAddress.getByAddress(address), port);
+    }
+}
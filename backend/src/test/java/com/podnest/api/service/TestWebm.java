@@ -0,0 +1,111 @@
+package com.podnest.api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds small WebM files byte by byte for the remux, clip and waveform
+ * tests. {@link #live} lays a file out the way MediaRecorder does.
+ */
+final class TestWebm {
+
+    static final int VIDEO_TRACK = 1;
+    static final int AUDIO_TRACK = 2;
+
+    private TestWebm() {
+    }
+
+    /**
+     * Unknown-size Segment and clusters, no Duration, no Cues. Each cluster
+     * holds a video keyframe at its start, an audio block 10 ticks in and a
+     * video delta frame halfway through; every payload byte names its
+     * cluster and block, so copies can be checked exactly.
+     */
+    static byte[] live(int clusters, long clusterTicks) {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        write(file, element(WebmRemux.EBML,
+                uint(0x4286L, 1), // EBMLVersion
+                string(0x4282L, "webm"))); // DocType
+        write(file, unsizedHeader(WebmRemux.SEGMENT));
+        write(file, element(WebmRemux.INFO,
+                uint(WebmRemux.TIMECODE_SCALE, 1_000_000),
+                string(0x4D80L, "TestWebm"))); // MuxingApp
+        write(file, element(WebmRemux.TRACKS,
+                track(VIDEO_TRACK, WebmRemux.TRACK_TYPE_VIDEO, "V_VP8"),
+                track(AUDIO_TRACK, 2, "A_OPUS")));
+        for (int i = 0; i < clusters; i++) {
+            write(file, unsizedHeader(WebmRemux.CLUSTER));
+            write(file, uint(WebmRemux.CLUSTER_TIMECODE, i * clusterTicks));
+            write(file, simpleBlock(VIDEO_TRACK, 0, true, payload(i, 0, 40)));
+            write(file, simpleBlock(AUDIO_TRACK, 10, true, payload(i, 1, 20)));
+            write(file, simpleBlock(VIDEO_TRACK, (int) (clusterTicks / 2), false, payload(i, 2, 30)));
+        }
+        return file.toByteArray();
+    }
+
+    static byte[] payload(int cluster, int block, int length) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) (cluster * 4 + block));
+        return bytes;
+    }
+
+    static byte[] track(int number, int type, String codecId) {
+        return element(WebmRemux.TRACK_ENTRY,
+                uint(WebmRemux.TRACK_NUMBER, number),
+                uint(WebmRemux.TRACK_TYPE, type),
+                string(WebmRemux.CODEC_ID, codecId));
+    }
+
+    static byte[] simpleBlock(int track, int relative, boolean keyframe, byte[] payload) {
+        ByteBuffer block = ByteBuffer.allocate(4 + payload.length);
+        block.put((byte) (0x80 | track)).putShort((short) relative).put((byte) (keyframe ? 0x80 : 0)).put(payload);
+        return element(WebmRemux.SIMPLE_BLOCK, block.array());
+    }
+
+    static byte[] uint(long id, long value) {
+        return element(id, ByteBuffer.allocate(8).putLong(value).array());
+    }
+
+    static byte[] string(long id, String value) {
+        return element(id, value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Sizes below 127 take one byte, anything longer the 8-byte form
+    static byte[] element(long id, byte[]... children) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] child : children) {
+            write(body, child);
+        }
+        ByteArrayOutputStream element = new ByteArrayOutputStream();
+        write(element, id(id));
+        if (body.size() < 127) {
+            element.write(0x80 | body.size());
+        } else {
+            write(element, ByteBuffer.allocate(8).putLong(body.size()).put(0, (byte) 0x01).array());
+        }
+        write(element, body.toByteArray());
+        return element.toByteArray();
+    }
+
+    static byte[] unsizedHeader(long id) {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        write(header, id(id));
+        write(header, new byte[] {0x01, -1, -1, -1, -1, -1, -1, -1});
+        return header.toByteArray();
+    }
+
+    static byte[] id(long id) {
+        int width = id > 0xFFFFFF ? 4 : id > 0xFFFF ? 3 : id > 0xFF ? 2 : 1;
+        byte[] bytes = new byte[width];
+        for (int i = 0; i < width; i++) {
+            bytes[i] = (byte) (id >>> (8 * (width - 1 - i)));
+        }
+        return bytes;
+    }
+
+    private static void write(ByteArrayOutputStream out, byte[] bytes) {
+        out.write(bytes, 0, bytes.length);
+    }
+}
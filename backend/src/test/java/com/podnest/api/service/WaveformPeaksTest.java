@@ -0,0 +1,121 @@
+package com.podnest.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WaveformPeaksTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void samplesFoldIntoMinMaxPairsAcrossCalls() {
+        WaveformPeaks.Builder builder = new WaveformPeaks.Builder(8000, 4, 6);
+        short[] samples = {0, 256, -512, 1024, Short.MIN_VALUE, Short.MAX_VALUE, 0, 0, 2048, -2048};
+
+        // The second call starts part way through the first peak
+        builder.add(samples, 0, 3);
+        builder.add(samples, 3, 7);
+        WaveformPeaks peaks = builder.build();
+
+        assertThat(peaks.sampleRate()).isEqualTo(8000);
+        assertThat(peaks.levels()).hasSize(1);
+        WaveformPeaks.Level level = peaks.levels().get(0);
+        assertThat(level.samplesPerPeak()).isEqualTo(4);
+        // Samples are kept as their high byte; the two trailing samples still make a peak
+        assertThat(level.peaks()).containsExactly(-2, 4, -128, 127, -8, 8);
+        assertThat(level.count()).isEqualTo(3);
+    }
+
+    @Test
+    void offsetSkipsSamplesAtTheStart() {
+        WaveformPeaks.Builder builder = new WaveformPeaks.Builder(8000, 2, 6);
+
+        builder.add(new short[] {Short.MAX_VALUE, 512, 768}, 1, 2);
+
+        assertThat(builder.build().levels().get(0).peaks()).containsExactly(2, 3);
+    }
+
+    @Test
+    void coarserLevelsCombineFourPeaksUntilFewAreLeft() {
+        WaveformPeaks peaks = ramp(1_000, 6);
+
+        assertThat(peaks.levels()).extracting(WaveformPeaks.Level::count).containsExactly(1_000, 250, 63);
+        assertThat(peaks.levels()).extracting(WaveformPeaks.Level::samplesPerPeak).containsExactly(1, 4, 16);
+        WaveformPeaks.Level finest = peaks.levels().get(0);
+        WaveformPeaks.Level coarse = peaks.levels().get(1);
+        for (int i = 0; i < coarse.count(); i++) {
+            byte min = Byte.MAX_VALUE;
+            byte max = Byte.MIN_VALUE;
+            for (int j = 4 * i; j < 4 * i + 4; j++) {
+                min = (byte) Math.min(min, finest.peaks()[2 * j]);
+                max = (byte) Math.max(max, finest.peaks()[2 * j + 1]);
+            }
+            assertThat(coarse.peaks()[2 * i]).isEqualTo(min);
+            assertThat(coarse.peaks()[2 * i + 1]).isEqualTo(max);
+        }
+        // 250 does not split into fours; the last coarse peak covers the two left over
+        WaveformPeaks.Level coarsest = peaks.levels().get(2);
+        assertThat(coarsest.peaks()[125]).isEqualTo((byte) Math.max(coarse.peaks()[497], coarse.peaks()[499]));
+    }
+
+    @Test
+    void levelCountIsCapped() {
+        assertThat(ramp(10_000, 2).levels()).extracting(WaveformPeaks.Level::count).containsExactly(10_000, 2_500);
+        assertThat(ramp(10, 6).levels()).hasSize(1);
+    }
+
+    @Test
+    void levelIsTheCoarsestThatCoversTheResolution() {
+        WaveformPeaks peaks = ramp(1_000, 6);
+
+        assertThat(peaks.level(1).count()).isEqualTo(63);
+        assertThat(peaks.level(63).count()).isEqualTo(63);
+        assertThat(peaks.level(64).count()).isEqualTo(250);
+        assertThat(peaks.level(250).count()).isEqualTo(250);
+        assertThat(peaks.level(251).count()).isEqualTo(1_000);
+        // Wider than anything stored: the finest level is the best there is
+        assertThat(peaks.level(5_000).count()).isEqualTo(1_000);
+    }
+
+    @Test
+    void fileRoundTrip() throws Exception {
+        WaveformPeaks peaks = ramp(1_000, 6);
+        Path file = dir.resolve(WaveformPeaks.FILE_NAME);
+
+        peaks.write(file);
+        WaveformPeaks read = WaveformPeaks.read(file);
+
+        assertThat(read.sampleRate()).isEqualTo(peaks.sampleRate());
+        assertThat(read.levels()).hasSameSizeAs(peaks.levels());
+        for (int i = 0; i < peaks.levels().size(); i++) {
+            assertThat(read.levels().get(i).samplesPerPeak()).isEqualTo(peaks.levels().get(i).samplesPerPeak());
+            assertThat(read.levels().get(i).peaks()).isEqualTo(peaks.levels().get(i).peaks());
+        }
+    }
+
+    @Test
+    void otherFilesAreNotReadAsPeaks() throws Exception {
+        Path file = Files.writeString(dir.resolve("index"), "PNX1 and more");
+
+        assertThatThrownBy(() -> WaveformPeaks.read(file)).isInstanceOf(IOException.class);
+    }
+
+    // One sample per peak, so the finest level is exactly the input, sweeping the whole range back and forth
+    private static WaveformPeaks ramp(int count, int maxLevels) {
+        WaveformPeaks.Builder builder = new WaveformPeaks.Builder(8000, 1, maxLevels);
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = (short) ((i * 997 % 65_536) - 32_768);
+        }
+        builder.add(samples, 0, count);
+        return builder.build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.podnest.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebmRemuxTest {
+
+    private static final int CLUSTERS = 5;
+    private static final long CLUSTER_TICKS = 1_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void scanFindsEveryClusterOfALiveFile() throws Exception {
+        Path live = Files.write(dir.resolve("live.webm"), TestWebm.live(CLUSTERS, CLUSTER_TICKS));
+
+        WebmRemux.Layout layout;
+        try (FileChannel in = FileChannel.open(live, StandardOpenOption.READ)) {
+            layout = WebmRemux.scan(in);
+        }
+
+        WebmRemux.Head head = layout.head();
+        assertThat(head.timecodeScale()).isEqualTo(1_000_000);
+        assertThat(head.tracks()).extracting(WebmRemux.Track::codecId).containsExactly("V_VP8", "A_OPUS");
+        assertThat(head.cueTracks()).containsExactly((long) TestWebm.VIDEO_TRACK);
+        assertThat(layout.clusters()).hasSize(CLUSTERS);
+        for (int i = 0; i < CLUSTERS; i++) {
+            WebmRemux.Cluster cluster = layout.clusters().get(i);
+            assertThat(cluster.timecode()).isEqualTo(i * CLUSTER_TICKS);
+            assertThat(cluster.keyframe()).isEqualTo(i * CLUSTER_TICKS);
+            assertThat(cluster.lastBlock()).isEqualTo(i * CLUSTER_TICKS + CLUSTER_TICKS / 2);
+        }
+        // An unknown-size cluster ends where the next one starts
+        assertThat(layout.clusters().get(0).next()).isEqualTo(layout.clusters().get(1).start());
+    }
+
+    @Test
+    void remuxedFileIsSizedIndexedAndKeepsEveryBlock() throws Exception {
+        Path live = Files.write(dir.resolve("live.webm"), TestWebm.live(CLUSTERS, CLUSTER_TICKS));
+        Path remuxed = dir.resolve("media.webm");
+
+        WebmIndex index = remux(live, remuxed, 0, CLUSTERS);
+
+        assertThat(index.durationTicks()).isEqualTo((CLUSTERS - 1) * CLUSTER_TICKS + CLUSTER_TICKS / 2);
+        assertThat(index.durationMillis()).isEqualTo(4_500);
+        assertThat(index.clusters()).hasSize(CLUSTERS);
+        try (FileChannel out = FileChannel.open(remuxed, StandardOpenOption.READ)) {
+            EbmlReader reader = new EbmlReader(out);
+            WebmRemux.Head head = WebmRemux.scanHead(reader);
+            reader.seek(head.ebmlHeaderEnd());
+            assertThat(reader.readId()).isEqualTo(WebmRemux.SEGMENT);
+            long segmentSize = reader.readSize();
+            long segmentData = reader.position();
+            assertThat(segmentData + segmentSize).isEqualTo(out.size());
+
+            // Every index entry points at a cluster with a real size
+            for (WebmIndex.Cluster cluster : index.clusters()) {
+                reader.seek(cluster.offset());
+                assertThat(reader.readId()).isEqualTo(WebmRemux.CLUSTER);
+                assertThat(reader.readSize()).isEqualTo(cluster.size() - 12);
+            }
+            WebmIndex.Cluster last = index.clusters().get(CLUSTERS - 1);
+            reader.seek(last.offset() + last.size());
+            assertThat(reader.readId()).isEqualTo(WebmRemux.CUES);
+
+            // SeekHead leads to Info, which now carries the Duration
+            reader.seek(segmentData);
+            assertThat(reader.readId()).isEqualTo(WebmRemux.SEEK_HEAD);
+            assertThat(readDuration(reader, head)).isEqualTo(index.durationTicks());
+        }
+        assertThat(blocks(remuxed)).containsExactlyElementsOf(blocks(live));
+    }
+
+    @Test
+    void remuxIsStableWhenRunAgain() throws Exception {
+        Path live = Files.write(dir.resolve("live.webm"), TestWebm.live(CLUSTERS, CLUSTER_TICKS));
+        Path once = dir.resolve("once.webm");
+        Path twice = dir.resolve("twice.webm");
+
+        WebmIndex first = remux(live, once, 0, CLUSTERS);
+        WebmIndex second = remux(once, twice, 0, CLUSTERS);
+
+        // The old Cues and SeekHead are dropped rather than copied along
+        assertThat(Files.mismatch(once, twice)).isEqualTo(-1);
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void runOfClustersIsShiftedToStartAtZero() throws Exception {
+        Path live = Files.write(dir.resolve("live.webm"), TestWebm.live(CLUSTERS, CLUSTER_TICKS));
+        Path clip = dir.resolve("clip.webm");
+
+        WebmIndex index = remux(live, clip, 2, 4);
+
+        assertThat(index.clusters()).extracting(WebmIndex.Cluster::timecode).containsExactly(0L, CLUSTER_TICKS);
+        assertThat(index.durationTicks()).isEqualTo(CLUSTER_TICKS + CLUSTER_TICKS / 2);
+        List<Block> blocks = blocks(clip);
+        assertThat(blocks).hasSize(6);
+        assertThat(blocks.get(0).time()).isZero();
+        // Payloads of the third source cluster come first
+        assertThat(blocks.get(0).payload()).isEqualTo(TestWebm.payload(2, 0, 40));
+    }
+
+    @Test
+    void truncatedTailKeepsEverythingBeforeTheCut() throws Exception {
+        byte[] whole = TestWebm.live(CLUSTERS, CLUSTER_TICKS);
+        // A tab that crashed part way through the last block
+        Path live = Files.write(dir.resolve("live.webm"), Arrays.copyOf(whole, whole.length - 10));
+
+        WebmRemux.Layout layout;
+        try (FileChannel in = FileChannel.open(live, StandardOpenOption.READ)) {
+            layout = WebmRemux.scan(in);
+        }
+
+        assertThat(layout.clusters()).hasSize(CLUSTERS);
+        assertThat(layout.clusters().get(CLUSTERS - 1).lastBlock()).isEqualTo((CLUSTERS - 1) * CLUSTER_TICKS + 10);
+        assertThat(blocks(live)).hasSize(3 * CLUSTERS - 1);
+    }
+
+    @Test
+    void fileThatIsNotWebmIsRejected() throws Exception {
+        Path text = Files.writeString(dir.resolve("notes.txt"), "not a media file");
+
+        try (FileChannel in = FileChannel.open(text, StandardOpenOption.READ)) {
+            assertThatThrownBy(() -> WebmRemux.scan(in)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private record Block(long track, long time, byte[] payload) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Block block && block.track == track && block.time == time
+                    && Arrays.equals(block.payload, payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(track) * 31 + Long.hashCode(time) * 17 + Arrays.hashCode(payload);
+        }
+    }
+
+    private static WebmIndex remux(Path source, Path target, int from, int to) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            WebmRemux.Layout layout = WebmRemux.scan(in);
+            List<WebmRemux.Cluster> clusters = layout.clusters().subList(from, to);
+            return WebmRemux.write(in, layout.head(), clusters, clusters.get(0).timecode(), out);
+        }
+    }
+
+    private static List<Block> blocks(Path file) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            EbmlReader reader = new EbmlReader(in);
+            WebmRemux.scan(reader, WebmRemux.scanHead(reader), (track, time, dataStart, dataEnd) -> {
+                byte[] payload = new byte[(int) (dataEnd - dataStart)];
+                reader.seek(dataStart);
+                reader.read(payload, payload.length);
+                blocks.add(new Block(track, time, payload));
+            });
+        }
+        return blocks;
+    }
+
+    // Walks the SeekHead's Info entry to the Duration float
+    private static long readDuration(EbmlReader reader, WebmRemux.Head head) throws IOException {
+        long seekHeadEnd = reader.readSize() + reader.position();
+        reader.seek(seekHeadEnd);
+        assertThat(reader.readId()).isEqualTo(WebmRemux.INFO);
+        long infoEnd = reader.readSize() + reader.position();
+        while (reader.position() < infoEnd) {
+            long id = reader.readId();
+            long size = reader.readSize();
+            if (id == WebmRemux.DURATION) {
+                return (long) reader.readFloat((int) size);
+            }
+            reader.seek(reader.position() + size);
+        }
+        throw new AssertionError("No Duration in " + head.infoChildren().size() + " Info children");
+    }
+}
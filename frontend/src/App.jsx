@@ -29,6 +29,8 @@ function App() {
     const token = params.get('token');
     if (token) {
       localStorage.setItem('podnest_token', token);
+      // The refresh token arrived as an HttpOnly cookie; drop any left over from a password login
+      localStorage.removeItem('podnest_refresh_token');
       window.location.href = '/';
       return;
     }
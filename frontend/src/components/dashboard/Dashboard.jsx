@@ -13,6 +13,7 @@ import api from '../../lib/api';
 import { useAuth } from '../../context/AuthContext';
 import { useToast } from '../../context/ToastContext';
 import SchedulePanel from './SchedulePanel';
+import Waveform from './Waveform';
 
 const Dashboard = ({ onBack, onEnterStudio, onNavigate }) => {
     const { user } = useAuth();
@@ -223,7 +224,8 @@ const Dashboard = ({ onBack, onEnterStudio, onNavigate }) => {
                                             duration={recording.duration}
                                             date={new Date(recording.createdAt).toLocaleDateString()}
                                             studio={recording.studio?.name || 'Unknown Studio'}
-                                            fileUrl={recording.fileUrl}
+                                            mediaUrl={recording.mediaUrl ? `${MEDIA_BASE}${recording.mediaUrl}` : null}
+                                            peaksUrl={recording.peaksUrl ? `${MEDIA_BASE}${recording.peaksUrl}` : null}
                                         />
                                     ))
                                 )}
@@ -310,13 +312,22 @@ const StudioCard = ({ id, name, inviteCode, count, lastDate, active, onEnter, on
     </div>
 );
 
-const RecordingItem = ({ title, duration, date, studio, fileUrl }) => (
+// Media URLs from the API are signed paths on the backend, not on this origin
+const MEDIA_BASE = api.defaults.baseURL.replace(/\/api$/, '');
+
+const RecordingItem = ({ title, duration, date, studio, mediaUrl, peaksUrl }) => (
     <div className="flex items-center justify-between p-4 px-6 border-b border-white/5 last:border-0 hover:bg-white/5 transition-colors group">
         <div className="flex items-center gap-4">
-            <div className="w-16 h-10 rounded-lg bg-card border border-white/10 flex items-center justify-center overflow-hidden relative">
+            <a
+                href={mediaUrl || undefined}
+                target="_blank"
+                rel="noopener noreferrer"
+                className="w-16 h-10 rounded-lg bg-card border border-white/10 flex items-center justify-center overflow-hidden relative"
+                title={mediaUrl ? 'Play' : 'Still processing'}
+            >
                 <div className="absolute inset-0 bg-gradient-to-br from-accent-purple/10 to-transparent" />
                 <Play className="w-4 h-4 text-white/40 group-hover:text-white transition-colors" />
-            </div>
+            </a>
             <div>
                 <h4 className="font-bold text-sm mb-0.5">{title}</h4>
                 <div className="flex items-center gap-3 text-xs text-white/40">
@@ -328,9 +339,10 @@ const RecordingItem = ({ title, duration, date, studio, fileUrl }) => (
                 </div>
             </div>
         </div>
+        <Waveform peaksUrl={peaksUrl} className="hidden md:block flex-1 h-6 mx-8 max-w-xs fill-accent-purple/40" />
         <div className="flex items-center gap-2 opacity-0 group-hover:opacity-100 transition-opacity">
             <a
-                href={fileUrl}
+                href={mediaUrl ? `${mediaUrl}&download=true` : undefined}
                 download
                 target="_blank"
                 rel="noopener noreferrer"
@@ -0,0 +1,52 @@
+import React, { useEffect, useState } from 'react';
+
+const BARS = 48;
+
+// Peaks response: sampleRate, samplesPerPeak, count (big-endian int32), then a signed (min, max) byte pair per peak
+const parsePeaks = (buffer) => {
+    const view = new DataView(buffer);
+    const count = view.getInt32(8);
+    const peaks = new Int8Array(buffer, 12, count * 2);
+    // Fold whatever level the server picked down to a fixed number of bars
+    const bars = [];
+    const perBar = Math.max(1, count / BARS);
+    for (let bar = 0; bar < Math.min(BARS, count); bar++) {
+        let level = 0;
+        for (let i = Math.floor(bar * perBar); i < Math.floor((bar + 1) * perBar) && i < count; i++) {
+            level = Math.max(level, -peaks[2 * i], peaks[2 * i + 1]);
+        }
+        bars.push(level / 128);
+    }
+    return bars;
+};
+
+// Small min/max waveform drawn from the precomputed peaks; renders nothing until they exist
+const Waveform = ({ peaksUrl, className }) => {
+    const [bars, setBars] = useState(null);
+
+    useEffect(() => {
+        if (!peaksUrl) return undefined;
+        const controller = new AbortController();
+        fetch(`${peaksUrl}&resolution=${BARS}`, { signal: controller.signal })
+            .then((response) => (response.ok ? response.arrayBuffer() : null))
+            .then((buffer) => buffer && setBars(parsePeaks(buffer)))
+            .catch(() => {});
+        return () => controller.abort();
+    }, [peaksUrl]);
+
+    if (!bars || bars.length === 0) return null;
+
+    const width = bars.length * 3;
+    return (
+        <svg viewBox={`0 0 ${width} 24`} preserveAspectRatio="none" className={className}>
+            {bars.map((level, i) => {
+                const height = Math.max(1, level * 24);
+                return (
+                    <rect key={i} x={i * 3} y={(24 - height) / 2} width={2} height={height} rx={1} />
+                );
+            })}
+        </svg>
+    );
+};
+
+export default Waveform;
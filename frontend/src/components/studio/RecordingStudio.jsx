@@ -6,12 +6,13 @@ import {
     MessageSquare, Users, Radio,
     Circle, Play, Square, X,
     Check, ChevronDown, Volume2,
-    Monitor, Edit2, Eye, MoreHorizontal, PenTool
+    Monitor, Edit2, Eye, MoreHorizontal, PenTool, UserPlus
 } from 'lucide-react';
 import { cn } from '../../lib/utils';
 import SockJS from 'sockjs-client';
 import Stomp from 'stompjs';
 import api from '../../lib/api';
+import { uploadRecordingBlob, startLiveUpload } from '../../lib/recordingUpload';
 import { useAuth } from '../../context/AuthContext';
 import InviteModal from './InviteModal';
 import StudioSidePanel from './StudioSidePanel';
@@ -52,18 +53,33 @@ const RecordingStudio = ({ studio, onLeave }) => {
     const [highlights, setHighlights] = useState([]);
     const [isLocked, setIsLocked] = useState(false);
     const [isPaused, setIsPaused] = useState(false);
+    const [roomSize, setRoomSize] = useState(0);
+    const [waitingGuests, setWaitingGuests] = useState([]); // Only filled for hosts
+    const [peerQuality, setPeerQuality] = useState({}); // Only filled for hosts: { peerId: { rtt, loss, ... } }
 
     const videoRef = useRef(null);
     const stompClientRef = useRef(null);
+    const myIdRef = useRef(null); // Peer id, assigned by the server once we are admitted
+    const resumeTokenRef = useRef(null); // Lets a dropped connection pick up where it left off
+    const lastSeqRef = useRef(0); // Highest seq seen on our private queue
+    const reconcileRef = useRef(false); // After a resume, sync peer connections with the next room-state
+    const closingRef = useRef(false);
+    const useSockJsRef = useRef(typeof WebSocket === 'undefined'); // Fall back once native WebSocket fails
     const peerConnections = useRef({}); // { participantId: RTCPeerConnection }
     const localStreamRef = useRef(null);
+    const iceServersRef = useRef([{ urls: 'stun:stun.l.google.com:19302' }]); // Replaced by the server's list
+    const recordedChunksRef = useRef([]); // The recorder's onstop closure cannot see later state
+    const liveUploadRef = useRef(null); // Streams timeslices to the server while recording
+    const statsBaselineRef = useRef(null); // Previous getStats() totals, for per-second loss and bitrate
 
     // WebSocket & Signaling Setup
     useEffect(() => {
         if (!isSetup) {
+            closingRef.current = false;
             connectSignaling();
         }
         return () => {
+            closingRef.current = true;
             if (stompClientRef.current) {
                 stompClientRef.current.disconnect();
             }
@@ -72,28 +88,221 @@ const RecordingStudio = ({ studio, onLeave }) => {
         };
     }, [isSetup, studio.id]);
 
+    // ICE servers come from the backend, which may run its own STUN responder
+    useEffect(() => {
+        api.get('/studios/rtc-config')
+            .then(({ data }) => {
+                if (data?.iceServers?.length) iceServersRef.current = data.iceServers;
+            })
+            .catch(() => { /* keep the default */ });
+    }, []);
+
+    // Push one compact connection-quality sample per second while we are in the room
+    useEffect(() => {
+        if (isSetup) return;
+        const interval = setInterval(async () => {
+            const sample = await collectTelemetry();
+            if (sample && myIdRef.current && stompClientRef.current?.connected) {
+                stompClientRef.current.send(`/app/studio/${studio.id}/telemetry`, {}, JSON.stringify(sample));
+            }
+        }, 1000);
+        return () => clearInterval(interval);
+    }, [isSetup, studio.id]);
+
+    // Worst RTT and jitter across our peer connections, plus loss and inbound bitrate since the last sample
+    const collectTelemetry = async () => {
+        const pcs = Object.values(peerConnections.current);
+        if (pcs.length === 0) {
+            statsBaselineRef.current = null;
+            return null;
+        }
+        let rtt = 0, jitter = 0, lost = 0, received = 0, bytes = 0;
+        const reports = await Promise.all(pcs.map(pc => pc.getStats().catch(() => null)));
+        reports.forEach(report => report?.forEach(stat => {
+            if (stat.type === 'candidate-pair' && stat.nominated && stat.currentRoundTripTime !== undefined) {
+                rtt = Math.max(rtt, stat.currentRoundTripTime * 1000);
+            }
+            if (stat.type === 'inbound-rtp') {
+                jitter = Math.max(jitter, (stat.jitter || 0) * 1000);
+                lost += stat.packetsLost || 0;
+                received += stat.packetsReceived || 0;
+                bytes += stat.bytesReceived || 0;
+            }
+        }));
+        const now = Date.now();
+        const previous = statsBaselineRef.current;
+        statsBaselineRef.current = { lost, received, bytes, at: now };
+        if (!previous) return null;
+
+        // Counters shrink when a peer leaves; treat that second as empty rather than negative
+        const lostDelta = Math.max(0, lost - previous.lost);
+        const receivedDelta = Math.max(0, received - previous.received);
+        const bytesDelta = Math.max(0, bytes - previous.bytes);
+        const seconds = Math.max(0.001, (now - previous.at) / 1000);
+        const total = lostDelta + receivedDelta;
+        return {
+            rtt: Math.round(rtt),
+            jitter: Math.round(jitter),
+            loss: total > 0 ? Math.round(lostDelta * 1000 / total) : 0,
+            kbps: Math.round(bytesDelta * 8 / 1000 / seconds)
+        };
+    };
+
     const connectSignaling = () => {
-        const socket = new SockJS('http://localhost:8080/ws');
+        const socket = useSockJsRef.current
+            ? new SockJS('http://localhost:8080/ws')
+            : new WebSocket('ws://localhost:8080/ws-native');
         const client = Stomp.over(socket);
         client.debug = null;
+        // Heartbeats both ways keep us listed in the room and let the server spot dead connections
+        client.heartbeat.outgoing = 10000;
+        client.heartbeat.incoming = 10000;
+        let connected = false;
+
+        socket.addEventListener('close', (event) => {
+            // A proxy that blocks WebSocket upgrades: retry once over SockJS
+            if (!connected && !useSockJsRef.current) {
+                useSockJsRef.current = true;
+                connectSignaling();
+                return;
+            }
+            if (closingRef.current) return;
+            // The server closes sessions that fall too far behind; start over with fresh peer connections.
+            // Any other drop keeps the peer connections (media is peer-to-peer) and resumes signaling.
+            if (event.reason === 'resync') {
+                resetPeers();
+            }
+            setTimeout(connectSignaling, 1000);
+        });
+
+        // The token identifies owners and listed guests; the invite code admits anyone holding the link
+        const token = localStorage.getItem('podnest_token');
+        const headers = token ? { Authorization: `Bearer ${token}` } : {};
+        if (studio.inviteCode) {
+            headers['invite-code'] = studio.inviteCode;
+        }
 
-        client.connect({}, () => {
+        client.connect(headers, () => {
+            connected = true;
             stompClientRef.current = client;
 
-            client.subscribe(`/topic/studio/${studio.id}`, (message) => {
+            const onSignal = (message) => {
                 const signal = JSON.parse(message.body);
+                const seq = Number(message.headers.seq);
+                if (seq) lastSeqRef.current = seq;
+                if (signal.type === 'presence') {
+                    handlePresence(signal);
+                    return;
+                }
+                if (signal.type === 'room-state') {
+                    setRoomSize(signal.members.length);
+                    if (reconcileRef.current) {
+                        reconcileRef.current = false;
+                        reconcilePeers(signal.members);
+                    }
+                    return;
+                }
+                if (signal.type === 'waiting-room') {
+                    setWaitingGuests(signal.waiting);
+                    return;
+                }
+                if (signal.type === 'quality') {
+                    setPeerQuality(Object.fromEntries(signal.participants.map(p => [p.id, p])));
+                    return;
+                }
+                if (signal.type === 'error') {
+                    console.warn('Signal rejected:', signal.message);
+                    return;
+                }
+                // Relayed peer signals carry the sender in a header; server events carry it in the body
+                const senderId = message.headers['sender-id'] || signal.senderId;
                 // Don't process our own join signal
-                if (signal.senderId !== socket._generateSessionId()) {
-                    handleSignalingData({ ...signal, myId: socket._generateSessionId() });
+                if (senderId !== myIdRef.current) {
+                    handleSignalingData({ ...signal, senderId, myId: myIdRef.current });
                 }
-            });
+            };
+
+            // Room-wide events (join/leave) arrive on the topic; offers, answers and
+            // candidates addressed to us arrive on our private queue
+            client.subscribe(`/topic/studio/${studio.id}`, onSignal);
+            client.subscribe('/user/queue/signal', onSignal);
+
+            if (resumeTokenRef.current) {
+                client.send(`/app/studio/${studio.id}/resume`, {},
+                    JSON.stringify({ token: resumeTokenRef.current, lastSeq: lastSeqRef.current }));
+            } else {
+                enterStudio(client);
+            }
+        });
+    };
+
+    // The server answers with a presence frame: admitted, waiting, full or rejected
+    const enterStudio = (client) => {
+        client.send(`/app/studio/${studio.id}/enter`, {}, JSON.stringify({ name: myName || user?.fullName || 'Guest' }));
+    };
+
+    const resetPeers = () => {
+        Object.values(peerConnections.current).forEach(pc => pc.close());
+        peerConnections.current = {};
+        setRemoteParticipants([]);
+        resumeTokenRef.current = null;
+        lastSeqRef.current = 0;
+    };
 
-            // Announce presence with a simple unique ID (using timestamp or socket id if available)
-            const myId = socket._generateSessionId() || Date.now().toString();
-            sendSignal({ type: 'join', senderId: myId, name: myName || user?.fullName || 'Guest' });
+    // Joins and leaves broadcast while we were away are not replayed; the snapshot covers them
+    const reconcilePeers = (members) => {
+        const present = new Set(members.map(m => m.id));
+        Object.keys(peerConnections.current).forEach(id => {
+            if (!present.has(id)) {
+                handleSignalingData({ type: 'leave', senderId: id, myId: myIdRef.current });
+            }
+        });
+        members.forEach(m => {
+            if (m.id !== myIdRef.current && !peerConnections.current[m.id]) {
+                createPeerConnection(m.id, true, m.name);
+            }
         });
     };
 
+    const handlePresence = ({ status, selfId, muted, resumeToken }) => {
+        switch (status) {
+            case 'resumed':
+                reconcileRef.current = true;
+                break;
+            case 'resume-failed':
+                resetPeers();
+                enterStudio(stompClientRef.current);
+                break;
+            case 'admitted':
+                myIdRef.current = selfId;
+                resumeTokenRef.current = resumeToken || null;
+                lastSeqRef.current = 0;
+                if (muted) {
+                    localStreamRef.current?.getAudioTracks().forEach(track => { track.enabled = false; });
+                    setDevices(prev => ({ ...prev, audio: false }));
+                    showToast('info', 'You joined muted');
+                }
+                // Only admitted sessions may signal, so announce ourselves now
+                sendSignal({ type: 'join', name: myName || user?.fullName || 'Guest' });
+                break;
+            case 'waiting':
+                showToast('info', 'Waiting for the host to let you in...');
+                break;
+            case 'full':
+                showToast('error', 'This studio is full');
+                break;
+            case 'rejected':
+                showToast('error', 'This studio does not exist');
+                break;
+        }
+    };
+
+    const admitWaitingGuests = () => {
+        if (stompClientRef.current?.connected) {
+            stompClientRef.current.send(`/app/studio/${studio.id}/admit`, {}, JSON.stringify({}));
+        }
+    };
+
     const sendSignal = (data) => {
         if (stompClientRef.current?.connected) {
             stompClientRef.current.send(`/app/studio/${studio.id}/signal`, {}, JSON.stringify(data));
@@ -102,7 +311,7 @@ const RecordingStudio = ({ studio, onLeave }) => {
 
     const createPeerConnection = (participantId, isInitiator, name) => {
         const pc = new RTCPeerConnection({
-            iceServers: [{ urls: 'stun:stun.l.google.com:19302' }]
+            iceServers: iceServersRef.current
         });
 
         peerConnections.current[participantId] = pc;
@@ -119,9 +328,7 @@ const RecordingStudio = ({ studio, onLeave }) => {
                 sendSignal({
                     type: 'candidate',
                     targetId: participantId,
-                    candidate: event.candidate,
-                    senderId: stompClientRef.current.ws._generateSessionId(),
-                    name: myName || user?.fullName || 'Guest'
+                    candidate: event.candidate
                 });
             }
         };
@@ -141,7 +348,6 @@ const RecordingStudio = ({ studio, onLeave }) => {
                     type: 'offer',
                     targetId: participantId,
                     offer: offer,
-                    senderId: stompClientRef.current.ws._generateSessionId(),
                     name: myName || user?.fullName || 'Guest'
                 });
             });
@@ -170,7 +376,6 @@ const RecordingStudio = ({ studio, onLeave }) => {
                     type: 'answer',
                     targetId: senderId,
                     answer: pcAnswer,
-                    senderId: myId,
                     name: myName || user?.fullName || 'Guest'
                 });
                 break;
@@ -186,6 +391,22 @@ const RecordingStudio = ({ studio, onLeave }) => {
                     await pcCand.addIceCandidate(new RTCIceCandidate(candidate));
                 }
                 break;
+            case 'candidates':
+                // Batched by the server when ICE coalescing is on
+                const pcBatch = peerConnections.current[senderId];
+                if (pcBatch) {
+                    for (const c of signal.candidates) {
+                        await pcBatch.addIceCandidate(new RTCIceCandidate(c));
+                    }
+                }
+                break;
+            case 'leave':
+                if (peerConnections.current[senderId]) {
+                    peerConnections.current[senderId].close();
+                    delete peerConnections.current[senderId];
+                }
+                setRemoteParticipants(prev => prev.filter(p => p.id !== senderId));
+                break;
         }
     };
 
@@ -241,21 +462,39 @@ const RecordingStudio = ({ studio, onLeave }) => {
         }
     };
 
-    const startRecording = () => {
+    const startRecording = async () => {
         if (!localStream) return;
 
         const recorder = new MediaRecorder(localStream, {
             mimeType: 'video/webm;codecs=vp9,opus'
         });
 
+        // The library entry exists from the first second, and the file grows on the server as we record
+        let recordingId = null;
+        liveUploadRef.current = null;
+        try {
+            const { data: recording } = await api.post('/recordings', {
+                studioId: studio.id,
+                title: `Recording - ${new Date().toLocaleString()}`,
+                duration: formatTime(0)
+            });
+            recordingId = recording.id;
+            liveUploadRef.current = await startLiveUpload(recording.id, 'video/webm');
+        } catch (err) {
+            console.error('Live upload unavailable, will upload after stop:', err);
+        }
+
+        recordedChunksRef.current = [];
         recorder.ondataavailable = (event) => {
             if (event.data.size > 0) {
+                recordedChunksRef.current.push(event.data);
+                liveUploadRef.current?.push(event.data);
                 setRecordedChunks((prev) => [...prev, event.data]);
             }
         };
 
         recorder.onstop = async () => {
-            const blob = new Blob(recordedChunks, {
+            const blob = new Blob(recordedChunksRef.current, {
                 type: 'video/webm'
             });
             const url = URL.createObjectURL(blob);
@@ -277,24 +516,37 @@ const RecordingStudio = ({ studio, onLeave }) => {
             a.click();
             window.URL.revokeObjectURL(url);
 
-            // Save metadata to backend
+            // Normally only the last second is still in flight; without live upload, send the whole file now
             try {
-                await api.post('/recordings', {
-                    studioId: studio.id,
-                    title: `Recording - ${new Date().toLocaleString()}`,
-                    duration: formatTime(timer),
-                    fileUrl: url // In a real app, this would be an S3/Cloud bucket URL
-                });
-                alert('Recording saved to your library!');
+                if (liveUploadRef.current) {
+                    await liveUploadRef.current.finish();
+                } else {
+                    let id = recordingId;
+                    if (!id) {
+                        const { data: recording } = await api.post('/recordings', {
+                            studioId: studio.id,
+                            title: `Recording - ${new Date().toLocaleString()}`,
+                            duration: formatTime(timer)
+                        });
+                        id = recording.id;
+                    }
+                    showToast('info', 'Uploading recording...');
+                    await uploadRecordingBlob(id, blob);
+                }
+                showToast('success', 'Recording saved to your library!');
             } catch (err) {
-                console.error('Failed to save recording metadata:', err);
+                console.error('Failed to upload recording:', err);
+                showToast('error', 'Recording upload failed; the local download is still available');
+            } finally {
+                liveUploadRef.current = null;
             }
 
             setRecordedChunks([]);
             setTimer(0);
         };
 
-        recorder.start();
+        // One-second timeslices keep the upload backlog (and what a crash can lose) small
+        recorder.start(1000);
         setMediaRecorder(recorder);
         setIsRecording(true);
         showToast('success', '🔴 Recording started');
@@ -550,10 +802,22 @@ const RecordingStudio = ({ studio, onLeave }) => {
                         <div className="w-px h-4 bg-white/20" />
                         <div className="flex items-center gap-1.5">
                             <Eye className="w-4 h-4 text-white/60" />
-                            <span className="text-white/80 font-semibold text-sm">{viewerCount + remoteParticipants.length + 1}</span>
+                            <span className="text-white/80 font-semibold text-sm">{Math.max(roomSize, viewerCount + remoteParticipants.length + 1)}</span>
                         </div>
                     </div>
 
+                    {/* Waiting Room (hosts only) */}
+                    {waitingGuests.length > 0 && (
+                        <button
+                            onClick={admitWaitingGuests}
+                            title={waitingGuests.map(g => g.name).join(', ')}
+                            className="px-4 py-2 bg-accent-purple/20 hover:bg-accent-purple/30 border border-accent-purple/40 rounded-xl transition-all text-sm font-semibold flex items-center gap-2 hover:scale-105 active:scale-95"
+                        >
+                            <UserPlus className="w-4 h-4" />
+                            <span>Admit {waitingGuests.length}</span>
+                        </button>
+                    )}
+
                     {/* Invite Button */}
                     <button
                         onClick={() => setShowInviteModal(true)}
@@ -628,6 +892,11 @@ const RecordingStudio = ({ studio, onLeave }) => {
                                             stream={participant.stream}
                                             active={true}
                                         />
+                                        {peerQuality[participant.id] && (
+                                            <div className="absolute top-2 right-2 px-2 py-0.5 rounded-md bg-black/60 backdrop-blur-md border border-white/10 text-[10px] font-bold tracking-wider">
+                                                {peerQuality[participant.id].rtt.p95} ms · {(peerQuality[participant.id].loss.p95 / 10).toFixed(1)}% loss
+                                            </div>
+                                        )}
                                     </div>
                                 ))}
                             </div>
@@ -23,6 +23,7 @@ export const AuthProvider = ({ children }) => {
         } catch (error) {
             console.error('Failed to fetch profile:', error);
             localStorage.removeItem('podnest_token');
+            localStorage.removeItem('podnest_refresh_token');
         } finally {
             setLoading(false);
         }
@@ -30,22 +31,35 @@ export const AuthProvider = ({ children }) => {
 
     const login = async (email, password) => {
         const response = await api.post('/auth/login', { email, password });
-        const { token } = response.data;
+        const { token, refreshToken } = response.data;
         localStorage.setItem('podnest_token', token);
+        localStorage.setItem('podnest_refresh_token', refreshToken);
         await fetchUserProfile();
         return response.data;
     };
 
     const signup = async (fullName, email, password) => {
         const response = await api.post('/auth/register', { fullName, email, password });
-        const { token } = response.data;
+        const { token, refreshToken } = response.data;
         localStorage.setItem('podnest_token', token);
+        localStorage.setItem('podnest_refresh_token', refreshToken);
         await fetchUserProfile();
         return response.data;
     };
 
     const logout = () => {
+        const token = localStorage.getItem('podnest_token');
+        const refreshToken = localStorage.getItem('podnest_refresh_token');
+        // Revoke server-side as well; the local session ends either way
+        api.post('/auth/logout', { refreshToken }, {
+            headers: token ? { Authorization: `Bearer ${token}` } : {}
+        }).catch(() => { });
+        if (!refreshToken) {
+            // Google sign-in: the refresh token lives in a cookie only the refresh endpoint receives
+            api.delete('/auth/refresh', { withCredentials: true }).catch(() => { });
+        }
         localStorage.removeItem('podnest_token');
+        localStorage.removeItem('podnest_refresh_token');
         setUser(null);
     };
 
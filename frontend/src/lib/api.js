@@ -12,4 +12,44 @@ api.interceptors.request.use((config) => {
     return config;
 });
 
+// Access tokens are short-lived: on a 401, rotate the refresh token once and replay the request.
+// Concurrent 401s share one refresh call because the server only accepts each refresh token once.
+let refreshing = null;
+
+// Google sign-ins keep the refresh token in an HttpOnly cookie instead, which the server rotates itself.
+const refreshAccessToken = async () => {
+    const refreshToken = localStorage.getItem('podnest_refresh_token');
+    const response = refreshToken
+        ? await axios.post(`${api.defaults.baseURL}/auth/refresh`, { refreshToken })
+        : await axios.post(`${api.defaults.baseURL}/auth/refresh`, null, { withCredentials: true });
+    localStorage.setItem('podnest_token', response.data.token);
+    if (response.data.refreshToken) {
+        localStorage.setItem('podnest_refresh_token', response.data.refreshToken);
+    }
+    return response.data.token;
+};
+
+api.interceptors.response.use(
+    (response) => response,
+    async (error) => {
+        const original = error.config;
+        if (error.response?.status !== 401 || original._retried || original.url?.startsWith('/auth/')) {
+            return Promise.reject(error);
+        }
+        original._retried = true;
+        try {
+            refreshing = refreshing || refreshAccessToken();
+            const token = await refreshing;
+            original.headers.Authorization = `Bearer ${token}`;
+            return api(original);
+        } catch (refreshError) {
+            localStorage.removeItem('podnest_token');
+            localStorage.removeItem('podnest_refresh_token');
+            return Promise.reject(error);
+        } finally {
+            refreshing = null;
+        }
+    }
+);
+
 export default api;
@@ -0,0 +1,111 @@
+import api from './api';
+
+const MAX_ATTEMPTS = 5;
+
+const sleep = (ms) => new Promise(resolve => setTimeout(resolve, ms));
+
+// Retries one request with backoff; 4xx answers other than 408/429 are final
+async function withRetry(request) {
+    for (let attempt = 1; ; attempt++) {
+        try {
+            return await request();
+        } catch (err) {
+            const status = err.response?.status;
+            const retryable = !status || status === 408 || status === 429 || status >= 500;
+            if (!retryable || attempt >= MAX_ATTEMPTS) throw err;
+            await sleep(Math.min(16000, 500 * 2 ** attempt));
+        }
+    }
+}
+
+/**
+ * Uploads a recording blob in chunks the server sized for us. Chunks the
+ * server already has are skipped, so calling this again with the same
+ * uploadId resumes an interrupted upload.
+ */
+export async function uploadRecordingBlob(recordingId, blob, { uploadId, onProgress } = {}) {
+    const upload = uploadId
+        ? (await withRetry(() => api.get(`/recordings/uploads/${uploadId}`))).data
+        : (await withRetry(() => api.post(`/recordings/${recordingId}/uploads`, {
+            size: blob.size,
+            contentType: blob.type || 'video/webm'
+        }))).data;
+
+    const received = new Set(upload.receivedChunks);
+    let done = received.size;
+    for (let index = 0; index < upload.chunkCount; index++) {
+        if (received.has(index)) continue;
+        const start = index * upload.chunkSize;
+        const chunk = blob.slice(start, Math.min(start + upload.chunkSize, blob.size));
+        await withRetry(() => api.put(`/recordings/uploads/${upload.uploadId}/chunks/${index}`, chunk, {
+            headers: { 'Content-Type': 'application/octet-stream' }
+        }));
+        done++;
+        onProgress?.(done / upload.chunkCount);
+    }
+
+    const { data } = await withRetry(() => api.post(`/recordings/uploads/${upload.uploadId}/complete`));
+    return data;
+}
+
+const LIVE_MAX_REQUEST_BYTES = 4 * 1024 * 1024;
+
+/**
+ * Streams MediaRecorder timeslices to the server while recording. Every
+ * request appends at the last offset the server acknowledged, so a dropped
+ * request is simply resent from there; finish() waits for the backlog to
+ * drain before closing the recording, and fails if the server refused it.
+ */
+export async function startLiveUpload(recordingId, contentType) {
+    const { data } = await withRetry(() => api.post(`/recordings/${recordingId}/live`, { contentType }));
+    const parts = [];
+    let total = 0;
+    let acked = data.offset;
+    let pumping = null;
+
+    const pump = async () => {
+        while (acked < total) {
+            const end = Math.min(total, acked + LIVE_MAX_REQUEST_BYTES);
+            const body = new Blob(parts).slice(acked, end);
+            try {
+                const response = await api.put(`/recordings/${recordingId}/live`, body, {
+                    params: { offset: acked },
+                    headers: { 'Content-Type': 'application/octet-stream' }
+                });
+                acked = response.data.offset;
+            } catch (err) {
+                if (err.response?.status === 409) {
+                    // We are ahead of or behind the server; ask where it actually is
+                    acked = (await withRetry(() => api.get(`/recordings/${recordingId}/live`))).data.offset;
+                } else if (err.response && err.response.status < 500 && err.response.status !== 408 && err.response.status !== 429) {
+                    throw err;
+                } else {
+                    await sleep(1000);
+                }
+            }
+        }
+    };
+
+    // push() does not wait on the pump, so its failures are logged here; finish() gets them as a rejection
+    const kick = () => {
+        if (!pumping) {
+            pumping = pump().finally(() => { pumping = null; });
+            pumping.catch(err => console.error('Live upload stalled:', err));
+        }
+        return pumping;
+    };
+
+    return {
+        push(blob) {
+            parts.push(blob);
+            total += blob.size;
+            kick();
+        },
+        async finish() {
+            while (acked < total) await kick();
+            const { data: recording } = await withRetry(() =>
+                api.post(`/recordings/${recordingId}/live/finish`, { size: total }));
+            return recording;
+        }
+    };
+}